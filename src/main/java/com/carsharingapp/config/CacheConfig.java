@@ -0,0 +1,85 @@
+package com.carsharingapp.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String CARS_CACHE = "cars";
+    public static final String CAR_PAGES_CACHE = "carPages";
+    public static final String TELEGRAM_CHATS_CACHE = "telegramChats";
+    public static final String PAYMENT_IDEMPOTENCY_CACHE = "paymentIdempotency";
+    public static final String USER_DETAILS_CACHE = "userDetails";
+
+    @Value("${cache.cars.maximum-size:10000}")
+    private long carsMaximumSize;
+
+    @Value("${cache.cars.expiration:600000}")
+    private long carsExpiration;
+
+    /**
+     * Pages show the inventory of every car on them but are not evicted by rentals, which
+     * change it all the time, so they only live for a short while.
+     */
+    @Value("${cache.car-pages.expiration:5000}")
+    private long carPagesExpiration;
+
+    @Value("${cache.user-details.maximum-size:10000}")
+    private long userDetailsMaximumSize;
+
+    @Value("${cache.user-details.expiration:60000}")
+    private long userDetailsExpiration;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(carsMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(carsExpiration))
+                .recordStats());
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCacheNames(List.of(CARS_CACHE, TELEGRAM_CHATS_CACHE,
+                PAYMENT_IDEMPOTENCY_CACHE));
+        cacheManager.registerCustomCache(CAR_PAGES_CACHE, Caffeine.newBuilder()
+                .maximumSize(carsMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(carPagesExpiration))
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(USER_DETAILS_CACHE, Caffeine.newBuilder()
+                .maximumSize(userDetailsMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(userDetailsExpiration))
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    /**
+     * Publishes the hit ratio of every cache as {@code cache.hit.ratio}, tagged with the
+     * cache name.
+     */
+    @Bean
+    public MeterBinder cacheHitRatioMetrics(CacheManager cacheManager) {
+        return registry -> cacheManager.getCacheNames().forEach(name -> {
+            if (cacheManager.getCache(name).getNativeCache()
+                    instanceof Cache<?, ?> cache) {
+                Gauge.builder("cache.hit.ratio", cache,
+                                nativeCache -> nativeCache.stats().hitRate())
+                        .description("Share of cache lookups served from the cache")
+                        .tag("cache", name)
+                        .register(registry);
+            }
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package com.carsharingapp.controller;
 
+import com.carsharingapp.dto.user.RefreshTokenRequestDto;
 import com.carsharingapp.dto.user.UserLoginRequestDto;
 import com.carsharingapp.dto.user.UserLoginResponseDto;
 import com.carsharingapp.dto.user.UserRegistrationRequestDto;
@@ -10,10 +11,15 @@ import com.carsharingapp.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 @Tag(name = "Registration management")
@@ -21,21 +27,45 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 @RequestMapping("/auth")
 public class AuthController {
+    private static final String BEARER_PREFIX = "Bearer ";
+
     private final UserService userService;
     private final AuthenticationService authenticationService;
 
     @Operation(summary = "Endpoint for user registration",
             description = "User registration")
     @PostMapping("/registration")
-    public UserResponseDto registerUser(
+    public CompletableFuture<UserResponseDto> registerUser(
             @RequestBody @Valid UserRegistrationRequestDto userRegistrationRequestDto)
             throws RegistrationException {
         return userService.register(userRegistrationRequestDto);
     }
 
     @PostMapping("/login")
-    public UserLoginResponseDto loginUser(
+    public CompletableFuture<UserLoginResponseDto> loginUser(
             @RequestBody @Valid UserLoginRequestDto userLoginRequestDto) {
         return authenticationService.authenticate(userLoginRequestDto);
     }
+
+    @Operation(summary = "Exchange a refresh token for a new access token",
+            description = "Issues a new access token without checking the password")
+    @PostMapping("/refresh")
+    public UserLoginResponseDto refreshToken(
+            @RequestBody @Valid RefreshTokenRequestDto refreshTokenRequestDto) {
+        return authenticationService.refresh(refreshTokenRequestDto.refreshToken());
+    }
+
+    @Operation(summary = "Log out",
+            description = "Revokes the refresh token and the bearer access token, if any")
+    @PostMapping("/logout")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void logout(
+            @RequestBody @Valid RefreshTokenRequestDto refreshTokenRequestDto,
+            @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false)
+            String authorization) {
+        String accessToken = authorization != null && authorization.startsWith(BEARER_PREFIX)
+                ? authorization.substring(BEARER_PREFIX.length())
+                : null;
+        authenticationService.logout(refreshTokenRequestDto.refreshToken(), accessToken);
+    }
 }
@@ -3,6 +3,7 @@ package com.carsharingapp.controller;
 import com.carsharingapp.dto.car.CarFilterDto;
 import com.carsharingapp.dto.car.CarResponseDto;
 import com.carsharingapp.dto.car.RequestCarDto;
+import com.carsharingapp.dto.page.CursorPageDto;
 import com.carsharingapp.service.CarService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -19,6 +20,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -36,6 +38,16 @@ public class CarController {
         return carService.findAllCars(pageable);
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "Find all cars by cursor",
+            description = "Find cars ordered by id, page after page. Pass nextCursor of "
+                    + "the previous page as 'after' to get the next one")
+    public CursorPageDto<CarResponseDto> getAllCarsByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        return carService.findAllCars(after, size);
+    }
+
     @GetMapping("/search")
     @Operation(summary = "Searching a cars by parameter",
             description = "Searching a cars by parameter dynamically")
@@ -0,0 +1,33 @@
+package com.carsharingapp.controller;
+
+import com.carsharingapp.security.JwtKeyProvider;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.Duration;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "Token verification keys")
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+    private final JwtKeyProvider jwtKeyProvider;
+
+    @Value("${jwt.signing.jwks.max-age:300000}")
+    private long maxAgeMillis;
+
+    @Operation(summary = "Public keys tokens are signed with",
+            description = "JWK set with the current, upcoming and retiring signing keys. "
+                    + "Empty while tokens are signed with a shared secret")
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> getKeys() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMillis(maxAgeMillis)).cachePublic())
+                .body(Map.of("keys", jwtKeyProvider.publicKeys()));
+    }
+}
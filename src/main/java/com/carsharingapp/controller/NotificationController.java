@@ -0,0 +1,73 @@
+package com.carsharingapp.controller;
+
+import com.carsharingapp.dto.notification.NotificationPreferencesDto;
+import com.carsharingapp.dto.notification.UserNotificationDto;
+import com.carsharingapp.security.AuthenticatedUser;
+import com.carsharingapp.service.UserNotificationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.security.core.Authentication;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "Notification management",
+        description = "Endpoints for the in-app inbox and notification channels")
+@RestController
+@RequestMapping("/notifications")
+@Validated
+@RequiredArgsConstructor
+public class NotificationController {
+    private final UserNotificationService userNotificationService;
+
+    @Operation(summary = "Get user's inbox",
+            description = "Get in-app notifications, newest first "
+                    + "(Pageable default: page = 0, size = 10)")
+    @GetMapping
+    public List<UserNotificationDto> getInbox(
+            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC)
+            Pageable pageable,
+            Authentication authentication) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return userNotificationService.getInbox(user.getId(), pageable);
+    }
+
+    @Operation(summary = "Mark notification as read",
+            description = "Mark an in-app notification as read")
+    @PatchMapping("/{id}/read")
+    public void markRead(@PathVariable @Positive Long id, Authentication authentication) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        userNotificationService.markRead(user.getId(), id);
+    }
+
+    @Operation(summary = "Get notification channels",
+            description = "Get the channels the user receives notifications through")
+    @GetMapping("/preferences")
+    public NotificationPreferencesDto getPreferences(Authentication authentication) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return userNotificationService.getPreferences(user.getId());
+    }
+
+    @Operation(summary = "Update notification channels",
+            description = "Set the channels (TELEGRAM, EMAIL, IN_APP) the user receives "
+                    + "notifications through")
+    @PutMapping("/preferences")
+    public NotificationPreferencesDto updatePreferences(
+            @RequestBody @Valid NotificationPreferencesDto preferencesDto,
+            Authentication authentication) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return userNotificationService.updatePreferences(user.getId(), preferencesDto);
+    }
+}
@@ -1,12 +1,15 @@
 package com.carsharingapp.controller;
 
+import com.carsharingapp.dto.page.CursorPageDto;
 import com.carsharingapp.dto.payment.PaymentRequestDto;
 import com.carsharingapp.dto.payment.PaymentResponseDto;
-import com.carsharingapp.model.User;
+import com.carsharingapp.security.AuthenticatedUser;
 import com.carsharingapp.service.PaymentService;
+import com.carsharingapp.service.payment.StripeWebhookProcessor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
@@ -17,6 +20,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -29,6 +33,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/payments")
 public class PaymentController {
     private final PaymentService paymentService;
+    private final StripeWebhookProcessor stripeWebhookProcessor;
 
     @Operation(summary = "Get all user's payments",
             description = "Get all user payments (Pageable default: page = 0, size = 10)")
@@ -37,10 +42,24 @@ public class PaymentController {
     @GetMapping
     public List<PaymentResponseDto> getAll(@PageableDefault(page = 0, size = 10) Pageable pageable,
                                                Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
         return paymentService.getPayments(user.getId(), pageable);
     }
 
+    @Operation(summary = "Get all user's payments by cursor",
+            description = "Get all user payments ordered by id. Pass nextCursor of "
+                    + "the previous page as 'after' to get the next one")
+    @ResponseBody
+    @PreAuthorize("hasRole('CUSTOMER')")
+    @GetMapping("/cursor")
+    public CursorPageDto<PaymentResponseDto> getAllByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            Authentication authentication) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return paymentService.getPayments(user.getId(), after, size);
+    }
+
     @Operation(summary = "Get all payments by status",
             description = "Get all payments by status (Pageable default: page = 0, size = 10)")
     @ResponseBody
@@ -49,18 +68,23 @@ public class PaymentController {
     public List<PaymentResponseDto> searchPayments(@RequestParam(name = "status") String status,
                                            @PageableDefault(page = 0, size = 10) Pageable pageable,
                                            Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
         return paymentService.getPaymentsByStatus(user.getId(), status, pageable);
     }
 
     @Operation(summary = "Create session",
-            description = "Session is created to enable user to use Stripe")
+            description = "Session is created to enable user to use Stripe. Repeating "
+                    + "the request with the same Idempotency-Key returns the first response")
     @ResponseBody
     @PreAuthorize("hasRole('CUSTOMER')")
     @PostMapping("/pay")
     public PaymentResponseDto createPaymentIntent(
-            @RequestBody @Valid PaymentRequestDto requestDto) {
-        return paymentService.createPaymentSession(requestDto);
+            @RequestBody @Valid PaymentRequestDto requestDto,
+            @RequestHeader(name = "Idempotency-Key", required = false)
+            @Size(min = 1, max = 255) String idempotencyKey,
+            Authentication authentication) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return paymentService.createPaymentSession(user.getId(), requestDto, idempotencyKey);
     }
 
     @Operation(summary = "Page redirection of successful payment",
@@ -80,4 +104,14 @@ public class PaymentController {
         paymentService.getCancelledPayment(sessionId);
         return "cancel";
     }
+
+    @Operation(summary = "Stripe webhook",
+            description = "Receives signed checkout session events from Stripe. Events are "
+                    + "acknowledged right away and applied to payments in batches")
+    @PostMapping("/webhook")
+    public void handleWebhook(@RequestBody String payload,
+                              @RequestHeader(name = "Stripe-Signature", required = false)
+                              String signature) {
+        stripeWebhookProcessor.accept(payload, signature);
+    }
 }
@@ -1,8 +1,9 @@
 package com.carsharingapp.controller;
 
+import com.carsharingapp.dto.page.CursorPageDto;
 import com.carsharingapp.dto.rental.RentalRequestDto;
 import com.carsharingapp.dto.rental.RentalResponseDto;
-import com.carsharingapp.model.User;
+import com.carsharingapp.security.AuthenticatedUser;
 import com.carsharingapp.service.RentalService;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
@@ -34,7 +35,7 @@ public class RentalController {
     public RentalResponseDto createRental(
             @RequestBody @Valid RentalRequestDto requestDto,
             Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
         return rentalService.createRental(requestDto, user.getId());
     }
 
@@ -44,17 +45,30 @@ public class RentalController {
     public List<RentalResponseDto> getAll(
             @PageableDefault(page = 0, size = 10) Pageable pageable,
             Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
         return rentalService.getAllRentals(user.getId(), pageable);
     }
 
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    @Operation(summary = "Get all rentals by cursor",
+            description = "Get all user's rentals, newest first. Pass nextCursor of "
+                    + "the previous page as 'after' to get the next one")
+    public CursorPageDto<RentalResponseDto> getAllByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            Authentication authentication) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return rentalService.getAllRentals(user.getId(), after, size);
+    }
+
     @GetMapping("/active")
     @PreAuthorize("hasRole('CUSTOMER')")
     @Operation(summary = "Get active rentals", description = "Get all user's active rentals")
     public List<RentalResponseDto> getAllActiveRentals(
             @PageableDefault(page = 0, size = 10) Pageable pageable,
             Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
         return rentalService.getAllActiveRentals(user.getId(), pageable);
     }
 
@@ -64,7 +78,7 @@ public class RentalController {
     public List<RentalResponseDto> getAllInactiveRentals(
             @PageableDefault(page = 0, size = 10) Pageable pageable,
             Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
         return rentalService.getAllNotActiveRentals(user.getId(), pageable);
     }
 
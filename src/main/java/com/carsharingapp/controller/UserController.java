@@ -1,10 +1,11 @@
 package com.carsharingapp.controller;
 
 import com.carsharingapp.dto.role.RoleRequestDto;
+import com.carsharingapp.dto.user.TelegramLinkDto;
 import com.carsharingapp.dto.user.UserResponseDto;
 import com.carsharingapp.dto.user.UserUpdateDto;
-import com.carsharingapp.mapper.user.UserMapper;
-import com.carsharingapp.model.User;
+import com.carsharingapp.security.AuthenticatedUser;
+import com.carsharingapp.service.TelegramChatService;
 import com.carsharingapp.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -29,7 +30,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
-    private final UserMapper userMapper;
+    private final TelegramChatService telegramChatService;
 
     @Operation(summary = "Update user's role",
             description = "Manager can update user's role (param - new role)")
@@ -44,8 +45,17 @@ public class UserController {
             description = "Get user's firstname, lastname and email")
     @GetMapping("/me")
     public UserResponseDto getUserInfo(Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
-        return userMapper.toUserResponseDto(user);
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return userService.getUserInfo(user.getId());
+    }
+
+    @Operation(summary = "Get Telegram link",
+            description = "Get a deep link that connects the user's Telegram chat "
+                    + "to receive notifications")
+    @GetMapping("/me/telegram-link")
+    public TelegramLinkDto getTelegramLink(Authentication authentication) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return telegramChatService.createLink(user.getId());
     }
 
     @Operation(summary = "Update user's info",
@@ -55,6 +65,7 @@ public class UserController {
     public UserResponseDto updateUserProfile(
             @RequestBody @Valid UserUpdateDto requestDto,
             Authentication authentication) {
-        return userService.updateUserInfo(authentication, requestDto);
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return userService.updateUserInfo(user.getId(), requestDto);
     }
 }
@@ -0,0 +1,7 @@
+package com.carsharingapp.dto.car;
+
+public record CarInventoryDto(
+        Long carId,
+        Long inventory
+) {
+}
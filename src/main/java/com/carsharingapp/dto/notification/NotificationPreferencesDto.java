@@ -0,0 +1,11 @@
+package com.carsharingapp.dto.notification;
+
+import com.carsharingapp.model.NotificationChannelType;
+import jakarta.validation.constraints.NotNull;
+import java.util.Set;
+
+public record NotificationPreferencesDto(
+        @NotNull
+        Set<NotificationChannelType> channels
+) {
+}
@@ -0,0 +1,11 @@
+package com.carsharingapp.dto.notification;
+
+import java.time.LocalDateTime;
+
+public record UserNotificationDto(
+        Long id,
+        String message,
+        LocalDateTime createdAt,
+        LocalDateTime readAt
+) {
+}
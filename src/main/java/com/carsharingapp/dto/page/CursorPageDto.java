@@ -0,0 +1,29 @@
+package com.carsharingapp.dto.page;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is passed back as the
+ * {@code after} parameter to get the following page and is {@code null} on the last one.
+ */
+public record CursorPageDto<T>(
+        List<T> content,
+        String nextCursor
+) {
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}; the extra row only
+     * tells whether another page exists and is dropped from the content.
+     */
+    public static <E, T> CursorPageDto<T> of(List<E> rows,
+                                             int size,
+                                             Function<E, PageCursor> cursorOf,
+                                             Function<List<E>, List<T>> mapper) {
+        if (rows.size() <= size) {
+            return new CursorPageDto<>(mapper.apply(rows), null);
+        }
+        List<E> page = rows.subList(0, size);
+        String nextCursor = cursorOf.apply(page.get(size - 1)).encode();
+        return new CursorPageDto<>(mapper.apply(page), nextCursor);
+    }
+}
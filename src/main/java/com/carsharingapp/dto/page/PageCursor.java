@@ -0,0 +1,61 @@
+package com.carsharingapp.dto.page;
+
+import com.carsharingapp.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page: the value of the sort column (if the listing is not
+ * sorted by id alone) and the row id as a tie-breaker. Clients only see it as an opaque
+ * URL-safe token.
+ */
+public record PageCursor(
+        String sortKey,
+        Long id
+) {
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final String SEPARATOR = "|";
+
+    public static PageCursor ofId(Long id) {
+        return new PageCursor(null, id);
+    }
+
+    public static PageCursor of(LocalDateTime sortKey, Long id) {
+        return new PageCursor(sortKey.toString(), id);
+    }
+
+    public static PageCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token),
+                    StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            String sortKey = separator < 0 ? null : value.substring(0, separator);
+            return new PageCursor(sortKey, Long.valueOf(value.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid page cursor: " + token);
+        }
+    }
+
+    public static int limit(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    public LocalDateTime sortKeyAsDateTime() {
+        if (sortKey == null) {
+            throw new InvalidCursorException("Page cursor has no sort key");
+        }
+        try {
+            return LocalDateTime.parse(sortKey);
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid page cursor sort key: " + sortKey);
+        }
+    }
+
+    public String encode() {
+        String value = sortKey == null ? String.valueOf(id) : sortKey + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
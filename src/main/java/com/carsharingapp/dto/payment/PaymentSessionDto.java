@@ -0,0 +1,7 @@
+package com.carsharingapp.dto.payment;
+
+public record PaymentSessionDto(
+        Long id,
+        String sessionId
+) {
+}
@@ -0,0 +1,9 @@
+package com.carsharingapp.dto.rental;
+
+import java.time.LocalDateTime;
+
+public record RentalDeadlineDto(
+        Long id,
+        LocalDateTime returnDateTime
+) {
+}
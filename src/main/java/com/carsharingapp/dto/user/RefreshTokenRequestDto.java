@@ -0,0 +1,9 @@
+package com.carsharingapp.dto.user;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequestDto(
+        @NotBlank
+        String refreshToken
+) {
+}
@@ -0,0 +1,9 @@
+package com.carsharingapp.dto.user;
+
+import java.time.LocalDateTime;
+
+public record TelegramLinkDto(
+        String url,
+        LocalDateTime expiresAt
+) {
+}
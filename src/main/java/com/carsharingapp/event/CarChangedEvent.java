@@ -0,0 +1,4 @@
+package com.carsharingapp.event;
+
+public record CarChangedEvent(Long carId) {
+}
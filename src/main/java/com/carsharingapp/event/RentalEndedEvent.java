@@ -0,0 +1,4 @@
+package com.carsharingapp.event;
+
+public record RentalEndedEvent(Long rentalId) {
+}
@@ -0,0 +1,6 @@
+package com.carsharingapp.event;
+
+import java.time.LocalDateTime;
+
+public record RentalStartedEvent(Long rentalId, LocalDateTime returnDateTime) {
+}
@@ -0,0 +1,7 @@
+package com.carsharingapp.exception;
+
+public class InvalidCarFilterException extends RuntimeException {
+    public InvalidCarFilterException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.carsharingapp.exception;
+
+public class InvalidWebhookException extends RuntimeException {
+    public InvalidWebhookException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
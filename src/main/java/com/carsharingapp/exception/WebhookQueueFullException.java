@@ -0,0 +1,7 @@
+package com.carsharingapp.exception;
+
+public class WebhookQueueFullException extends RuntimeException {
+    public WebhookQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -6,18 +6,22 @@ import com.carsharingapp.dto.car.RequestCarDto;
 import com.carsharingapp.model.Car;
 import java.util.List;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 
 @Mapper(config = MapperConfig.class)
 public interface CarMapper {
 
+    @Mapping(target = "inventory", source = "availableInventory")
     CarResponseDto toDto(Car car);
 
+    @Mapping(target = "slotInventory", ignore = true)
     Car toModel(RequestCarDto requestCarDto);
 
     List<CarResponseDto> toDtoList(List<Car> book);
 
     List<Car> toModelList(List<RequestCarDto> requestCarDtos);
 
+    @Mapping(target = "slotInventory", ignore = true)
     void updateFromDto(RequestCarDto requestCarDto, @MappingTarget Car car);
 }
@@ -16,11 +16,13 @@ public interface RentalMapper {
     @Mapping(source = "car.id", target = "carId")
     @Mapping(source = "car.brand", target = "carBrand")
     @Mapping(source = "car.model", target = "carModel")
+    @Mapping(source = "actualReturnDate", target = "actualReturnDateTime")
     RentalResponseDto toDto(Rental rental);
 
     @Mapping(source = "car.id", target = "carId")
     @Mapping(source = "car.brand", target = "carBrand")
     @Mapping(source = "car.model", target = "carModel")
+    @Mapping(source = "actualReturnDate", target = "actualReturnDateTime")
     List<RentalResponseDto> toDtoList(List<Rental> rentals);
 
     @Mapping(target = "car", ignore = true)
@@ -8,6 +8,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import java.math.BigDecimal;
 import lombok.Getter;
 import lombok.Setter;
@@ -33,11 +34,22 @@ public class Car {
     private CarBodyType carBodyType;
     @Column(nullable = false)
     private Integer inventory;
+    @Transient
+    private Integer slotInventory;
     @Column(nullable = false)
     private BigDecimal dailyFee;
     @Column(nullable = false, columnDefinition = "TINYINT(1)")
     private boolean isDeleted = false;
 
+    /**
+     * Cars whose inventory is split across {@link CarInventorySlot} rows report the sum of
+     * their slots, once it is loaded by the inventory service; all others report the
+     * inventory column.
+     */
+    public Integer getAvailableInventory() {
+        return slotInventory == null ? inventory : slotInventory;
+    }
+
     public enum CarBodyType {
         SEDAN,
         SUV,
@@ -0,0 +1,26 @@
+package com.carsharingapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Table(name = "car_inventory_slots")
+@Entity
+public class CarInventorySlot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "car_id", nullable = false)
+    private Long carId;
+    @Column(nullable = false)
+    private Integer slot;
+    @Column(nullable = false)
+    private Integer inventory;
+}
@@ -0,0 +1,48 @@
+package com.carsharingapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Key pair of the JWT signing key ring. The public key is stored X.509 encoded, the
+ * private key PKCS#8 encoded and encrypted, both in Base64. Tokens are signed with the
+ * newest key whose {@code activatesAt} has passed.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "jwt_signing_keys")
+@Entity
+public class JwtSigningKey {
+    @Id
+    private String kid;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Algorithm algorithm;
+
+    @Column(name = "public_key", nullable = false, length = 1024)
+    private String publicKey;
+
+    @Column(name = "private_key", nullable = false, length = 4096)
+    private String privateKey;
+
+    @Column(name = "activates_at", nullable = false)
+    private LocalDateTime activatesAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Algorithm {
+        ED25519,
+        RS256
+    }
+}
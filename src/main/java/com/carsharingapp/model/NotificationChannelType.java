@@ -0,0 +1,7 @@
+package com.carsharingapp.model;
+
+public enum NotificationChannelType {
+    TELEGRAM,
+    EMAIL,
+    IN_APP
+}
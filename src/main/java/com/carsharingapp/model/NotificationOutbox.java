@@ -0,0 +1,80 @@
+package com.carsharingapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Table(name = "notification_outbox")
+@Entity
+public class NotificationOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private NotificationChannelType channel;
+
+    /**
+     * Channel specific address: a Telegram chat id, an email address or a user id.
+     * {@code null} on the Telegram channel addresses the operators' chat.
+     */
+    @Column
+    private String recipient;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    /**
+     * One-line form of the message used when it is merged into a digest; {@code null}
+     * for messages that are always sent on their own.
+     */
+    @Column(columnDefinition = "TEXT")
+    private String summary;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public static NotificationOutbox pending(NotificationChannelType channel,
+                                             String recipient,
+                                             String message,
+                                             LocalDateTime now) {
+        NotificationOutbox notification = new NotificationOutbox();
+        notification.setChannel(channel);
+        notification.setRecipient(recipient);
+        notification.setMessage(message);
+        notification.setStatus(Status.PENDING);
+        notification.setNextAttemptAt(now);
+        notification.setCreatedAt(now);
+        return notification;
+    }
+
+    public enum Status {
+        PENDING,
+        SENT,
+        FAILED
+    }
+}
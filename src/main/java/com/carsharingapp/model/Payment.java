@@ -13,6 +13,7 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
 import java.net.URL;
+import java.time.LocalDateTime;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -39,12 +40,15 @@ public class Payment {
     @Enumerated(EnumType.STRING)
     private PaymentType type;
 
-    @Column(name = "session_url", nullable = false)
+    @Column(name = "session_url")
     private URL sessionUrl;
 
-    @Column(name = "session_id", nullable = false)
+    @Column(name = "session_id")
     private String sessionId;
 
+    @Column(name = "session_expires_at")
+    private LocalDateTime sessionExpiresAt;
+
     @Column(name = "price", nullable = false)
     private BigDecimal amountToPay;
 
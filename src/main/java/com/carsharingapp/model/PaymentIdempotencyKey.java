@@ -0,0 +1,63 @@
+package com.carsharingapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * An {@code Idempotency-Key} a user sent with a payment session request, together with
+ * the request it was first used for and the payment that request produced. The key is
+ * unique per user. While no payment is recorded, {@code reservedAt} tells when a request
+ * started opening the session, it is cleared when that request gives up; the session
+ * expiry is fixed with the key so a retry sends Stripe the same parameters.
+ */
+@Getter
+@Setter
+@Table(name = "payment_idempotency_keys")
+@Entity
+public class PaymentIdempotencyKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "rental_id", nullable = false)
+    private Long rentalId;
+
+    @Column(name = "payment_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Payment.PaymentType paymentType;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payment_id")
+    private Payment payment;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "reserved_at")
+    private LocalDateTime reservedAt;
+
+    @Column(name = "session_expires_at")
+    private LocalDateTime sessionExpiresAt;
+}
@@ -0,0 +1,31 @@
+package com.carsharingapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Id of a JWT revoked before its expiry, kept until the token would have expired anyway.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "revoked_tokens")
+@Entity
+public class RevokedToken {
+    @Id
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public RevokedToken(String jti, LocalDateTime expiresAt) {
+        this.jti = jti;
+        this.expiresAt = expiresAt;
+    }
+}
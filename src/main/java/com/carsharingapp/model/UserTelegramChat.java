@@ -0,0 +1,31 @@
+package com.carsharingapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Table(name = "user_telegram_chats")
+@Entity
+public class UserTelegramChat {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "chat_id")
+    private String chatId;
+
+    @Column(name = "link_token", unique = true)
+    private String linkToken;
+
+    @Column(name = "link_token_expires_at")
+    private LocalDateTime linkTokenExpiresAt;
+
+    @Column(name = "linked_at")
+    private LocalDateTime linkedAt;
+}
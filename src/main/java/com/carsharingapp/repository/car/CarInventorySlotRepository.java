@@ -0,0 +1,38 @@
+package com.carsharingapp.repository.car;
+
+import com.carsharingapp.dto.car.CarInventoryDto;
+import com.carsharingapp.model.CarInventorySlot;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CarInventorySlotRepository extends JpaRepository<CarInventorySlot, Long> {
+    @Query("SELECT s.slot FROM CarInventorySlot s WHERE s.carId = :carId AND s.inventory > 0")
+    List<Integer> findNonEmptySlots(@Param("carId") Long carId);
+
+    @Query("SELECT new com.carsharingapp.dto.car.CarInventoryDto(s.carId, SUM(s.inventory)) "
+            + "FROM CarInventorySlot s WHERE s.carId IN :carIds GROUP BY s.carId")
+    List<CarInventoryDto> sumInventoryByCarIds(@Param("carIds") Collection<Long> carIds);
+
+    @Query("SELECT COUNT(s) FROM CarInventorySlot s WHERE s.carId = :carId")
+    int countSlots(@Param("carId") Long carId);
+
+    @Modifying
+    @Query("UPDATE CarInventorySlot s SET s.inventory = s.inventory - 1 "
+            + "WHERE s.carId = :carId AND s.slot = :slot AND s.inventory > 0")
+    int decreaseInventory(@Param("carId") Long carId, @Param("slot") int slot);
+
+    @Modifying
+    @Query("UPDATE CarInventorySlot s SET s.inventory = s.inventory + 1 "
+            + "WHERE s.carId = :carId AND s.slot = :slot")
+    int increaseInventory(@Param("carId") Long carId, @Param("slot") int slot);
+
+    @Modifying
+    @Query("DELETE FROM CarInventorySlot s WHERE s.carId = :carId")
+    void deleteAllByCarId(@Param("carId") Long carId);
+}
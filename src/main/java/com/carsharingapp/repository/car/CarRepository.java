@@ -1,10 +1,30 @@
 package com.carsharingapp.repository.car;
 
 import com.carsharingapp.model.Car;
+import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car> {
+    List<Car> findAllByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /**
+     * Takes one car out of the inventory in a single statement, so concurrent rentals
+     * can't oversell it. Returns 0 if the car is missing or none are left.
+     */
+    @Modifying
+    @Query("UPDATE Car c SET c.inventory = c.inventory - 1 "
+            + "WHERE c.id = :id AND c.inventory > 0 AND c.isDeleted = false")
+    int decreaseInventory(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Car c SET c.inventory = c.inventory + 1 "
+            + "WHERE c.id = :id AND c.isDeleted = false")
+    int increaseInventory(@Param("id") Long id);
 }
@@ -0,0 +1,73 @@
+package com.carsharingapp.repository.notification;
+
+import com.carsharingapp.model.NotificationChannelType;
+import com.carsharingapp.model.NotificationOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+    /**
+     * Locks pending notifications that are due. A lock timeout of -2 makes Hibernate
+     * render {@code SKIP LOCKED}, so rows claimed by another instance are passed over
+     * instead of waited for.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT n FROM NotificationOutbox n "
+            + "WHERE n.channel = :channel AND n.status = :status AND n.nextAttemptAt <= :now "
+            + "ORDER BY n.nextAttemptAt, n.id")
+    List<NotificationOutbox> findDueForUpdate(@Param("channel") NotificationChannelType channel,
+                                              @Param("status") NotificationOutbox.Status status,
+                                              @Param("now") LocalDateTime now,
+                                              Limit limit);
+
+    /**
+     * Returns when the digest already collecting for the recipient on the channel goes
+     * out, if one is due within the window. Rows leased by the dispatcher are due after
+     * the lease and so fall outside it.
+     */
+    @Query("SELECT MIN(n.nextAttemptAt) FROM NotificationOutbox n "
+            + "WHERE n.channel = :channel AND n.recipient = :recipient "
+            + "AND n.status = PENDING AND n.summary IS NOT NULL "
+            + "AND n.attempts = 0 AND n.nextAttemptAt > :now "
+            + "AND n.nextAttemptAt <= :windowEnd")
+    Optional<LocalDateTime> findOpenDigestDueAt(
+            @Param("channel") NotificationChannelType channel,
+            @Param("recipient") String recipient,
+            @Param("now") LocalDateTime now,
+            @Param("windowEnd") LocalDateTime windowEnd);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE NotificationOutbox n SET n.status = SENT, n.sentAt = :sentAt, "
+            + "n.attempts = n.attempts + 1 WHERE n.id IN :ids")
+    void markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE NotificationOutbox n SET n.status = :status, n.attempts = :attempts, "
+            + "n.nextAttemptAt = :nextAttemptAt WHERE n.id = :id")
+    void markAttemptFailed(@Param("id") Long id,
+                           @Param("status") NotificationOutbox.Status status,
+                           @Param("attempts") int attempts,
+                           @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox n WHERE n.status = SENT AND n.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,12 @@
+package com.carsharingapp.repository.notification;
+
+import com.carsharingapp.model.UserNotificationPreference;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserNotificationPreferenceRepository
+        extends JpaRepository<UserNotificationPreference, Long> {
+    List<UserNotificationPreference> findAllByUserId(Long userId);
+}
@@ -0,0 +1,30 @@
+package com.carsharingapp.repository.notification;
+
+import com.carsharingapp.dto.notification.UserNotificationDto;
+import com.carsharingapp.model.UserNotification;
+import java.time.LocalDateTime;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserNotificationRepository extends JpaRepository<UserNotification, Long> {
+    @Query(value = "SELECT new com.carsharingapp.dto.notification.UserNotificationDto("
+            + "n.id, n.message, n.createdAt, n.readAt) "
+            + "FROM UserNotification n WHERE n.userId = :userId",
+            countQuery = "SELECT COUNT(n) FROM UserNotification n WHERE n.userId = :userId")
+    Page<UserNotificationDto> findDtosByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    @Modifying
+    @Query("UPDATE UserNotification n SET n.readAt = :readAt "
+            + "WHERE n.id = :id AND n.userId = :userId AND n.readAt IS NULL")
+    int markRead(@Param("id") Long id,
+                 @Param("userId") Long userId,
+                 @Param("readAt") LocalDateTime readAt);
+}
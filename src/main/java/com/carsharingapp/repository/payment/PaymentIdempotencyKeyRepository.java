@@ -0,0 +1,45 @@
+package com.carsharingapp.repository.payment;
+
+import com.carsharingapp.model.PaymentIdempotencyKey;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface PaymentIdempotencyKeyRepository
+        extends JpaRepository<PaymentIdempotencyKey, Long> {
+    @EntityGraph(attributePaths = "payment")
+    Optional<PaymentIdempotencyKey> findByUserIdAndIdempotencyKey(Long userId,
+                                                                  String idempotencyKey);
+
+    /**
+     * Reserves a key without a payment for a new attempt, if no request holds it or the
+     * one that does reserved it before {@code abandonedBefore}. Returns {@code 1} when the
+     * reservation was taken.
+     */
+    @Modifying
+    @Query("UPDATE PaymentIdempotencyKey k SET k.reservedAt = :now, "
+            + "k.sessionExpiresAt = :sessionExpiresAt "
+            + "WHERE k.id = :id AND k.payment IS NULL "
+            + "AND (k.reservedAt IS NULL OR k.reservedAt < :abandonedBefore)")
+    int reclaim(@Param("id") Long id,
+                @Param("now") LocalDateTime now,
+                @Param("abandonedBefore") LocalDateTime abandonedBefore,
+                @Param("sessionExpiresAt") LocalDateTime sessionExpiresAt);
+
+    @Modifying
+    @Query("UPDATE PaymentIdempotencyKey k SET k.reservedAt = NULL, "
+            + "k.sessionExpiresAt = :sessionExpiresAt WHERE k.id = :id")
+    int release(@Param("id") Long id, @Param("sessionExpiresAt") LocalDateTime sessionExpiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PaymentIdempotencyKey k WHERE k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
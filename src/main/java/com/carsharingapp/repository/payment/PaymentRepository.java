@@ -1,19 +1,71 @@
 package com.carsharingapp.repository.payment;
 
+import com.carsharingapp.dto.payment.PaymentResponseDto;
+import com.carsharingapp.dto.payment.PaymentSessionDto;
 import com.carsharingapp.model.Payment;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
-    List<Payment> findAllByRentalUserId(Long id, Pageable pageable);
+    String SELECT_PAYMENT_DTO = "SELECT new com.carsharingapp.dto.payment.PaymentResponseDto("
+            + "p.id, p.status, p.type, p.sessionUrl, p.sessionId, p.amountToPay) "
+            + "FROM Payment p ";
+
+    @Query(SELECT_PAYMENT_DTO + "WHERE p.rental.user.id = :userId")
+    List<PaymentResponseDto> findPaymentDtosByUserId(@Param("userId") Long userId,
+                                                     Pageable pageable);
+
+    @Query(SELECT_PAYMENT_DTO + "WHERE p.rental.user.id = :userId AND p.id > :afterId "
+            + "ORDER BY p.id")
+    List<PaymentResponseDto> findPaymentDtosByUserIdAfter(@Param("userId") Long userId,
+                                                          @Param("afterId") Long afterId,
+                                                          Limit limit);
+
+    @Query(SELECT_PAYMENT_DTO + "WHERE p.rental.user.id = :userId AND p.status = :status")
+    List<PaymentResponseDto> findPaymentDtosByUserIdAndStatus(
+            @Param("userId") Long userId,
+            @Param("status") Payment.PaymentStatus status,
+            Pageable pageable);
 
     List<Payment> findAllByStatus(Payment.PaymentStatus status);
 
     Optional<Payment> findBySessionId(String sessionId);
 
     List<Payment> findAllByRentalId(Long rentalId);
+
+    @Query("SELECT new com.carsharingapp.dto.payment.PaymentSessionDto(p.id, p.sessionId) "
+            + "FROM Payment p WHERE p.status = PENDING AND p.sessionId IS NOT NULL "
+            + "AND (p.sessionExpiresAt IS NULL OR p.sessionExpiresAt < :expiredBefore) "
+            + "AND p.id > :afterId ORDER BY p.id")
+    List<PaymentSessionDto> findStalePendingSessionsAfter(
+            @Param("expiredBefore") LocalDateTime expiredBefore,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.sessionId IN :sessionIds AND p.status = PENDING")
+    List<Payment> findPendingBySessionIdsForUpdate(
+            @Param("sessionIds") Collection<String> sessionIds);
+
+    @Query("SELECT p FROM Payment p JOIN FETCH p.rental r JOIN FETCH r.car JOIN FETCH r.user "
+            + "WHERE p.id IN :ids")
+    List<Payment> findWithRentalByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :status "
+            + "WHERE p.sessionId IN :sessionIds AND p.status = PENDING")
+    int updatePendingStatusBySessionIds(@Param("status") Payment.PaymentStatus status,
+                                        @Param("sessionIds") Collection<String> sessionIds);
 }
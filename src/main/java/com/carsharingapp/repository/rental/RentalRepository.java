@@ -1,23 +1,85 @@
 package com.carsharingapp.repository.rental;
 
+import com.carsharingapp.dto.rental.RentalDeadlineDto;
+import com.carsharingapp.dto.rental.RentalResponseDto;
 import com.carsharingapp.model.Rental;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface RentalRepository extends JpaRepository<Rental, Long> {
-    @EntityGraph(attributePaths = "car")
-    List<Rental> getAllByUserId(Long userId, Pageable pageable);
+    String SELECT_RENTAL_DTO = "SELECT new com.carsharingapp.dto.rental.RentalResponseDto("
+            + "r.id, c.id, c.brand, c.model, r.rentalDateTime, r.returnDateTime, "
+            + "r.actualReturnDate) FROM Rental r LEFT JOIN r.car c ";
 
-    @EntityGraph(attributePaths = "car")
-    List<Rental> getAllByUserIdAndActualReturnDateIsNull(Long userId, Pageable pageable);
+    @Query(SELECT_RENTAL_DTO + "WHERE r.user.id = :userId")
+    List<RentalResponseDto> findRentalDtosByUserId(@Param("userId") Long userId,
+                                                   Pageable pageable);
 
-    @EntityGraph(attributePaths = "car")
-    List<Rental> getAllByUserIdAndActualReturnDateIsNotNull(Long userId, Pageable pageable);
+    @Query(SELECT_RENTAL_DTO + "WHERE r.user.id = :userId AND r.actualReturnDate IS NULL")
+    List<RentalResponseDto> findActiveRentalDtosByUserId(@Param("userId") Long userId,
+                                                         Pageable pageable);
+
+    @Query(SELECT_RENTAL_DTO + "WHERE r.user.id = :userId AND r.actualReturnDate IS NOT NULL")
+    List<RentalResponseDto> findNotActiveRentalDtosByUserId(@Param("userId") Long userId,
+                                                            Pageable pageable);
+
+    @Query(SELECT_RENTAL_DTO + "WHERE r.user.id = :userId "
+            + "ORDER BY r.rentalDateTime DESC, r.id DESC")
+    List<RentalResponseDto> findLatestRentalDtosByUserId(@Param("userId") Long userId,
+                                                         Limit limit);
+
+    @Query(SELECT_RENTAL_DTO + "WHERE r.user.id = :userId "
+            + "AND (r.rentalDateTime < :rentalDateTime "
+            + "OR (r.rentalDateTime = :rentalDateTime AND r.id < :id)) "
+            + "ORDER BY r.rentalDateTime DESC, r.id DESC")
+    List<RentalResponseDto> findRentalDtosByUserIdAfter(
+            @Param("userId") Long userId,
+            @Param("rentalDateTime") LocalDateTime rentalDateTime,
+            @Param("id") Long id,
+            Limit limit);
+
+    /**
+     * One chunk of the overdue scan, ordered by user so rentals of the same user come
+     * together. Pass the user and rental id of the last row of the previous chunk, or
+     * 0 and 0 for the first one.
+     */
+    @Query("SELECT r FROM Rental r JOIN FETCH r.car JOIN FETCH r.user "
+            + "WHERE r.actualReturnDate IS NULL AND r.returnDateTime < :now "
+            + "AND (r.user.id > :userId OR (r.user.id = :userId AND r.id > :id)) "
+            + "ORDER BY r.user.id, r.id")
+    List<Rental> findOverdueAfter(@Param("now") LocalDateTime now,
+                                  @Param("userId") Long userId,
+                                  @Param("id") Long id,
+                                  Limit limit);
+
+    @Query("SELECT new com.carsharingapp.dto.rental.RentalDeadlineDto(r.id, r.returnDateTime) "
+            + "FROM Rental r WHERE r.actualReturnDate IS NULL AND r.returnDateTime > :since "
+            + "AND r.id > :afterId ORDER BY r.id")
+    List<RentalDeadlineDto> findActiveDeadlinesAfter(@Param("since") LocalDateTime since,
+                                                     @Param("afterId") Long afterId,
+                                                     Limit limit);
+
+    /**
+     * Ends the rental in a single statement, so of two concurrent returns only one
+     * succeeds. Returns 0 if the rental is missing or already returned.
+     */
+    @Modifying
+    @Query("UPDATE Rental r SET r.actualReturnDate = :returnedAt "
+            + "WHERE r.id = :id AND r.actualReturnDate IS NULL")
+    int markReturned(@Param("id") Long id, @Param("returnedAt") LocalDateTime returnedAt);
+
+    @EntityGraph(attributePaths = {"car", "user"})
+    Optional<Rental> findWithCarAndUserById(Long id);
 
     @EntityGraph(attributePaths = "car")
     Optional<Rental> findRentalByIdAndUserId(Long rentalId, Long userId);
@@ -1,8 +1,10 @@
 package com.carsharingapp.repository.spec;
 
+import com.carsharingapp.exception.InvalidCarFilterException;
 import com.carsharingapp.model.Car;
 import com.carsharingapp.repository.SpecificationProvider;
 import jakarta.persistence.criteria.Predicate;
+import java.math.BigDecimal;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 
@@ -17,10 +19,19 @@ public class DailyFeeSpecificationProvider implements SpecificationProvider<Car>
 
     @Override
     public Specification<Car> getSpecification(String[] params) {
+        BigDecimal maxDailyFee = toDailyFee(params[0]);
         return (root, query, criteriaBuilder) -> {
             Predicate predicate = criteriaBuilder
-                    .lessThanOrEqualTo(root.get(KEY_WORD), params[0]);
+                    .lessThanOrEqualTo(root.<BigDecimal>get(KEY_WORD), maxDailyFee);
             return predicate;
         };
     }
+
+    private static BigDecimal toDailyFee(String value) {
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidCarFilterException("Invalid daily fee: " + value);
+        }
+    }
 }
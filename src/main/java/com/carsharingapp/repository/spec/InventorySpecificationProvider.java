@@ -1,14 +1,27 @@
 package com.carsharingapp.repository.spec;
 
+import com.carsharingapp.exception.InvalidCarFilterException;
 import com.carsharingapp.model.Car;
+import com.carsharingapp.model.CarInventorySlot;
 import com.carsharingapp.repository.SpecificationProvider;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 
+/**
+ * Filters cars by the inventory left. In {@code striped} inventory mode the car row is not
+ * updated by rentals, so cars with slots are filtered by the sum of their slots instead.
+ */
 @Component
 public class InventorySpecificationProvider implements SpecificationProvider<Car> {
     private static final String KEY_WORD = "inventory";
+    private static final String STRIPED_MODE = "striped";
+
+    @Value("${car.inventory.mode:single}")
+    private String inventoryMode;
 
     @Override
     public String getKey() {
@@ -17,10 +30,31 @@ public class InventorySpecificationProvider implements SpecificationProvider<Car
 
     @Override
     public Specification<Car> getSpecification(String[] params) {
+        Integer maxInventory = toInventory(params[0]);
+        if (STRIPED_MODE.equals(inventoryMode)) {
+            return (root, query, criteriaBuilder) -> {
+                Subquery<Integer> slotInventory = query.subquery(Integer.class);
+                Root<CarInventorySlot> slot = slotInventory.from(CarInventorySlot.class);
+                slotInventory.select(criteriaBuilder.sum(slot.<Integer>get(KEY_WORD)))
+                        .where(criteriaBuilder.equal(slot.get("carId"), root.get("id")));
+                Predicate predicate = criteriaBuilder.lessThanOrEqualTo(
+                        criteriaBuilder.coalesce(slotInventory, root.<Integer>get(KEY_WORD)),
+                        maxInventory);
+                return predicate;
+            };
+        }
         return (root, query, criteriaBuilder) -> {
             Predicate predicate = criteriaBuilder
-                    .lessThanOrEqualTo(root.get(KEY_WORD), params[0]);
+                    .lessThanOrEqualTo(root.<Integer>get(KEY_WORD), maxInventory);
             return predicate;
         };
     }
+
+    private static Integer toInventory(String value) {
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidCarFilterException("Invalid inventory: " + value);
+        }
+    }
 }
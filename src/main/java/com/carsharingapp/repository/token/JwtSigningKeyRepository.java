@@ -0,0 +1,11 @@
+package com.carsharingapp.repository.token;
+
+import com.carsharingapp.model.JwtSigningKey;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+    List<JwtSigningKey> findAllByOrderByActivatesAtDesc();
+}
@@ -0,0 +1,26 @@
+package com.carsharingapp.repository.token;
+
+import com.carsharingapp.model.RevokedToken;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    @Query("SELECT r.jti FROM RevokedToken r WHERE r.expiresAt > :now AND r.jti > :afterJti "
+            + "ORDER BY r.jti")
+    List<String> findActiveJtisAfter(@Param("now") LocalDateTime now,
+                                     @Param("afterJti") String afterJti,
+                                     Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,17 @@
+package com.carsharingapp.repository.user;
+
+import com.carsharingapp.model.UserTelegramChat;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserTelegramChatRepository extends JpaRepository<UserTelegramChat, Long> {
+    Optional<UserTelegramChat> findByLinkToken(String linkToken);
+
+    @Query("SELECT c.chatId FROM UserTelegramChat c "
+            + "WHERE c.userId = :userId AND c.chatId IS NOT NULL")
+    Optional<String> findChatIdByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,35 @@
+package com.carsharingapp.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder that asks for a rehash whenever a stored hash was made with a cost other
+ * than the configured one, so the cost can be lowered as well as raised and users move
+ * to it on their next login. {@link BCryptPasswordEncoder} itself only upgrades weaker
+ * hashes.
+ */
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    private static final int COST_OFFSET = 4;
+    private static final int COST_LENGTH = 2;
+
+    private final int strength;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null
+                || encodedPassword.length() < COST_OFFSET + COST_LENGTH) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(COST_OFFSET,
+                    COST_OFFSET + COST_LENGTH)) != strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
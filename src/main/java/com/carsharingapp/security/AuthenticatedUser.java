@@ -0,0 +1,11 @@
+package com.carsharingapp.security;
+
+/**
+ * Principal of an authenticated request. Either the {@link com.carsharingapp.model.User}
+ * entity or, in stateless mode, a {@link JwtUserPrincipal} built from the token claims.
+ */
+public interface AuthenticatedUser {
+    Long getId();
+
+    String getEmail();
+}
@@ -2,10 +2,17 @@ package com.carsharingapp.security;
 
 import com.carsharingapp.dto.user.UserLoginRequestDto;
 import com.carsharingapp.dto.user.UserLoginResponseDto;
+import com.carsharingapp.exception.InvalidRefreshTokenException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -13,15 +20,87 @@ import org.springframework.stereotype.Service;
 public class AuthenticationService {
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final UserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
 
-    public UserLoginResponseDto authenticate(UserLoginRequestDto request) {
+    /**
+     * Checks the credentials on the password hashing pool, which also rehashes the
+     * password when it was stored with another BCrypt cost than the configured one.
+     *
+     * @throws com.carsharingapp.exception.PasswordHashingBusyException if the pool is
+     *         saturated
+     */
+    public CompletableFuture<UserLoginResponseDto> authenticate(UserLoginRequestDto request) {
+        return passwordHashingExecutor.submit(() -> issueTokens(request));
+    }
+
+    /**
+     * Issues a new access token for a valid refresh token, with the user's current roles.
+     * No password is checked, so this is cheap enough to call whenever the access token
+     * expires.
+     *
+     * @throws InvalidRefreshTokenException if the token is expired, revoked, not a refresh
+     *         token or its user no longer exists
+     */
+    public UserLoginResponseDto refresh(String refreshToken) {
+        Claims claims = getRefreshClaims(refreshToken);
+        UserDetails userDetails;
+        try {
+            userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        } catch (UsernameNotFoundException e) {
+            throw new InvalidRefreshTokenException("User of the refresh token doesn't exist");
+        }
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+        String token = jwtUtil.generateToken(user.getId(), userDetails.getUsername(),
+                userDetails.getAuthorities());
+        return new UserLoginResponseDto(token, refreshToken);
+    }
+
+    /**
+     * Revokes the refresh token and, when given and still valid, the access token.
+     *
+     * @throws InvalidRefreshTokenException if the refresh token is already invalid
+     */
+    public void logout(String refreshToken, String accessToken) {
+        Claims refreshClaims = getRefreshClaims(refreshToken);
+        tokenRevocationService.revoke(refreshClaims.getId(), refreshClaims.getExpiration());
+        if (accessToken == null) {
+            return;
+        }
+        try {
+            Claims accessClaims = jwtUtil.getClaims(accessToken);
+            tokenRevocationService.revoke(accessClaims.getId(), accessClaims.getExpiration());
+        } catch (JwtException e) {
+            // Already expired or invalid, nothing to revoke
+        }
+    }
+
+    private UserLoginResponseDto issueTokens(UserLoginRequestDto request) {
         final Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.email(),
                         request.password())
         );
-        String token = jwtUtil.generateToken(authentication.getName(),
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        String token = jwtUtil.generateToken(user.getId(), authentication.getName(),
                 authentication.getAuthorities());
-        return new UserLoginResponseDto(token);
+        String refreshToken = jwtUtil.generateRefreshToken(user.getId(),
+                authentication.getName());
+        return new UserLoginResponseDto(token, refreshToken);
+    }
+
+    private Claims getRefreshClaims(String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwtUtil.getClaims(refreshToken);
+        } catch (JwtException e) {
+            throw new InvalidRefreshTokenException("Expired or invalid refresh token");
+        }
+        if (!jwtUtil.isRefreshToken(claims)
+                || tokenRevocationService.isRevokedInDatabase(claims.getId())) {
+            throw new InvalidRefreshTokenException("Expired or invalid refresh token");
+        }
+        return claims;
     }
 }
@@ -1,21 +1,48 @@
 package com.carsharingapp.security;
 
+import com.carsharingapp.config.CacheConfig;
+import com.carsharingapp.model.User;
 import com.carsharingapp.repository.user.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService,
+        UserDetailsPasswordService {
     private final UserRepository userRepository;
 
+    /**
+     * Loads the user with its roles. Users are cached by email for
+     * {@code cache.user-details.expiration}; role and profile changes and soft deletes
+     * evict the entry right away.
+     */
     @Override
+    @Cacheable(cacheNames = CacheConfig.USER_DETAILS_CACHE, key = "#email")
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         return userRepository.findByEmail(email).orElseThrow(
                 () -> new UsernameNotFoundException("Can't find user by email: " + email)
         );
     }
+
+    /**
+     * Stores the rehashed password of a user who just logged in with a hash made at a
+     * different BCrypt cost than the configured one.
+     */
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USER_DETAILS_CACHE, key = "#user.username")
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User entity = (User) user;
+        userRepository.updatePassword(entity.getId(), newPassword);
+        entity.setPassword(newPassword);
+        return entity;
+    }
 }
@@ -0,0 +1,41 @@
+package com.carsharingapp.security;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PublicJwk;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.List;
+import javax.crypto.SecretKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signs and verifies tokens with the shared {@code jwt.secret}. Tokens carry no
+ * {@code kid} and only holders of the secret can verify them.
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.signing.mode", havingValue = "hmac", matchIfMissing = true)
+public class HmacJwtKeyProvider implements JwtKeyProvider {
+    private final SecretKey secret;
+
+    public HmacJwtKeyProvider(@Value("${jwt.secret}") String secretString) {
+        this.secret = Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public JwtBuilder sign(JwtBuilder builder) {
+        return builder.signWith(secret);
+    }
+
+    @Override
+    public Key verificationKey(String kid) {
+        return secret;
+    }
+
+    @Override
+    public List<PublicJwk<?>> publicKeys() {
+        return List.of();
+    }
+}
@@ -0,0 +1,29 @@
+package com.carsharingapp.security;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.security.PublicJwk;
+import java.security.Key;
+import java.util.List;
+
+/**
+ * Keys {@link JwtUtil} signs and verifies tokens with.
+ */
+public interface JwtKeyProvider {
+    /**
+     * Signs the token being built with the current key, setting the {@code kid} header
+     * when the key has an id.
+     */
+    JwtBuilder sign(JwtBuilder builder);
+
+    /**
+     * Returns the key verifying tokens signed under {@code kid}, or {@code null} if the
+     * key is unknown.
+     */
+    Key verificationKey(String kid);
+
+    /**
+     * Returns the public keys tokens may be signed with, for third parties verifying
+     * tokens on their own. Empty when tokens are signed with a shared secret.
+     */
+    List<PublicJwk<?>> publicKeys();
+}
@@ -0,0 +1,266 @@
+package com.carsharingapp.security;
+
+import com.carsharingapp.model.JwtSigningKey;
+import com.carsharingapp.repository.token.JwtSigningKeyRepository;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signs tokens with rotating Ed25519 or RSA key pairs kept in the database, so any
+ * instance can verify tokens issued by another and third parties can verify them with
+ * the published public keys alone. A new key is created {@code publish-ahead} before it
+ * starts signing, which gives JWKS consumers time to fetch it; a replaced key keeps
+ * verifying for {@code jwt.refresh-expiration}, the longest a token it signed can live,
+ * and is deleted afterwards. Private keys are stored encrypted with a key derived from
+ * {@code jwt.secret}.
+ *
+ * <p>The ring is reloaded on a fixed delay, which also rotates and retires keys. A token
+ * signed with a key this instance doesn't know yet triggers an early reload, at most once
+ * per {@value #UNKNOWN_KID_RELOAD_MILLIS} ms.
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.signing.mode", havingValue = "key-ring")
+public class JwtKeyRing implements JwtKeyProvider {
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+    private static final long UNKNOWN_KID_RELOAD_MILLIS = 5000;
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final JwtSigningKeyRepository jwtSigningKeyRepository;
+    private final Clock clock;
+    private final JwtSigningKey.Algorithm algorithm;
+    private final Duration rotationInterval;
+    private final Duration publishAhead;
+    private final Duration retention;
+    private final SecretKey keyEncryptionKey;
+    private final SecureRandom random = new SecureRandom();
+    private volatile Ring ring = Ring.EMPTY;
+    private volatile long earliestReloadMillis;
+
+    public JwtKeyRing(
+            JwtSigningKeyRepository jwtSigningKeyRepository,
+            Clock clock,
+            @Value("${jwt.secret}") String secret,
+            @Value("${jwt.signing.key-ring.algorithm:ED25519}") JwtSigningKey.Algorithm algorithm,
+            @Value("${jwt.signing.key-ring.rotation-interval:604800000}") long rotationMillis,
+            @Value("${jwt.signing.key-ring.publish-ahead:3600000}") long publishAheadMillis,
+            @Value("${jwt.refresh-expiration:1209600000}") long maxTokenLifetimeMillis) {
+        this.jwtSigningKeyRepository = jwtSigningKeyRepository;
+        this.clock = clock;
+        this.algorithm = algorithm;
+        this.rotationInterval = Duration.ofMillis(rotationMillis);
+        this.publishAhead = Duration.ofMillis(publishAheadMillis);
+        this.retention = Duration.ofMillis(maxTokenLifetimeMillis);
+        this.keyEncryptionKey = new SecretKeySpec(sha256(secret), "AES");
+    }
+
+    @Override
+    public JwtBuilder sign(JwtBuilder builder) {
+        Ring current = ring;
+        if (current.signingKid() == null) {
+            refresh();
+            current = ring;
+        }
+        return builder.header().keyId(current.signingKid()).and()
+                .signWith(current.signingKey(), current.signatureAlgorithm());
+    }
+
+    @Override
+    public Key verificationKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        PublicKey key = ring.verificationKeys().get(kid);
+        if (key == null && clock.millis() >= earliestReloadMillis) {
+            refresh();
+            key = ring.verificationKeys().get(kid);
+        }
+        return key;
+    }
+
+    @Override
+    public List<PublicJwk<?>> publicKeys() {
+        return ring.publicKeys();
+    }
+
+    /**
+     * Reloads the ring, creating the next key when the current one is due for rotation
+     * and deleting the keys no live token can be signed with anymore.
+     */
+    @Scheduled(fixedDelayString = "${jwt.signing.key-ring.refresh-interval:60000}")
+    public synchronized void refresh() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<JwtSigningKey> keys = new ArrayList<>(
+                jwtSigningKeyRepository.findAllByOrderByActivatesAtDesc());
+        if (keys.isEmpty()) {
+            keys.add(createKey(now, now));
+        } else if (!now.isBefore(keys.get(0).getActivatesAt()
+                .plus(rotationInterval).minus(publishAhead))) {
+            keys.add(0, createKey(now, now.plus(publishAhead)));
+        }
+        List<JwtSigningKey> retired = new ArrayList<>();
+        for (int i = 1; i < keys.size(); i++) {
+            LocalDateTime replacedAt = keys.get(i - 1).getActivatesAt();
+            if (replacedAt.plus(retention).isBefore(now)) {
+                retired.addAll(keys.subList(i, keys.size()));
+                keys = new ArrayList<>(keys.subList(0, i));
+                break;
+            }
+        }
+        if (!retired.isEmpty()) {
+            jwtSigningKeyRepository.deleteAll(retired);
+            logger.info("Retired {} JWT signing keys", retired.size());
+        }
+        ring = load(keys, now);
+        earliestReloadMillis = clock.millis() + UNKNOWN_KID_RELOAD_MILLIS;
+    }
+
+    private Ring load(List<JwtSigningKey> keys, LocalDateTime now) {
+        Map<String, PublicKey> verificationKeys = new HashMap<>();
+        List<PublicJwk<?>> publicKeys = new ArrayList<>();
+        JwtSigningKey signing = null;
+        for (JwtSigningKey key : keys) {
+            PublicKey publicKey = decodePublicKey(key);
+            verificationKeys.put(key.getKid(), publicKey);
+            publicKeys.add(Jwks.builder()
+                    .key(publicKey)
+                    .id(key.getKid())
+                    .algorithm(signatureAlgorithm(key.getAlgorithm()).getId())
+                    .publicKeyUse("sig")
+                    .build());
+            if (signing == null && !key.getActivatesAt().isAfter(now)) {
+                signing = key;
+            }
+        }
+        if (signing == null) {
+            throw new IllegalStateException("No active JWT signing key");
+        }
+        return new Ring(signing.getKid(), decodePrivateKey(signing),
+                signatureAlgorithm(signing.getAlgorithm()), Map.copyOf(verificationKeys),
+                List.copyOf(publicKeys));
+    }
+
+    private JwtSigningKey createKey(LocalDateTime now, LocalDateTime activatesAt) {
+        KeyPair keyPair = switch (algorithm) {
+            case ED25519 -> Jwks.CRV.Ed25519.keyPair().build();
+            case RS256 -> Jwts.SIG.RS256.keyPair().build();
+        };
+        JwtSigningKey key = new JwtSigningKey();
+        key.setKid(UUID.randomUUID().toString());
+        key.setAlgorithm(algorithm);
+        key.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        key.setPrivateKey(encrypt(keyPair.getPrivate().getEncoded()));
+        key.setActivatesAt(activatesAt);
+        key.setCreatedAt(now);
+        logger.info("Created JWT signing key {} active from {}", key.getKid(), activatesAt);
+        return jwtSigningKeyRepository.save(key);
+    }
+
+    private PublicKey decodePublicKey(JwtSigningKey key) {
+        try {
+            return keyFactory(key.getAlgorithm()).generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(key.getPublicKey())));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Can't decode JWT key " + key.getKid(), e);
+        }
+    }
+
+    private PrivateKey decodePrivateKey(JwtSigningKey key) {
+        try {
+            return keyFactory(key.getAlgorithm()).generatePrivate(
+                    new PKCS8EncodedKeySpec(decrypt(key.getPrivateKey())));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Can't decode JWT key " + key.getKid(), e);
+        }
+    }
+
+    private String encrypt(byte[] plain) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] encrypted = cipher.doFinal(plain);
+            return Base64.getEncoder().encodeToString(ByteBuffer
+                    .allocate(iv.length + encrypted.length).put(iv).put(encrypted).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Can't encrypt JWT signing key", e);
+        }
+    }
+
+    private byte[] decrypt(String sealed) throws GeneralSecurityException {
+        byte[] bytes = Base64.getDecoder().decode(sealed);
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey,
+                new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+        return cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH);
+    }
+
+    private static KeyFactory keyFactory(JwtSigningKey.Algorithm algorithm)
+            throws GeneralSecurityException {
+        String keyAlgorithm = switch (algorithm) {
+            case ED25519 -> "Ed25519";
+            case RS256 -> "RSA";
+        };
+        return KeyFactory.getInstance(keyAlgorithm);
+    }
+
+    private static SignatureAlgorithm signatureAlgorithm(JwtSigningKey.Algorithm algorithm) {
+        return switch (algorithm) {
+            case ED25519 -> Jwts.SIG.EdDSA;
+            case RS256 -> Jwts.SIG.RS256;
+        };
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Ring(String signingKid,
+                        PrivateKey signingKey,
+                        SignatureAlgorithm signatureAlgorithm,
+                        Map<String, PublicKey> verificationKeys,
+                        List<PublicJwk<?>> publicKeys) {
+        private static final Ring EMPTY = new Ring(null, null, null, Map.of(), List.of());
+    }
+}
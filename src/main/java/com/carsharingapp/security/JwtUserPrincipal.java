@@ -0,0 +1,14 @@
+package com.carsharingapp.security;
+
+import java.util.Collection;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.GrantedAuthority;
+
+@Getter
+@RequiredArgsConstructor
+public class JwtUserPrincipal implements AuthenticatedUser {
+    private final Long id;
+    private final String email;
+    private final Collection<? extends GrantedAuthority> authorities;
+}
@@ -1,66 +1,174 @@
 package com.carsharingapp.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.ProtectedHeader;
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import javax.crypto.spec.SecretKeySpec;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+/**
+ * Issues and verifies JWTs. Verified claims are cached under the SHA-256 digest of the
+ * token until the token expires, so a client sending the same token again skips the
+ * signature check and JSON parsing. Every token carries a random id ({@code jti}) it can
+ * be revoked by; refresh tokens are marked with a {@code token_type} claim so they are
+ * never taken for access tokens. Signing keys come from the {@link JwtKeyProvider}; tokens
+ * are verified with the key named by their {@code kid} header.
+ */
 @Component
 public class JwtUtil {
+    private static final String ROLES_CLAIM = "roles";
+    private static final String USER_ID_CLAIM = "id";
+    private static final String TOKEN_TYPE_CLAIM = "token_type";
+    private static final String REFRESH_TOKEN_TYPE = "refresh";
+
     @Value("${jwt.expiration}")
     private Long expiration;
+
+    @Value("${jwt.refresh-expiration:1209600000}")
+    private Long refreshExpiration;
     private final JwtParser jwtParser;
-    private final Key secret;
+    private final JwtKeyProvider keyProvider;
+    private final Cache<String, Claims> verifiedTokens;
 
-    public JwtUtil(@Value("${jwt.secret}") String secretString) {
-        this.secret = Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8));
+    public JwtUtil(JwtKeyProvider keyProvider,
+                   @Value("${jwt.cache.maximum-size:10000}") long cacheMaximumSize) {
+        this.keyProvider = keyProvider;
         this.jwtParser = Jwts.parser()
-                .verifyWith(new SecretKeySpec(secret.getEncoded(), secret.getAlgorithm()))
+                .keyLocator(header -> keyProvider.verificationKey(
+                        header instanceof ProtectedHeader protectedHeader
+                                ? protectedHeader.getKeyId() : null))
                 .build();
+        this.verifiedTokens = cacheMaximumSize > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(cacheMaximumSize)
+                        .expireAfter(new UntilTokenExpiry())
+                        .build()
+                : null;
     }
 
-    public String generateToken(String username,
+    public String generateToken(Long userId,
+                                String username,
                                 Collection<? extends GrantedAuthority> authorities) {
         List<String> roles = getRoles(authorities);
 
-        return Jwts.builder()
-                .subject(username)
-                .claim("roles", roles)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(secret)
+        return keyProvider.sign(Jwts.builder()
+                        .id(UUID.randomUUID().toString())
+                        .subject(username)
+                        .claim(USER_ID_CLAIM, userId)
+                        .claim(ROLES_CLAIM, roles)
+                        .issuedAt(new Date(System.currentTimeMillis()))
+                        .expiration(new Date(System.currentTimeMillis() + expiration)))
+                .compact();
+    }
+
+    /**
+     * Issues a long lived token that can only be exchanged for new access tokens. It
+     * carries no roles, they are read again on every refresh.
+     */
+    public String generateRefreshToken(Long userId, String username) {
+        return keyProvider.sign(Jwts.builder()
+                        .id(UUID.randomUUID().toString())
+                        .subject(username)
+                        .claim(USER_ID_CLAIM, userId)
+                        .claim(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE)
+                        .issuedAt(new Date(System.currentTimeMillis()))
+                        .expiration(new Date(System.currentTimeMillis() + refreshExpiration)))
                 .compact();
     }
 
-    public boolean validateToken(String token) {
+    public boolean isRefreshToken(Claims claims) {
+        return REFRESH_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM, String.class));
+    }
+
+    /**
+     * Verifies the token and returns its claims.
+     *
+     * @throws JwtException if the token is expired, malformed or badly signed
+     */
+    public Claims getClaims(String token) {
+        if (verifiedTokens == null) {
+            return parseClaims(token);
+        }
+        String digest = digest(token);
+        Claims claims = verifiedTokens.getIfPresent(digest);
+        if (claims == null) {
+            claims = parseClaims(token);
+            if (claims.getExpiration() != null) {
+                verifiedTokens.put(digest, claims);
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * Builds the principal from the token claims alone, without touching the database.
+     * Returns {@code null} for tokens issued without a user id claim.
+     */
+    public JwtUserPrincipal getPrincipal(Claims claims) {
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        if (userId == null) {
+            return null;
+        }
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        List<GrantedAuthority> authorities = roles == null ? List.of() : roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.toString()))
+                .toList();
+        return new JwtUserPrincipal(userId, claims.getSubject(), authorities);
+    }
+
+    private Claims parseClaims(String token) {
         try {
-            return jwtParser.parse(token) != null;
+            return jwtParser.parseSignedClaims(token).getPayload();
         } catch (JwtException | IllegalArgumentException e) {
             throw new JwtException("Expired or invalid JWT token");
         }
     }
 
-    public String getUsernameFromToken(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
-    private <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        Claims claims = jwtParser
-                .parseSignedClaims(token)
-                .getPayload();
-        return claimsResolver.apply(claims);
+    private static final class UntilTokenExpiry implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+            long millis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Claims claims, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(digest, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Claims claims, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
     }
 
     private List<String> getRoles(Collection<? extends GrantedAuthority> authorities) {
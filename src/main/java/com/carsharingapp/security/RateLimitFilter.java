@@ -0,0 +1,179 @@
+package com.carsharingapp.security;
+
+import com.carsharingapp.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Limits the requests a client can make to the endpoints doing expensive work: the
+ * {@code /auth} endpoints, which hash passwords, and booking, which locks inventory rows
+ * and talks to Stripe. Every route has a sliding window with a limit per client IP and
+ * one per principal. The principal is the subject of the bearer token, read through the
+ * verified claims cache of {@link JwtUtil}, so tokens minted by a refresh share the
+ * budget of the user they were issued to. The filter runs ahead of
+ * {@link JwtAuthenticationFilter} and rejects a request before any query is made; a
+ * token that fails verification is only limited by IP and left for that filter to
+ * reject. An IP whose window is already full is rejected before the token is verified,
+ * so a flood of requests costs no signature checks or key lookups. A request is counted
+ * by both windows or by neither. A limit of {@code 0} turns the check off.
+ *
+ * <p>The IP is the remote address of the request; behind a proxy it is only the
+ * client's with {@code server.forward-headers-strategy} set.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final JwtUtil jwtUtil;
+    private final SlidingWindowRateLimiter rateLimiter;
+    private List<Route> routes;
+
+    @Value("${rate-limit.auth.window:60000}")
+    private long authWindow;
+
+    @Value("${rate-limit.auth.ip-limit:20}")
+    private int authIpLimit;
+
+    @Value("${rate-limit.auth.principal-limit:0}")
+    private int authPrincipalLimit;
+
+    @Value("${rate-limit.booking.window:60000}")
+    private long bookingWindow;
+
+    @Value("${rate-limit.booking.ip-limit:60}")
+    private int bookingIpLimit;
+
+    @Value("${rate-limit.booking.principal-limit:10}")
+    private int bookingPrincipalLimit;
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           JwtUtil jwtUtil,
+                           Clock clock,
+                           @Value("${rate-limit.capacity:65536}") int capacity,
+                           @Value("${rate-limit.stripes:64}") int stripes) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.jwtUtil = jwtUtil;
+        this.rateLimiter = new SlidingWindowRateLimiter(capacity, stripes, clock);
+    }
+
+    @Override
+    protected void initFilterBean() {
+        routes = List.of(
+                route("auth", AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/auth/**"),
+                        authWindow, authIpLimit, authPrincipalLimit),
+                route("booking", new OrRequestMatcher(
+                        AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/rentals"),
+                        AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/rentals/*/return"),
+                        AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/payments/pay")),
+                        bookingWindow, bookingIpLimit, bookingPrincipalLimit));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain)
+            throws ServletException, IOException {
+        for (Route route : routes) {
+            if (route.matcher().matches(request)) {
+                long retryAfter = check(route, request);
+                if (retryAfter > 0) {
+                    route.rejections().increment();
+                    reject(request, response, retryAfter);
+                    return;
+                }
+                break;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private Route route(String name, RequestMatcher matcher, long windowMillis, int ipLimit,
+                        int principalLimit) {
+        Counter rejections = Counter.builder("http.rate.limit.rejections")
+                .description("Requests rejected for exceeding the rate limit of their route")
+                .tag("route", name)
+                .register(meterRegistry);
+        return new Route(name, matcher, windowMillis, ipLimit, principalLimit, rejections);
+    }
+
+    private long check(Route route, HttpServletRequest request) {
+        String ipKey = route.name() + "|ip|" + request.getRemoteAddr();
+        if (route.ipLimit() > 0 && route.principalLimit() > 0) {
+            long retryAfter = rateLimiter.peek(ipKey, route.ipLimit(), route.windowMillis());
+            if (retryAfter > 0) {
+                return retryAfter;
+            }
+        }
+        String subject = route.principalLimit() > 0 ? getSubject(request) : null;
+        if (subject == null) {
+            return route.ipLimit() > 0
+                    ? rateLimiter.tryAcquire(ipKey, route.ipLimit(), route.windowMillis())
+                    : 0;
+        }
+        String principalKey = route.name() + "|sub|" + subject;
+        if (route.ipLimit() > 0) {
+            return rateLimiter.tryAcquire(principalKey, route.principalLimit(), ipKey,
+                    route.ipLimit(), route.windowMillis());
+        }
+        return rateLimiter.tryAcquire(principalKey, route.principalLimit(),
+                route.windowMillis());
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response,
+                        long retryAfterMillis) throws IOException {
+        final ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase(),
+                "Too many requests, try again later",
+                request.getRequestURI(),
+                List.of("Rate limit exceeded")
+        );
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf((retryAfterMillis + 999) / 1000));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    private String getSubject(HttpServletRequest request) {
+        String bearerToken = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (!StringUtils.hasText(bearerToken) || !bearerToken.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        try {
+            return jwtUtil.getClaims(bearerToken.substring(BEARER_PREFIX.length()))
+                    .getSubject();
+        } catch (JwtException e) {
+            return null;
+        }
+    }
+
+    private record Route(String name, RequestMatcher matcher, long windowMillis, int ipLimit,
+                         int principalLimit, Counter rejections) {
+    }
+}
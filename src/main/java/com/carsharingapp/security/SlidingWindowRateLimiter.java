@@ -0,0 +1,227 @@
+package com.carsharingapp.security;
+
+import java.time.Clock;
+
+/**
+ * Sliding window request counters in a fixed amount of memory. Keys are hashed to 64
+ * bits and spread over lock stripes; inside a stripe a key may sit in one of
+ * {@value #WAYS} slots of its bucket. A key arriving at a full bucket takes over the
+ * slot touched longest ago, so under memory pressure the least active clients are the
+ * ones that get a fresh window.
+ *
+ * <p>The window slides by weighting the count of the previous fixed window with the part
+ * of it still covered, which needs two counters per key instead of a timestamp per hit.
+ */
+public class SlidingWindowRateLimiter {
+    private static final int WAYS = 4;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int bucketMask;
+    private final Clock clock;
+
+    public SlidingWindowRateLimiter(int capacity, int stripeCount, Clock clock) {
+        int stripesRounded = roundUpToPowerOfTwo(stripeCount);
+        int buckets = roundUpToPowerOfTwo(Math.max(1, capacity / stripesRounded / WAYS));
+        this.stripes = new Stripe[stripesRounded];
+        for (int i = 0; i < stripesRounded; i++) {
+            stripes[i] = new Stripe(buckets * WAYS);
+        }
+        this.stripeMask = stripesRounded - 1;
+        this.bucketMask = buckets - 1;
+        this.clock = clock;
+    }
+
+    /**
+     * Counts a request for {@code key} if it fits in {@code limit} requests per
+     * {@code windowMillis}. Rejected requests are not counted.
+     *
+     * @return {@code 0} if the request is allowed, otherwise the milliseconds until it
+     *         would be
+     */
+    public long tryAcquire(String key, int limit, long windowMillis) {
+        long hash = hash(key);
+        long now = clock.millis();
+        long windowStart = now - Math.floorMod(now, windowMillis);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int slot = stripe.slotOf(hash, bucketOf(hash), now);
+            long retryAfter = stripe.retryAfter(slot, limit, now, windowStart, windowMillis);
+            if (retryAfter == 0) {
+                stripe.current[slot]++;
+            }
+            return retryAfter;
+        }
+    }
+
+    /**
+     * Counts a request against both keys if it fits in the limits of both, so a request
+     * rejected by one window is not counted by the other.
+     *
+     * @return {@code 0} if the request is allowed, otherwise the milliseconds until it
+     *         would be
+     */
+    public long tryAcquire(String firstKey, int firstLimit, String secondKey, int secondLimit,
+                           long windowMillis) {
+        long firstHash = hash(firstKey);
+        long secondHash = hash(secondKey);
+        long now = clock.millis();
+        long windowStart = now - Math.floorMod(now, windowMillis);
+        Stripe firstStripe = stripeOf(firstHash);
+        Stripe secondStripe = stripeOf(secondHash);
+        // Stripes are locked in index order so two requests can't wait on each other
+        Stripe outer = stripeIndex(firstHash) <= stripeIndex(secondHash)
+                ? firstStripe : secondStripe;
+        Stripe inner = outer == firstStripe ? secondStripe : firstStripe;
+        synchronized (outer) {
+            synchronized (inner) {
+                int firstSlot = firstStripe.slotOf(firstHash, bucketOf(firstHash), now);
+                int secondSlot = secondStripe.slotOf(secondHash, bucketOf(secondHash), now);
+                long retryAfter = Math.max(
+                        firstStripe.retryAfter(firstSlot, firstLimit, now, windowStart,
+                                windowMillis),
+                        secondStripe.retryAfter(secondSlot, secondLimit, now, windowStart,
+                                windowMillis));
+                if (retryAfter == 0) {
+                    firstStripe.current[firstSlot]++;
+                    secondStripe.current[secondSlot]++;
+                }
+                return retryAfter;
+            }
+        }
+    }
+
+    /**
+     * Tells whether a request for {@code key} would fit in {@code limit} requests per
+     * {@code windowMillis}, without counting it. A key that has no slot yet is not given
+     * one, so peeking never pushes another key out.
+     *
+     * @return {@code 0} if the request would be allowed, otherwise the milliseconds until
+     *         it would be
+     */
+    public long peek(String key, int limit, long windowMillis) {
+        long hash = hash(key);
+        long now = clock.millis();
+        long windowStart = now - Math.floorMod(now, windowMillis);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int slot = stripe.find(hash, bucketOf(hash));
+            return slot < 0 ? 0 : stripe.retryAfter(slot, limit, now, windowStart,
+                    windowMillis);
+        }
+    }
+
+    private Stripe stripeOf(long hash) {
+        return stripes[stripeIndex(hash)];
+    }
+
+    private int stripeIndex(long hash) {
+        return (int) (hash >>> 32) & stripeMask;
+    }
+
+    private int bucketOf(long hash) {
+        return ((int) hash & bucketMask) * WAYS;
+    }
+
+    /**
+     * Time into a window after which {@code previous} hits of the window before weigh no
+     * more than {@code room}.
+     */
+    private static long allowedAfter(long windowMillis, int previous, int room) {
+        return (long) Math.ceil(windowMillis * (1 - (double) room / previous));
+    }
+
+    private static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int roundUpToPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    private static final class Stripe {
+        private final long[] keys;
+        private final long[] windowStarts;
+        private final long[] touchedAt;
+        private final int[] previous;
+        private final int[] current;
+
+        private Stripe(int slots) {
+            this.keys = new long[slots];
+            this.windowStarts = new long[slots];
+            this.touchedAt = new long[slots];
+            this.previous = new int[slots];
+            this.current = new int[slots];
+        }
+
+        private int find(long hash, int bucket) {
+            for (int slot = bucket; slot < bucket + WAYS; slot++) {
+                if (keys[slot] == hash) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private int slotOf(long hash, int bucket, long now) {
+            int victim = bucket;
+            for (int slot = bucket; slot < bucket + WAYS; slot++) {
+                if (keys[slot] == hash) {
+                    touchedAt[slot] = now;
+                    return slot;
+                }
+                if (touchedAt[slot] < touchedAt[victim]) {
+                    victim = slot;
+                }
+            }
+            keys[victim] = hash;
+            windowStarts[victim] = Long.MIN_VALUE;
+            touchedAt[victim] = now;
+            previous[victim] = 0;
+            current[victim] = 0;
+            return victim;
+        }
+
+        /**
+         * Moves the slot to the current window and tells how long a request for it has to
+         * wait, without counting the request.
+         */
+        private long retryAfter(int slot, int limit, long now, long windowStart,
+                                long windowMillis) {
+            slide(slot, windowStart, windowMillis);
+            long elapsed = now - windowStart;
+            int previous = this.previous[slot];
+            int current = this.current[slot];
+            double estimate = (double) previous * (windowMillis - elapsed) / windowMillis
+                    + current;
+            if (estimate + 1 <= limit) {
+                return 0;
+            }
+            if (current + 1 > limit) {
+                return windowMillis - elapsed + allowedAfter(windowMillis, current, limit - 1);
+            }
+            return Math.max(1, allowedAfter(windowMillis, previous, limit - current - 1)
+                    - elapsed);
+        }
+
+        private void slide(int slot, long windowStart, long windowMillis) {
+            if (windowStarts[slot] == windowStart) {
+                return;
+            }
+            previous[slot] = windowStarts[slot] == windowStart - windowMillis
+                    ? current[slot] : 0;
+            current[slot] = 0;
+            windowStarts[slot] = windowStart;
+        }
+    }
+}
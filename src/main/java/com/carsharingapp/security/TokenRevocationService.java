@@ -0,0 +1,136 @@
+package com.carsharingapp.security;
+
+import com.carsharingapp.model.RevokedToken;
+import com.carsharingapp.repository.token.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Revokes JWTs by id before they expire. Revoked ids are stored in the database and
+ * mirrored into an in-memory {@link BloomFilter}, so checking a token that was never
+ * revoked, which is almost every token, is a few memory reads; only the filter's
+ * positives are confirmed against the database. The filter is rebuilt from the table
+ * on a fixed delay, which also drops expired revocations and picks up the ones made by
+ * other instances. Until the first build every check goes to the database.
+ *
+ * <p>Since another instance's revocations reach the filter only with the next rebuild,
+ * the filter is used for access tokens, which live for minutes. Refresh tokens are
+ * checked with {@link #isRevokedInDatabase(String)}.
+ */
+@Service
+public class TokenRevocationService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final Clock clock;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+    private final Counter falsePositives;
+    private volatile Filters filters = new Filters(null, null);
+
+    public TokenRevocationService(
+            RevokedTokenRepository revokedTokenRepository,
+            Clock clock,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+            @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.clock = clock;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.falsePositives = Counter.builder("jwt.revocation.false.positives")
+                .description("Revocation filter hits not confirmed by the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revokes the token with the given id until it expires. Tokens issued without an id
+     * can't be revoked and are ignored.
+     */
+    public void revoke(String jti, Date expiresAt) {
+        if (jti == null) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(jti,
+                LocalDateTime.ofInstant(expiresAt.toInstant(), clock.getZone())));
+        Filters current = filters;
+        if (current.filter() != null) {
+            current.filter().put(jti);
+        }
+        if (current.nextFilter() != null) {
+            current.nextFilter().put(jti);
+        }
+    }
+
+    /**
+     * Checks a token against the filter and confirms its positives in the database. May
+     * miss a revocation another instance made since the last rebuild.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        BloomFilter current = filters.filter();
+        if (current != null && !current.mightContain(jti)) {
+            return false;
+        }
+        boolean revoked = revokedTokenRepository.existsById(jti);
+        if (!revoked && current != null) {
+            falsePositives.increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * Checks a token in the database, so revocations made by other instances are seen
+     * right away.
+     */
+    public boolean isRevokedInDatabase(String jti) {
+        return jti != null && revokedTokenRepository.existsById(jti);
+    }
+
+    /**
+     * Deletes expired revocations and swaps in a filter rebuilt from the remaining ones.
+     * Revocations made while the new filter is filled are put into both filters. Both
+     * filters are published as one {@link Filters}, so a revocation can't read the filter
+     * from before the swap and the next filter from after it and miss the rebuilt one.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.rebuild-interval:300000}")
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        revokedTokenRepository.deleteExpired(now);
+        BloomFilter rebuilt = new BloomFilter(expectedRevocations, falsePositiveRate);
+        filters = new Filters(filters.filter(), rebuilt);
+        String afterJti = "";
+        int revocations = 0;
+        List<String> chunk;
+        do {
+            chunk = revokedTokenRepository.findActiveJtisAfter(now, afterJti,
+                    Limit.of(REBUILD_CHUNK_SIZE));
+            for (String jti : chunk) {
+                rebuilt.put(jti);
+                afterJti = jti;
+            }
+            revocations += chunk.size();
+        } while (chunk.size() == REBUILD_CHUNK_SIZE);
+        filters = new Filters(rebuilt, null);
+        if (revocations > expectedRevocations) {
+            logger.warn("{} active token revocations exceed the {} the filter is sized for",
+                    revocations, expectedRevocations);
+        }
+    }
+
+    private record Filters(BloomFilter filter, BloomFilter nextFilter) {
+    }
+}
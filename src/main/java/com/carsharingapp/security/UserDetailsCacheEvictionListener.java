@@ -0,0 +1,33 @@
+package com.carsharingapp.security;
+
+import com.carsharingapp.config.CacheConfig;
+import com.carsharingapp.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Evicts the cached details of a user whose row changed or was soft deleted through the
+ * entity, so the next request reloads them. Changes of the user's roles alone don't
+ * dirty the row and are evicted by the services that make them. Contexts without caching,
+ * like JPA test slices, have nothing to evict.
+ */
+public class UserDetailsCacheEvictionListener {
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    public UserDetailsCacheEvictionListener(ObjectProvider<CacheManager> cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        CacheManager manager = cacheManager.getIfAvailable();
+        Cache cache = manager == null ? null : manager.getCache(CacheConfig.USER_DETAILS_CACHE);
+        if (cache != null) {
+            cache.evict(user.getEmail());
+        }
+    }
+}
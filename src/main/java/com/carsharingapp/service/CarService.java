@@ -3,6 +3,7 @@ package com.carsharingapp.service;
 import com.carsharingapp.dto.car.CarFilterDto;
 import com.carsharingapp.dto.car.CarResponseDto;
 import com.carsharingapp.dto.car.RequestCarDto;
+import com.carsharingapp.dto.page.CursorPageDto;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
 
@@ -12,6 +13,8 @@ public interface CarService {
 
     List<CarResponseDto> findAllCars(Pageable pageable);
 
+    CursorPageDto<CarResponseDto> findAllCars(String after, int size);
+
     List<CarResponseDto> search(CarFilterDto carFilterDto);
 
     CarResponseDto save(RequestCarDto requestCarDto);
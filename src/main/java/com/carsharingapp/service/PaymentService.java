@@ -1,5 +1,6 @@
 package com.carsharingapp.service;
 
+import com.carsharingapp.dto.page.CursorPageDto;
 import com.carsharingapp.dto.payment.PaymentRequestDto;
 import com.carsharingapp.dto.payment.PaymentResponseDto;
 import java.util.List;
@@ -8,9 +9,13 @@ import org.springframework.data.domain.Pageable;
 public interface PaymentService {
     List<PaymentResponseDto> getPayments(Long userId, Pageable pageable);
 
+    CursorPageDto<PaymentResponseDto> getPayments(Long userId, String after, int size);
+
     List<PaymentResponseDto> getPaymentsByStatus(Long userId, String status, Pageable pageable);
 
-    PaymentResponseDto createPaymentSession(PaymentRequestDto request);
+    PaymentResponseDto createPaymentSession(Long userId,
+                                            PaymentRequestDto request,
+                                            String idempotencyKey);
 
     PaymentResponseDto getSuccessfulPayment(String sessionId);
 
@@ -1,5 +1,6 @@
 package com.carsharingapp.service;
 
+import com.carsharingapp.dto.page.CursorPageDto;
 import com.carsharingapp.dto.rental.RentalRequestDto;
 import com.carsharingapp.dto.rental.RentalResponseDto;
 import java.util.List;
@@ -10,6 +11,8 @@ public interface RentalService {
 
     List<RentalResponseDto> getAllRentals(Long userId, Pageable pageable);
 
+    CursorPageDto<RentalResponseDto> getAllRentals(Long userId, String after, int size);
+
     List<RentalResponseDto> getAllActiveRentals(Long userId, Pageable pageable);
 
     List<RentalResponseDto> getAllNotActiveRentals(Long userId, Pageable pageable);
@@ -0,0 +1,12 @@
+package com.carsharingapp.service;
+
+import com.carsharingapp.dto.user.TelegramLinkDto;
+import java.util.Optional;
+
+public interface TelegramChatService {
+    TelegramLinkDto createLink(Long userId);
+
+    boolean linkChat(String linkToken, String chatId);
+
+    Optional<String> findChatId(Long userId);
+}
@@ -0,0 +1,21 @@
+package com.carsharingapp.service;
+
+import com.carsharingapp.dto.notification.NotificationPreferencesDto;
+import com.carsharingapp.dto.notification.UserNotificationDto;
+import com.carsharingapp.model.NotificationChannelType;
+import java.util.List;
+import java.util.Set;
+import org.springframework.data.domain.Pageable;
+
+public interface UserNotificationService {
+    List<UserNotificationDto> getInbox(Long userId, Pageable pageable);
+
+    void markRead(Long userId, Long notificationId);
+
+    Set<NotificationChannelType> getEnabledChannels(Long userId);
+
+    NotificationPreferencesDto getPreferences(Long userId);
+
+    NotificationPreferencesDto updatePreferences(Long userId,
+                                                 NotificationPreferencesDto preferencesDto);
+}
@@ -4,14 +4,16 @@ import com.carsharingapp.dto.user.UserRegistrationRequestDto;
 import com.carsharingapp.dto.user.UserResponseDto;
 import com.carsharingapp.dto.user.UserUpdateDto;
 import com.carsharingapp.exception.RegistrationException;
-import org.springframework.security.core.Authentication;
+import java.util.concurrent.CompletableFuture;
 
 public interface UserService {
-    UserResponseDto register(UserRegistrationRequestDto registrationRequestDto)
+    CompletableFuture<UserResponseDto> register(
+            UserRegistrationRequestDto registrationRequestDto)
             throws RegistrationException;
 
     UserResponseDto updateUserRole(Long id, String role);
 
-    UserResponseDto updateUserInfo(Authentication authentication,
-                                   UserUpdateDto userUpdateDto);
+    UserResponseDto getUserInfo(Long userId);
+
+    UserResponseDto updateUserInfo(Long userId, UserUpdateDto userUpdateDto);
 }
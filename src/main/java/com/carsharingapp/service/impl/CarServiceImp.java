@@ -1,20 +1,30 @@
 package com.carsharingapp.service.impl;
 
+import com.carsharingapp.config.CacheConfig;
 import com.carsharingapp.dto.car.CarFilterDto;
 import com.carsharingapp.dto.car.CarResponseDto;
 import com.carsharingapp.dto.car.RequestCarDto;
+import com.carsharingapp.dto.page.CursorPageDto;
+import com.carsharingapp.dto.page.PageCursor;
+import com.carsharingapp.event.CarChangedEvent;
 import com.carsharingapp.exception.EntityNotFoundException;
 import com.carsharingapp.mapper.car.CarMapper;
 import com.carsharingapp.model.Car;
 import com.carsharingapp.repository.car.CarRepository;
-import com.carsharingapp.repository.spec.CarSpecificationBuilder;
 import com.carsharingapp.service.CarService;
+import com.carsharingapp.service.inventory.CarInventoryService;
+import com.carsharingapp.service.search.CarSearchEngine;
 import jakarta.validation.Valid;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -24,54 +34,92 @@ import org.springframework.web.bind.annotation.RequestBody;
 public class CarServiceImp implements CarService {
     private final CarRepository carRepository;
     private final CarMapper carMapper;
-    private final CarSpecificationBuilder carSpecificationBuilder;
+    private final CarSearchEngine carSearchEngine;
+    private final CarInventoryService carInventoryService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.CARS_CACHE, key = "#id")
     public CarResponseDto findById(Long id) {
         Car car = carRepository.findById(id).orElseThrow(
                 () -> new EntityNotFoundException("Can't find car by ID: " + id)
         );
+        carInventoryService.loadInventory(List.of(car));
         return carMapper.toDto(car);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.CAR_PAGES_CACHE, key = "#pageable")
     public List<CarResponseDto> findAllCars(Pageable pageable) {
         Page<Car> carPage = carRepository.findAll(pageable);
+        carInventoryService.loadInventory(carPage.getContent());
         return carMapper.toDtoList(carPage.getContent());
     }
 
+    @Override
+    public CursorPageDto<CarResponseDto> findAllCars(String after, int size) {
+        int limit = PageCursor.limit(size);
+        Long afterId = after == null ? 0L : PageCursor.decode(after).id();
+        List<Car> cars = carRepository
+                .findAllByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit + 1));
+        carInventoryService.loadInventory(cars);
+        return CursorPageDto.of(cars, limit,
+                car -> PageCursor.ofId(car.getId()), carMapper::toDtoList);
+    }
+
     @Override
     public List<CarResponseDto> search(CarFilterDto carFilterDto) {
-        Specification<Car> build = carSpecificationBuilder
-                .build(carFilterDto);
-        return carMapper.toDtoList(carRepository.findAll(build));
+        return carSearchEngine.search(carFilterDto);
     }
 
     @Override
+    @Transactional
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfig.CARS_CACHE, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = CacheConfig.CAR_PAGES_CACHE, allEntries = true)
+    )
     public CarResponseDto save(RequestCarDto requestCarDto) {
-        Car car = carMapper.toModel(requestCarDto);
-        return carMapper.toDto(carRepository.save(car));
+        Car car = carRepository.save(carMapper.toModel(requestCarDto));
+        carInventoryService.assign(car);
+        eventPublisher.publishEvent(new CarChangedEvent(car.getId()));
+        return carMapper.toDto(car);
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CAR_PAGES_CACHE, allEntries = true)
     public List<CarResponseDto> saveAll(@RequestBody @Valid List<RequestCarDto> requestCarDtos) {
         List<Car> cars = carMapper.toModelList(requestCarDtos);
         List<Car> savedCars = carRepository.saveAll(cars);
+        savedCars.forEach(carInventoryService::assign);
+        savedCars.forEach(car -> eventPublisher.publishEvent(new CarChangedEvent(car.getId())));
         return carMapper.toDtoList(savedCars);
     }
 
     @Override
     @Transactional
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfig.CARS_CACHE, key = "#id"),
+            evict = @CacheEvict(cacheNames = CacheConfig.CAR_PAGES_CACHE, allEntries = true)
+    )
     public CarResponseDto update(Long id, RequestCarDto requestCarDto) {
         Car car = carRepository.findById(id).orElseThrow(
                 () -> new EntityNotFoundException("Can't find car by ID: " + id)
         );
         carMapper.updateFromDto(requestCarDto, car);
-        return carMapper.toDto(carRepository.save(car));
+        Car savedCar = carRepository.save(car);
+        carInventoryService.assign(savedCar);
+        eventPublisher.publishEvent(new CarChangedEvent(id));
+        return carMapper.toDto(savedCar);
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARS_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CAR_PAGES_CACHE, allEntries = true)
+    })
     public void deleteById(Long id) {
         carRepository.deleteById(id);
+        eventPublisher.publishEvent(new CarChangedEvent(id));
     }
 }
@@ -1,14 +1,25 @@
 package com.carsharingapp.service.impl;
 
 import com.carsharingapp.model.Car;
+import com.carsharingapp.model.NotificationChannelType;
+import com.carsharingapp.model.NotificationOutbox;
 import com.carsharingapp.model.Payment;
 import com.carsharingapp.model.Rental;
+import com.carsharingapp.model.User;
+import com.carsharingapp.repository.notification.NotificationOutboxRepository;
 import com.carsharingapp.service.NotificationService;
-import com.carsharingapp.service.telegram.CarSharingBot;
+import com.carsharingapp.service.UserNotificationService;
+import com.carsharingapp.service.notification.NotificationChannel;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +27,7 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 @Transactional
 public class NotificationServiceImpl implements NotificationService {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationServiceImpl.class);
     private static final DateTimeFormatter formatter =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
@@ -34,7 +46,12 @@ public class NotificationServiceImpl implements NotificationService {
     private static final String NO_OVERDUE_MESSAGE =
             "🌞 Great news! You have no overdue rentals today!";
 
-    private final CarSharingBot carSharingBot;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final List<NotificationChannel> channels;
+    private final UserNotificationService userNotificationService;
+
+    @Value("${notification.digest.window:60000}")
+    private long digestWindow;
 
     @Override
     public void notifyUserAboutCreatedRental(Rental rental) {
@@ -45,7 +62,9 @@ public class NotificationServiceImpl implements NotificationService {
                 name, RENTAL_INFO_PREFIX,
                 carInfo,
                 dateInfo);
-        carSharingBot.sendMessage(message);
+        String summary = String.format("🔑 Rented: %s until %s",
+                carInfo, formatDate(rental.getReturnDateTime()));
+        enqueue(rental.getUser(), message, summary);
     }
 
     @Override
@@ -58,7 +77,9 @@ public class NotificationServiceImpl implements NotificationService {
                 formatDate(rental.getReturnDateTime()),
                 formatDate(rental.getActualReturnDate())
         );
-        carSharingBot.sendMessage(message);
+        String summary = String.format("🚨 Returned late: %s (Expected Return: %s)",
+                formatCarInfo(car), formatDate(rental.getReturnDateTime()));
+        enqueue(rental.getUser(), message, summary);
     }
 
     @Override
@@ -69,7 +90,9 @@ public class NotificationServiceImpl implements NotificationService {
                 formatCarInfo(car),
                 payment.getAmountToPay()
         );
-        carSharingBot.sendMessage(message);
+        String summary = String.format("✅ Paid $%s for: %s",
+                payment.getAmountToPay(), formatCarInfo(car));
+        enqueue(payment.getRental().getUser(), message, summary);
     }
 
     @Override
@@ -81,19 +104,22 @@ public class NotificationServiceImpl implements NotificationService {
                 formatCarInfo(car),
                 payment.getAmountToPay()
         );
-        carSharingBot.sendMessage(message);
+        String summary = String.format("❌ Payment of $%s failed for: %s",
+                payment.getAmountToPay(), formatCarInfo(car));
+        enqueue(payment.getRental().getUser(), message, summary);
     }
 
     @Override
     public void sendScheduledOverdueRentalsNotification(Set<Rental> overdueRentals) {
         String message = String.format("%s %s", OVERDUE_RENTALS_MESSAGE,
                 formatOverdueRentals(overdueRentals));
-        carSharingBot.sendMessage(message);
+        enqueue(overdueRentals.iterator().next().getUser(), message, null);
     }
 
     @Override
     public void notifyUserAboutNoOverdueRentals() {
-        carSharingBot.sendMessage(NO_OVERDUE_MESSAGE);
+        notificationOutboxRepository.save(NotificationOutbox.pending(
+                NotificationChannelType.TELEGRAM, null, NO_OVERDUE_MESSAGE, LocalDateTime.now()));
     }
 
     public String formatOverdueRentals(Set<Rental> overdueRentals) {
@@ -106,6 +132,39 @@ public class NotificationServiceImpl implements NotificationService {
         return sb.toString();
     }
 
+    /**
+     * Writes the message to the outbox once for every channel the user enabled and can
+     * be reached through. Messages with a summary can be merged into a digest: they are
+     * held for the digest window, and join the due time of a digest that is already open
+     * for the recipient so they all go out as one message.
+     */
+    private void enqueue(User user, String message, String summary) {
+        Set<NotificationChannelType> enabledChannels =
+                userNotificationService.getEnabledChannels(user.getId());
+        LocalDateTime now = LocalDateTime.now();
+        for (NotificationChannel channel : channels) {
+            if (!enabledChannels.contains(channel.type())) {
+                continue;
+            }
+            Optional<String> recipient = channel.resolveRecipient(user);
+            if (recipient.isEmpty()) {
+                logger.info("User {} can't be reached through {}, skipping notification",
+                        user.getId(), channel.type());
+                continue;
+            }
+            NotificationOutbox notification = NotificationOutbox.pending(
+                    channel.type(), recipient.get(), message, now);
+            if (summary != null) {
+                LocalDateTime windowEnd = now.plus(Duration.ofMillis(digestWindow));
+                notification.setSummary(summary);
+                notification.setNextAttemptAt(notificationOutboxRepository
+                        .findOpenDigestDueAt(channel.type(), recipient.get(), now, windowEnd)
+                        .orElse(windowEnd));
+            }
+            notificationOutboxRepository.save(notification);
+        }
+    }
+
     private String formatCarInfo(Car car) {
         return String.format(
                 "🚗 Model: %s, Brand: %s, Type: %s",
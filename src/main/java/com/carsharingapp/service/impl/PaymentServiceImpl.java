@@ -1,21 +1,29 @@
 package com.carsharingapp.service.impl;
 
+import com.carsharingapp.config.CacheConfig;
+import com.carsharingapp.dto.page.CursorPageDto;
+import com.carsharingapp.dto.page.PageCursor;
 import com.carsharingapp.dto.payment.PaymentRequestDto;
 import com.carsharingapp.dto.payment.PaymentResponseDto;
 import com.carsharingapp.exception.EntityNotFoundException;
+import com.carsharingapp.exception.IdempotencyKeyConflictException;
 import com.carsharingapp.exception.PaymentNotFoundException;
 import com.carsharingapp.mapper.payment.PaymentMapper;
 import com.carsharingapp.model.Car;
 import com.carsharingapp.model.Payment;
+import com.carsharingapp.model.PaymentIdempotencyKey;
 import com.carsharingapp.model.Rental;
+import com.carsharingapp.repository.payment.PaymentIdempotencyKeyRepository;
 import com.carsharingapp.repository.payment.PaymentRepository;
 import com.carsharingapp.repository.rental.RentalRepository;
-import com.carsharingapp.service.NotificationService;
 import com.carsharingapp.service.PaymentService;
+import com.carsharingapp.service.payment.PaymentStatusUpdater;
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.checkout.SessionCreateParams;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
@@ -23,27 +31,51 @@ import java.net.URL;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentServiceImpl.class);
     private static final String DOMAIN = "http://localhost:8080";
     private static final double FINE_MULTIPLIER = 1.5;
     private static final String SUCCESS_URL = "/payments/success?sessionId={CHECKOUT_SESSION_ID}";
     private static final String CANCEL_URL = "/payments/cancel?sessionId={CHECKOUT_SESSION_ID}";
+    private static final String STRIPE_IDEMPOTENCY_PREFIX = "payment-session:";
+    private static final String TRANSACTION_TIMER = "payment.session.transaction";
+    private static final String PHASE_TAG = "phase";
+    private static final String RESERVE_PHASE = "reserve";
+    private static final String RECORD_PHASE = "record";
+    private static final String RELEASE_PHASE = "release";
+    private static final Duration SESSION_LIFETIME = Duration.ofMinutes(31);
+    private static final Duration MIN_SESSION_LIFETIME = Duration.ofMinutes(30).plusSeconds(10);
+    private static final String OPEN_SESSION = "open";
+    private static final String COMPLETE_SESSION = "complete";
 
     private final PaymentRepository paymentRepository;
     private final RentalRepository rentalRepository;
     private final PaymentMapper paymentMapper;
-    private final NotificationService notificationService;
+    private final PaymentIdempotencyKeyRepository idempotencyKeyRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final PaymentStatusUpdater paymentStatusUpdater;
 
     @Value("${stripe.secret-key}")
     private String stripeKey;
@@ -54,6 +86,12 @@ public class PaymentServiceImpl implements PaymentService {
     @Value("${payment.cancel.url}")
     private String cancelUrl;
 
+    @Value("${payment.session.reuse-margin:300000}")
+    private long sessionReuseMargin;
+
+    @Value("${payment.idempotency.abandon-after:300000}")
+    private long abandonAfter;
+
     @PostConstruct
     public void init() {
         Stripe.apiKey = stripeKey;
@@ -61,52 +99,316 @@ public class PaymentServiceImpl implements PaymentService {
 
     @Override
     public List<PaymentResponseDto> getPayments(Long userId, Pageable pageable) {
-        List<Payment> payments = paymentRepository.findAllByRentalUserId(userId, pageable);
-        return paymentMapper.toDtoList(payments);
+        return paymentRepository.findPaymentDtosByUserId(userId, pageable);
+    }
+
+    @Override
+    public CursorPageDto<PaymentResponseDto> getPayments(Long userId, String after, int size) {
+        int limit = PageCursor.limit(size);
+        Long afterId = after == null ? 0L : PageCursor.decode(after).id();
+        List<PaymentResponseDto> payments = paymentRepository
+                .findPaymentDtosByUserIdAfter(userId, afterId, Limit.of(limit + 1));
+        return CursorPageDto.of(payments, limit,
+                payment -> PageCursor.ofId(payment.id()), Function.identity());
     }
 
     @Override
     public List<PaymentResponseDto> getPaymentsByStatus(Long userId,
                                                         String status,
                                                         Pageable pageable) {
-        return paymentRepository
-                .findAllByStatus(Payment
-                        .PaymentStatus
-                        .valueOf(status.toUpperCase()))
-                .stream()
-                .map(paymentMapper::toDto)
-                .toList();
+        return paymentRepository.findPaymentDtosByUserIdAndStatus(userId,
+                Payment.PaymentStatus.valueOf(status.toUpperCase()), pageable);
     }
 
+    /**
+     * Creates a Stripe session for the payment in three steps, so that no database
+     * connection is held while Stripe is called: the payment is reserved in a short
+     * transaction, the session is created outside of any transaction and then recorded on
+     * the payment in a second short transaction. When Stripe fails the reservation is
+     * released again, when recording fails the new session is expired as well.
+     *
+     * <p>A request carrying an idempotency key that was already used by the user is
+     * answered with the payment of the first request: from the cache while it holds the
+     * response, otherwise from the stored key. The key is stored with the reservation, so
+     * a concurrent request with the same key is rejected instead of opening a second
+     * session, and it is passed on to Stripe as well. A failed attempt releases the key
+     * instead of deleting it, and a reservation older than
+     * {@code payment.idempotency.abandon-after} counts as abandoned, so a retry with the
+     * same key takes it over and sends Stripe the same parameters. The Stripe key carries
+     * the session expiry, which is only renewed once Stripe would no longer accept it.
+     *
+     * <p>A pending payment whose session is about to expire gets a new one, but only after
+     * the old session is expired in Stripe, so the user can't pay in a tab whose session
+     * id is no longer known. If the old session was completed in the meantime, the payment
+     * is settled as paid instead.
+     */
     @Override
-    @Transactional
-    public PaymentResponseDto createPaymentSession(PaymentRequestDto request) {
-        Payment payment = getPaymentIfExists(request)
-                .orElseGet(() -> createNewPayment(request));
-
-        checkout(payment.getRental().getCar(), payment);
-        return paymentMapper.toDto(paymentRepository.save(payment));
+    public PaymentResponseDto createPaymentSession(Long userId,
+                                                   PaymentRequestDto request,
+                                                   String idempotencyKey) {
+        String cacheKey = idempotencyKey == null ? null : userId + ":" + idempotencyKey;
+        if (cacheKey != null) {
+            IdempotentResponse cached = idempotencyCache()
+                    .get(cacheKey, IdempotentResponse.class);
+            if (cached != null) {
+                return cached.replay(request, idempotencyKey);
+            }
+        }
+        Reservation reservation = inTransaction(RESERVE_PHASE,
+                () -> reserve(userId, request, idempotencyKey));
+        if (reservation.response() != null) {
+            return reservation.response();
+        }
+        if (reservation.previousSessionId() != null) {
+            closePreviousSession(reservation);
+        }
+        Session session;
+        try {
+            session = Session.create(sessionParams(reservation), cacheKey == null
+                    ? RequestOptions.getDefault()
+                    : RequestOptions.builder()
+                            .setIdempotencyKey(STRIPE_IDEMPOTENCY_PREFIX + cacheKey + ":"
+                                    + toEpochSecond(reservation.sessionExpiresAt()))
+                            .build());
+        } catch (StripeException e) {
+            release(reservation, reservation.sessionExpiresAt());
+            throw new RuntimeException("Failed to create Stripe session", e);
+        }
+        try {
+            return inTransaction(RECORD_PHASE, () -> record(reservation, session, request));
+        } catch (RuntimeException e) {
+            expire(session);
+            release(reservation, null);
+            throw e;
+        }
     }
 
-    @Transactional
     @Override
     public PaymentResponseDto getSuccessfulPayment(String sessionId) {
-        Payment payment = findPaymentBySessionId(sessionId);
-        payment.setStatus(Payment.PaymentStatus.PAID);
-        notificationService.notifyUserAboutSuccessfulPayment(
-                payment,
-                payment.getRental().getCar());
-        return paymentMapper.toDto(paymentRepository.save(payment));
+        return settle(sessionId, Payment.PaymentStatus.PAID);
     }
 
     @Override
-    @Transactional
     public PaymentResponseDto getCancelledPayment(String sessionId) {
-        Payment payment = findPaymentBySessionId(sessionId);
-        payment.setStatus(Payment.PaymentStatus.CANCELED);
-        notificationService.notifyUserAboutCanceledPayment(payment,
-                payment.getRental().getCar());
-        return paymentMapper.toDto(paymentRepository.save(payment));
+        return settle(sessionId, Payment.PaymentStatus.CANCELED);
+    }
+
+    /**
+     * Moves the payment of the session to {@code status} if it is still pending, through
+     * the same conditional update as the webhook and the reconciliation job, so whichever
+     * of them comes first wins and the user is notified once. A payment that already left
+     * pending is returned as it is; a cancel page opened late doesn't undo a payment.
+     */
+    private PaymentResponseDto settle(String sessionId, Payment.PaymentStatus status) {
+        paymentStatusUpdater.apply(Map.of(sessionId, status));
+        return paymentMapper.toDto(findPaymentBySessionId(sessionId));
+    }
+
+    /**
+     * Finds or creates the payment of the request. A pending payment whose session stays
+     * valid for longer than {@code payment.session.reuse-margin} is answered right away,
+     * so reloading the pay page doesn't open a new session every time.
+     */
+    private Reservation reserve(Long userId, PaymentRequestDto request, String idempotencyKey) {
+        String cacheKey = null;
+        Long keyId = null;
+        LocalDateTime sessionExpiresAt = LocalDateTime.now().plus(SESSION_LIFETIME);
+        if (idempotencyKey != null) {
+            Optional<PaymentIdempotencyKey> stored = idempotencyKeyRepository
+                    .findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+            if (stored.isPresent() && !reclaim(stored.get(), request)) {
+                return Reservation.completed(replay(stored.get(), request));
+            }
+            if (stored.isPresent()) {
+                keyId = stored.get().getId();
+                sessionExpiresAt = stored.get().getSessionExpiresAt();
+            } else {
+                keyId = storeKey(userId, request, idempotencyKey, sessionExpiresAt).getId();
+            }
+            cacheKey = userId + ":" + idempotencyKey;
+        }
+        Optional<Payment> existing = getPaymentIfExists(request);
+        if (existing.isPresent() && hasReusableSession(existing.get())) {
+            return Reservation.completed(
+                    complete(existing.get(), request, keyId, cacheKey));
+        }
+        Payment payment = existing.orElseGet(
+                () -> paymentRepository.save(createNewPayment(request)));
+        Car car = payment.getRental().getCar();
+        return new Reservation(null, payment.getId(), existing.isEmpty(), keyId, cacheKey,
+                "Renting " + car.getBrand() + " " + car.getModel(), payment.getAmountToPay(),
+                sessionExpiresAt, payment.getSessionId());
+    }
+
+    /**
+     * Expires the session a pending payment is about to replace. A session that was
+     * completed meanwhile settles the payment as paid and no new session is opened; when
+     * Stripe can't be asked the reservation is released, so the old session stays the
+     * payment's.
+     */
+    private void closePreviousSession(Reservation reservation) {
+        Session previous;
+        try {
+            previous = Session.retrieve(reservation.previousSessionId());
+            if (OPEN_SESSION.equals(previous.getStatus())) {
+                previous = previous.expire();
+            }
+        } catch (StripeException e) {
+            release(reservation, reservation.sessionExpiresAt());
+            throw new RuntimeException("Failed to expire previous Stripe session", e);
+        }
+        if (COMPLETE_SESSION.equals(previous.getStatus())) {
+            paymentStatusUpdater.apply(Map.of(reservation.previousSessionId(),
+                    Payment.PaymentStatus.PAID));
+            release(reservation, reservation.sessionExpiresAt());
+            throw new EntityNotFoundException("This rental has been paid");
+        }
+    }
+
+    /**
+     * Takes over a stored key of the same request that has no payment yet, when the
+     * request holding it released it or abandoned it. The stored session expiry is kept
+     * while Stripe would still accept it, so Stripe sees the same parameters again.
+     */
+    private boolean reclaim(PaymentIdempotencyKey key, PaymentRequestDto request) {
+        if (key.getPayment() != null
+                || !key.getRentalId().equals(request.rentalId())
+                || key.getPaymentType() != request.paymentType()) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime sessionExpiresAt = key.getSessionExpiresAt() != null
+                && key.getSessionExpiresAt().isAfter(now.plus(MIN_SESSION_LIFETIME))
+                ? key.getSessionExpiresAt()
+                : now.plus(SESSION_LIFETIME);
+        if (idempotencyKeyRepository.reclaim(key.getId(), now,
+                now.minus(Duration.ofMillis(abandonAfter)), sessionExpiresAt) != 1) {
+            return false;
+        }
+        key.setReservedAt(now);
+        key.setSessionExpiresAt(sessionExpiresAt);
+        return true;
+    }
+
+    private PaymentResponseDto record(Reservation reservation,
+                                      Session session,
+                                      PaymentRequestDto request) {
+        Payment payment = paymentRepository.findById(reservation.paymentId())
+                .orElseThrow(() -> new PaymentNotFoundException(
+                        "Can't find payment by id " + reservation.paymentId()));
+        try {
+            payment.setSessionUrl(new URL(session.getUrl()));
+        } catch (MalformedURLException e) {
+            throw new RuntimeException("Failed to create Stripe session", e);
+        }
+        payment.setSessionId(session.getId());
+        payment.setSessionExpiresAt(LocalDateTime.ofInstant(
+                Instant.ofEpochSecond(session.getExpiresAt()), ZoneId.systemDefault()));
+        return complete(paymentRepository.save(payment), request,
+                reservation.keyId(), reservation.cacheKey());
+    }
+
+    private PaymentResponseDto complete(Payment payment,
+                                        PaymentRequestDto request,
+                                        Long keyId,
+                                        String cacheKey) {
+        PaymentResponseDto response = paymentMapper.toDto(payment);
+        if (keyId != null) {
+            idempotencyKeyRepository.getReferenceById(keyId).setPayment(payment);
+            idempotencyCache().put(cacheKey, new IdempotentResponse(request.rentalId(),
+                    request.paymentType(), response));
+        }
+        return response;
+    }
+
+    /**
+     * Undoes a reservation whose session couldn't be opened: the idempotency key is
+     * released so the request can be retried, and a payment created by the reservation is
+     * deleted. Stripe may have opened the session even though the call failed, so the
+     * session expiry is kept for the retry unless the session was expired here, then it
+     * is cleared so the retry opens a new one.
+     */
+    private void release(Reservation reservation, LocalDateTime sessionExpiresAt) {
+        try {
+            inTransaction(RELEASE_PHASE, () -> {
+                if (reservation.keyId() != null) {
+                    idempotencyKeyRepository.release(reservation.keyId(), sessionExpiresAt);
+                }
+                if (reservation.newPayment()) {
+                    paymentRepository.deleteById(reservation.paymentId());
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to release reservation of payment {}",
+                    reservation.paymentId(), e);
+        }
+    }
+
+    private void expire(Session session) {
+        try {
+            session.expire();
+        } catch (StripeException e) {
+            logger.error("Failed to expire Stripe session {}", session.getId(), e);
+        }
+    }
+
+    private <T> T inTransaction(String phase, Supplier<T> action) {
+        return meterRegistry.timer(TRANSACTION_TIMER, PHASE_TAG, phase)
+                .record(() -> transactionTemplate.execute(status -> action.get()));
+    }
+
+    private void inTransaction(String phase, Runnable action) {
+        meterRegistry.timer(TRANSACTION_TIMER, PHASE_TAG, phase)
+                .record(() -> transactionTemplate.executeWithoutResult(status -> action.run()));
+    }
+
+    private boolean hasReusableSession(Payment payment) {
+        return payment.getSessionUrl() != null
+                && payment.getSessionExpiresAt() != null
+                && payment.getSessionExpiresAt().isAfter(
+                        LocalDateTime.now().plus(Duration.ofMillis(sessionReuseMargin)));
+    }
+
+    private PaymentResponseDto replay(PaymentIdempotencyKey stored, PaymentRequestDto request) {
+        if (stored.getPayment() == null) {
+            if (!stored.getRentalId().equals(request.rentalId())
+                    || stored.getPaymentType() != request.paymentType()) {
+                throw new IdempotencyKeyConflictException("Idempotency-Key "
+                        + stored.getIdempotencyKey()
+                        + " was already used for a different payment request");
+            }
+            throw new IdempotencyKeyConflictException("A request with Idempotency-Key "
+                    + stored.getIdempotencyKey() + " is still being processed");
+        }
+        IdempotentResponse response = new IdempotentResponse(stored.getRentalId(),
+                stored.getPaymentType(), paymentMapper.toDto(stored.getPayment()));
+        idempotencyCache().put(stored.getUserId() + ":" + stored.getIdempotencyKey(), response);
+        return response.replay(request, stored.getIdempotencyKey());
+    }
+
+    private PaymentIdempotencyKey storeKey(Long userId,
+                                           PaymentRequestDto request,
+                                           String idempotencyKey,
+                                           LocalDateTime sessionExpiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        PaymentIdempotencyKey key = new PaymentIdempotencyKey();
+        key.setUserId(userId);
+        key.setIdempotencyKey(idempotencyKey);
+        key.setRentalId(request.rentalId());
+        key.setPaymentType(request.paymentType());
+        key.setCreatedAt(now);
+        key.setReservedAt(now);
+        key.setSessionExpiresAt(sessionExpiresAt);
+        try {
+            return idempotencyKeyRepository.saveAndFlush(key);
+        } catch (DataIntegrityViolationException e) {
+            throw new IdempotencyKeyConflictException("A request with Idempotency-Key "
+                    + idempotencyKey + " is already being processed");
+        }
+    }
+
+    private Cache idempotencyCache() {
+        return cacheManager.getCache(CacheConfig.PAYMENT_IDEMPOTENCY_CACHE);
     }
 
     private Optional<Payment> getPaymentIfExists(PaymentRequestDto request) {
@@ -176,35 +478,62 @@ public class PaymentServiceImpl implements PaymentService {
                                 + sessionId));
     }
 
-    private Payment checkout(Car car, Payment payment) {
-        SessionCreateParams.Builder builder = new SessionCreateParams.Builder()
+    private SessionCreateParams sessionParams(Reservation reservation) {
+        return new SessionCreateParams.Builder()
                 .addPaymentMethodType(SessionCreateParams.PaymentMethodType.CARD)
-                .setExpiresAt(Instant.now().plus(31, ChronoUnit.MINUTES).getEpochSecond())
+                .setExpiresAt(toEpochSecond(reservation.sessionExpiresAt()))
                 .addLineItem(SessionCreateParams.LineItem.builder()
                         .setPriceData(SessionCreateParams.LineItem.PriceData.builder()
                                 .setCurrency("usd")
-                                .setUnitAmount(payment.getAmountToPay().longValue() * 100L)
+                                .setUnitAmount(reservation.amountToPay().longValue() * 100L)
                                 .setProductData(SessionCreateParams
                                         .LineItem
                                         .PriceData
                                         .ProductData
                                         .builder()
-                                        .setName("Renting " + car.getBrand() + " " + car.getModel())
+                                        .setName(reservation.productName())
                                         .build())
                                 .build())
                         .setQuantity(1L)
                         .build())
                 .setMode(SessionCreateParams.Mode.PAYMENT)
                 .setSuccessUrl(DOMAIN + SUCCESS_URL)
-                .setCancelUrl(DOMAIN + CANCEL_URL);
+                .setCancelUrl(DOMAIN + CANCEL_URL)
+                .build();
+    }
 
-        try {
-            Session session = Session.create(builder.build());
-            payment.setSessionId(session.getId());
-            payment.setSessionUrl(new URL(session.getUrl()));
-        } catch (StripeException | MalformedURLException e) {
-            throw new RuntimeException("Failed to create Stripe session", e);
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    /**
+     * Outcome of the reservation step: either the final response, or the payment a new
+     * session has to be opened for.
+     */
+    private record Reservation(PaymentResponseDto response,
+                               Long paymentId,
+                               boolean newPayment,
+                               Long keyId,
+                               String cacheKey,
+                               String productName,
+                               BigDecimal amountToPay,
+                               LocalDateTime sessionExpiresAt,
+                               String previousSessionId) {
+        private static Reservation completed(PaymentResponseDto response) {
+            return new Reservation(response, null, false, null, null, null, null, null,
+                    null);
+        }
+    }
+
+    private record IdempotentResponse(Long rentalId,
+                                      Payment.PaymentType paymentType,
+                                      PaymentResponseDto response) {
+        private PaymentResponseDto replay(PaymentRequestDto request, String idempotencyKey) {
+            if (!rentalId.equals(request.rentalId()) || paymentType != request.paymentType()) {
+                throw new IdempotencyKeyConflictException("Idempotency-Key " + idempotencyKey
+                        + " was already used for a different payment request");
+            }
+            return response;
         }
-        return payment;
     }
 }
@@ -1,7 +1,13 @@
 package com.carsharingapp.service.impl;
 
+import com.carsharingapp.config.CacheConfig;
+import com.carsharingapp.dto.page.CursorPageDto;
+import com.carsharingapp.dto.page.PageCursor;
 import com.carsharingapp.dto.rental.RentalRequestDto;
 import com.carsharingapp.dto.rental.RentalResponseDto;
+import com.carsharingapp.event.CarChangedEvent;
+import com.carsharingapp.event.RentalEndedEvent;
+import com.carsharingapp.event.RentalStartedEvent;
 import com.carsharingapp.exception.EntityNotFoundException;
 import com.carsharingapp.exception.NoAvailableCarsException;
 import com.carsharingapp.exception.RentalIsNotActiveException;
@@ -14,10 +20,15 @@ import com.carsharingapp.repository.rental.RentalRepository;
 import com.carsharingapp.repository.user.UserRepository;
 import com.carsharingapp.service.NotificationService;
 import com.carsharingapp.service.RentalService;
+import com.carsharingapp.service.inventory.CarInventoryService;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,19 +40,23 @@ public class RentalServiceImpl implements RentalService {
             .getLogger(RentalServiceImpl.class);
     private final RentalRepository rentalRepository;
     private final CarRepository carRepository;
+    private final CarInventoryService carInventoryService;
     private final UserRepository userRepository;
     private final RentalMapper rentalMapper;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CARS_CACHE, key = "#result.carId()")
     public RentalResponseDto createRental(RentalRequestDto requestDto, Long userId) {
-        Car car = findById(requestDto.carId());
-        if (car.getInventory() < 1) {
+        if (!carInventoryService.reserve(requestDto.carId())) {
+            findById(requestDto.carId());
             logger.warn("No available cars for rental with ID: {}", requestDto.carId());
             throw new NoAvailableCarsException("There are no free cars left for rent!");
         }
-        updateCarInventory(car, -1);
+        eventPublisher.publishEvent(new CarChangedEvent(requestDto.carId()));
+        Car car = findById(requestDto.carId());
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("Can't find user by id: " + userId));
 
@@ -50,44 +65,61 @@ public class RentalServiceImpl implements RentalService {
                 userId, requestDto.carId());
         notificationService.notifyUserAboutCreatedRental(rental);
 
-        return rentalMapper.toDto(rentalRepository.save(rental));
+        Rental savedRental = rentalRepository.save(rental);
+        eventPublisher.publishEvent(new RentalStartedEvent(savedRental.getId(),
+                savedRental.getReturnDateTime()));
+        return rentalMapper.toDto(savedRental);
     }
 
     @Override
     public List<RentalResponseDto> getAllRentals(Long userId, Pageable pageable) {
-        return rentalMapper.toDtoList(rentalRepository
-                .getAllByUserId(userId, pageable));
+        return rentalRepository.findRentalDtosByUserId(userId, pageable);
+    }
+
+    @Override
+    public CursorPageDto<RentalResponseDto> getAllRentals(Long userId, String after, int size) {
+        int limit = PageCursor.limit(size);
+        List<RentalResponseDto> rentals;
+        if (after == null) {
+            rentals = rentalRepository.findLatestRentalDtosByUserId(userId, Limit.of(limit + 1));
+        } else {
+            PageCursor cursor = PageCursor.decode(after);
+            rentals = rentalRepository.findRentalDtosByUserIdAfter(userId,
+                    cursor.sortKeyAsDateTime(), cursor.id(), Limit.of(limit + 1));
+        }
+        return CursorPageDto.of(rentals, limit,
+                rental -> PageCursor.of(rental.rentalDateTime(), rental.id()),
+                Function.identity());
     }
 
     @Override
     public List<RentalResponseDto> getAllActiveRentals(Long userId, Pageable pageable) {
-        return rentalMapper.toDtoList(rentalRepository
-                .getAllByUserIdAndActualReturnDateIsNull(userId, pageable));
+        return rentalRepository.findActiveRentalDtosByUserId(userId, pageable);
     }
 
     @Override
     public List<RentalResponseDto> getAllNotActiveRentals(Long userId, Pageable pageable) {
-        return rentalMapper.toDtoList(rentalRepository
-                .getAllByUserIdAndActualReturnDateIsNotNull(userId, pageable));
+        return rentalRepository.findNotActiveRentalDtosByUserId(userId, pageable);
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CARS_CACHE, key = "#result.carId()")
     public RentalResponseDto setActualReturnDate(Long rentalId) {
         Rental rental = findRentalById(rentalId);
-
-        if (rental.getActualReturnDate() != null) {
+        LocalDateTime returnedAt = LocalDateTime.now();
+        if (rental.getActualReturnDate() != null
+                || rentalRepository.markReturned(rentalId, returnedAt) != 1) {
             throw new RentalIsNotActiveException("This rental has been already returned!");
         }
-        rental.setActualReturnDate(LocalDateTime.now());
+        rental.setActualReturnDate(returnedAt);
         if (rental.getActualReturnDate().isAfter(rental.getReturnDateTime())) {
             handleLateReturn(rental);
             notificationService.notifyUserAboutOverdueRental(rental);
         }
-        Car car = rental.getCar();
-        updateCarInventory(rental.getCar(), 1);
-        rentalRepository.save(rental);
-        carRepository.save(car);
+        carInventoryService.release(rental.getCar().getId());
+        eventPublisher.publishEvent(new CarChangedEvent(rental.getCar().getId()));
+        eventPublisher.publishEvent(new RentalEndedEvent(rentalId));
         logger.info("Rental returned successfully for rentalId: {}", rentalId);
         notificationService.notifyUserAboutNoOverdueRentals();
         return rentalMapper.toDto(rental);
@@ -108,9 +140,4 @@ public class RentalServiceImpl implements RentalService {
     private void handleLateReturn(Rental rental) {
         logger.info("Fine for late return applied.");
     }
-
-    private void updateCarInventory(Car car, int change) {
-        car.setInventory(car.getInventory() + change);
-        carRepository.save(car);
-    }
 }
@@ -0,0 +1,91 @@
+package com.carsharingapp.service.impl;
+
+import com.carsharingapp.config.CacheConfig;
+import com.carsharingapp.dto.user.TelegramLinkDto;
+import com.carsharingapp.model.UserTelegramChat;
+import com.carsharingapp.repository.user.UserTelegramChatRepository;
+import com.carsharingapp.service.TelegramChatService;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Links users to the Telegram chat their notifications go to. A user asks for a deep
+ * link, opens it in Telegram and the bot receives {@code /start <token>} from their
+ * chat, which ties that chat to the user. Chat ids are looked up through the
+ * {@link CacheConfig#TELEGRAM_CHATS_CACHE} cache; users without a chat are not cached so
+ * a fresh link is picked up right away.
+ */
+@Service
+@RequiredArgsConstructor
+public class TelegramChatServiceImpl implements TelegramChatService {
+    private static final int LINK_TOKEN_BYTES = 24;
+
+    private final UserTelegramChatRepository userTelegramChatRepository;
+    private final CacheManager cacheManager;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${telegram.bot.username}")
+    private String botUsername;
+
+    @Value("${telegram.link.expiration:600000}")
+    private long linkExpiration;
+
+    @Override
+    @Transactional
+    public TelegramLinkDto createLink(Long userId) {
+        UserTelegramChat chat = userTelegramChatRepository.findById(userId)
+                .orElseGet(() -> {
+                    UserTelegramChat newChat = new UserTelegramChat();
+                    newChat.setUserId(userId);
+                    return newChat;
+                });
+        String token = generateToken();
+        LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofMillis(linkExpiration));
+        chat.setLinkToken(token);
+        chat.setLinkTokenExpiresAt(expiresAt);
+        userTelegramChatRepository.save(chat);
+        return new TelegramLinkDto("https://t.me/" + botUsername + "?start=" + token,
+                expiresAt);
+    }
+
+    @Override
+    @Transactional
+    public boolean linkChat(String linkToken, String chatId) {
+        Optional<UserTelegramChat> found = userTelegramChatRepository.findByLinkToken(linkToken)
+                .filter(chat -> chat.getLinkTokenExpiresAt().isAfter(LocalDateTime.now()));
+        if (found.isEmpty()) {
+            return false;
+        }
+        UserTelegramChat chat = found.get();
+        chat.setChatId(chatId);
+        chat.setLinkToken(null);
+        chat.setLinkTokenExpiresAt(null);
+        chat.setLinkedAt(LocalDateTime.now());
+        userTelegramChatRepository.save(chat);
+        cacheManager.getCache(CacheConfig.TELEGRAM_CHATS_CACHE).put(chat.getUserId(), chatId);
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.TELEGRAM_CHATS_CACHE, key = "#userId",
+            unless = "#result == null")
+    public Optional<String> findChatId(Long userId) {
+        return userTelegramChatRepository.findChatIdByUserId(userId);
+    }
+
+    private String generateToken() {
+        byte[] bytes = new byte[LINK_TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
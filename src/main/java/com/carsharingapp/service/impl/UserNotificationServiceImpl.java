@@ -0,0 +1,95 @@
+package com.carsharingapp.service.impl;
+
+import com.carsharingapp.dto.notification.NotificationPreferencesDto;
+import com.carsharingapp.dto.notification.UserNotificationDto;
+import com.carsharingapp.exception.EntityNotFoundException;
+import com.carsharingapp.model.NotificationChannelType;
+import com.carsharingapp.model.UserNotificationPreference;
+import com.carsharingapp.repository.notification.UserNotificationPreferenceRepository;
+import com.carsharingapp.repository.notification.UserNotificationRepository;
+import com.carsharingapp.service.UserNotificationService;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * In-app inbox and per-user channel preferences. Users without stored preferences get
+ * the channels listed in {@code notification.channels.defaults}.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserNotificationServiceImpl implements UserNotificationService {
+    private final UserNotificationRepository userNotificationRepository;
+    private final UserNotificationPreferenceRepository preferenceRepository;
+
+    @Value("${notification.channels.defaults:TELEGRAM,IN_APP}")
+    private Set<NotificationChannelType> defaultChannels;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserNotificationDto> getInbox(Long userId, Pageable pageable) {
+        return userNotificationRepository.findDtosByUserId(userId, pageable).getContent();
+    }
+
+    @Override
+    @Transactional
+    public void markRead(Long userId, Long notificationId) {
+        if (userNotificationRepository.markRead(notificationId, userId,
+                LocalDateTime.now()) == 0
+                && !userNotificationRepository.existsByIdAndUserId(notificationId, userId)) {
+            throw new EntityNotFoundException(
+                    "Can't find notification by id: " + notificationId);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<NotificationChannelType> getEnabledChannels(Long userId) {
+        List<UserNotificationPreference> preferences =
+                preferenceRepository.findAllByUserId(userId);
+        if (preferences.isEmpty()) {
+            return defaultChannels;
+        }
+        return preferences.stream()
+                .filter(UserNotificationPreference::isEnabled)
+                .map(UserNotificationPreference::getChannel)
+                .collect(Collectors.toCollection(
+                        () -> EnumSet.noneOf(NotificationChannelType.class)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public NotificationPreferencesDto getPreferences(Long userId) {
+        return new NotificationPreferencesDto(getEnabledChannels(userId));
+    }
+
+    @Override
+    @Transactional
+    public NotificationPreferencesDto updatePreferences(Long userId,
+                                                        NotificationPreferencesDto preferencesDto) {
+        Map<NotificationChannelType, UserNotificationPreference> stored =
+                preferenceRepository.findAllByUserId(userId).stream()
+                        .collect(Collectors.toMap(UserNotificationPreference::getChannel,
+                                Function.identity()));
+        for (NotificationChannelType channel : NotificationChannelType.values()) {
+            UserNotificationPreference preference = stored.computeIfAbsent(channel, type -> {
+                UserNotificationPreference created = new UserNotificationPreference();
+                created.setUserId(userId);
+                created.setChannel(type);
+                return created;
+            });
+            preference.setEnabled(preferencesDto.channels().contains(channel));
+        }
+        preferenceRepository.saveAll(stored.values());
+        return getPreferences(userId);
+    }
+}
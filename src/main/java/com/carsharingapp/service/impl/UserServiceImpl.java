@@ -1,5 +1,6 @@
 package com.carsharingapp.service.impl;
 
+import com.carsharingapp.config.CacheConfig;
 import com.carsharingapp.dto.user.UserRegistrationRequestDto;
 import com.carsharingapp.dto.user.UserResponseDto;
 import com.carsharingapp.dto.user.UserUpdateDto;
@@ -10,13 +11,16 @@ import com.carsharingapp.model.Role;
 import com.carsharingapp.model.User;
 import com.carsharingapp.repository.role.RoleRepository;
 import com.carsharingapp.repository.user.UserRepository;
+import com.carsharingapp.security.PasswordHashingExecutor;
 import com.carsharingapp.service.UserService;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
@@ -25,22 +29,35 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final RoleRepository roleRepository;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
 
+    /**
+     * Checks the request on the calling thread, hashes the password on the password
+     * hashing pool and saves the user in a short transaction once the hash is ready.
+     *
+     * @throws com.carsharingapp.exception.PasswordHashingBusyException if the pool is
+     *         saturated
+     */
     @Override
-    public UserResponseDto register(UserRegistrationRequestDto request)
+    public CompletableFuture<UserResponseDto> register(UserRegistrationRequestDto request)
             throws RegistrationException {
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new RegistrationException("Email already registered!");
         }
-        User user = userMapper.toModel(request);
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
         Role userRole = roleRepository.findRoleByName(Role.RoleName.CUSTOMER)
                 .orElseThrow(
                         () -> new RegistrationException("Can't find role by name"));
+        User user = userMapper.toModel(request);
         Set<Role> defaultUserRoleSet = new HashSet<>();
         defaultUserRoleSet.add(userRole);
         user.setRoles(defaultUserRoleSet);
-        return userMapper.toUserResponseDto(userRepository.save(user));
+        return passwordHashingExecutor.submit(() -> passwordEncoder.encode(request.getPassword()))
+                .thenApply(password -> transactionTemplate.execute(status -> {
+                    user.setPassword(password);
+                    return userMapper.toUserResponseDto(userRepository.save(user));
+                }));
     }
 
     @Override
@@ -54,15 +71,32 @@ public class UserServiceImpl implements UserService {
 
         user.getRoles().clear();
         user.getRoles().add(roleName);
-        return userMapper.toUserResponseDto(userRepository.save(user));
+        User saved = userRepository.save(user);
+        evictUserDetails(saved);
+        return userMapper.toUserResponseDto(saved);
+    }
+
+    @Override
+    public UserResponseDto getUserInfo(Long userId) {
+        return userMapper.toUserResponseDto(findById(userId));
     }
 
     @Override
-    public UserResponseDto updateUserInfo(
-            Authentication authentication,
-            UserUpdateDto userUpdateDto) {
-        final User user = (User) authentication.getPrincipal();
+    public UserResponseDto updateUserInfo(Long userId, UserUpdateDto userUpdateDto) {
+        User user = findById(userId);
         userMapper.updateUserFromDto(userUpdateDto, user);
-        return userMapper.toUserResponseDto(userRepository.save(user));
+        User saved = userRepository.save(user);
+        evictUserDetails(saved);
+        return userMapper.toUserResponseDto(saved);
+    }
+
+    private void evictUserDetails(User user) {
+        cacheManager.getCache(CacheConfig.USER_DETAILS_CACHE).evict(user.getEmail());
+    }
+
+    private User findById(Long userId) {
+        return userRepository.findById(userId).orElseThrow(
+                () -> new EntityNotFoundException("Can't find user by id: " + userId)
+        );
     }
 }
@@ -0,0 +1,24 @@
+package com.carsharingapp.service.inventory;
+
+import com.carsharingapp.model.Car;
+import java.util.Collection;
+
+public interface CarInventoryService {
+    /**
+     * Takes one car out of the inventory. Returns {@code false} if none are left.
+     */
+    boolean reserve(Long carId);
+
+    void release(Long carId);
+
+    /**
+     * Called after a car is saved with a new inventory value.
+     */
+    void assign(Car car);
+
+    /**
+     * Fills in the inventory left of cars loaded from the database, for cars whose
+     * inventory is not kept on the car row.
+     */
+    void loadInventory(Collection<Car> cars);
+}
@@ -0,0 +1,33 @@
+package com.carsharingapp.service.inventory;
+
+import com.carsharingapp.model.Car;
+import com.carsharingapp.repository.car.CarRepository;
+import java.util.Collection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "car.inventory.mode", havingValue = "single", matchIfMissing = true)
+public class SingleRowCarInventoryService implements CarInventoryService {
+    private final CarRepository carRepository;
+
+    @Override
+    public boolean reserve(Long carId) {
+        return carRepository.decreaseInventory(carId) > 0;
+    }
+
+    @Override
+    public void release(Long carId) {
+        carRepository.increaseInventory(carId);
+    }
+
+    @Override
+    public void assign(Car car) {
+    }
+
+    @Override
+    public void loadInventory(Collection<Car> cars) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.carsharingapp.service.inventory;
+
+import com.carsharingapp.dto.car.CarInventoryDto;
+import com.carsharingapp.model.Car;
+import com.carsharingapp.model.CarInventorySlot;
+import com.carsharingapp.repository.car.CarInventorySlotRepository;
+import com.carsharingapp.repository.car.CarRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Splits the inventory of a car across several slot rows, so concurrent rentals of the
+ * same car update different rows instead of queueing on the lock of the car row. Cars
+ * that have no slots yet (saved before this mode was enabled) keep using the car row
+ * until they are updated.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "car.inventory.mode", havingValue = "striped")
+public class StripedCarInventoryService implements CarInventoryService {
+    private final CarRepository carRepository;
+    private final CarInventorySlotRepository slotRepository;
+
+    @Value("${car.inventory.slots:8}")
+    private int slotCount;
+
+    @Override
+    public boolean reserve(Long carId) {
+        List<Integer> slots = slotRepository.findNonEmptySlots(carId);
+        if (slots.isEmpty()) {
+            return slotRepository.countSlots(carId) == 0
+                    && carRepository.decreaseInventory(carId) > 0;
+        }
+        int offset = ThreadLocalRandom.current().nextInt(slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            int slot = slots.get((offset + i) % slots.size());
+            if (slotRepository.decreaseInventory(carId, slot) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void release(Long carId) {
+        int slots = slotRepository.countSlots(carId);
+        if (slots == 0) {
+            carRepository.increaseInventory(carId);
+            return;
+        }
+        slotRepository.increaseInventory(carId, ThreadLocalRandom.current().nextInt(slots));
+    }
+
+    @Override
+    public void assign(Car car) {
+        slotRepository.deleteAllByCarId(car.getId());
+        int total = car.getInventory();
+        List<CarInventorySlot> slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            CarInventorySlot slot = new CarInventorySlot();
+            slot.setCarId(car.getId());
+            slot.setSlot(i);
+            slot.setInventory(total / slotCount + (i < total % slotCount ? 1 : 0));
+            slots.add(slot);
+        }
+        slotRepository.saveAll(slots);
+        car.setSlotInventory(total);
+    }
+
+    @Override
+    public void loadInventory(Collection<Car> cars) {
+        if (cars.isEmpty()) {
+            return;
+        }
+        Map<Long, Car> carsById = cars.stream()
+                .collect(Collectors.toMap(Car::getId, Function.identity(), (a, b) -> a));
+        for (CarInventoryDto inventory : slotRepository.sumInventoryByCarIds(carsById.keySet())) {
+            carsById.get(inventory.carId()).setSlotInventory(inventory.inventory().intValue());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.carsharingapp.service.notification;
+
+import com.carsharingapp.model.NotificationChannelType;
+import com.carsharingapp.model.User;
+import java.time.Duration;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends notifications by email. Only registered when an SMTP host is configured, so
+ * without {@code spring.mail.host} email rows are never written.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.mail.host")
+@RequiredArgsConstructor
+public class EmailNotificationChannel implements NotificationChannel {
+    private static final String SUBJECT = "Car sharing notification";
+
+    private final JavaMailSender mailSender;
+
+    @Value("${notification.channels.email.from}")
+    private String from;
+
+    @Value("${notification.channels.email.timeout:30000}")
+    private long timeout;
+
+    @Override
+    public NotificationChannelType type() {
+        return NotificationChannelType.EMAIL;
+    }
+
+    @Override
+    public Optional<String> resolveRecipient(User user) {
+        return Optional.ofNullable(user.getEmail());
+    }
+
+    @Override
+    public void send(String recipient, String message) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setFrom(from);
+        mail.setTo(recipient);
+        mail.setSubject(SUBJECT);
+        mail.setText(message);
+        mailSender.send(mail);
+    }
+
+    @Override
+    public Duration timeout() {
+        return Duration.ofMillis(timeout);
+    }
+}
@@ -0,0 +1,48 @@
+package com.carsharingapp.service.notification;
+
+import com.carsharingapp.model.NotificationChannelType;
+import com.carsharingapp.model.User;
+import com.carsharingapp.model.UserNotification;
+import com.carsharingapp.repository.notification.UserNotificationRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores notifications in the user's inbox, read through {@code GET /notifications}.
+ */
+@Component
+@RequiredArgsConstructor
+public class InAppNotificationChannel implements NotificationChannel {
+    private final UserNotificationRepository userNotificationRepository;
+
+    @Value("${notification.channels.in-app.timeout:5000}")
+    private long timeout;
+
+    @Override
+    public NotificationChannelType type() {
+        return NotificationChannelType.IN_APP;
+    }
+
+    @Override
+    public Optional<String> resolveRecipient(User user) {
+        return Optional.of(String.valueOf(user.getId()));
+    }
+
+    @Override
+    public void send(String recipient, String message) {
+        UserNotification notification = new UserNotification();
+        notification.setUserId(Long.valueOf(recipient));
+        notification.setMessage(message);
+        notification.setCreatedAt(LocalDateTime.now());
+        userNotificationRepository.save(notification);
+    }
+
+    @Override
+    public Duration timeout() {
+        return Duration.ofMillis(timeout);
+    }
+}
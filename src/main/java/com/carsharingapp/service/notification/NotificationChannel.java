@@ -0,0 +1,29 @@
+package com.carsharingapp.service.notification;
+
+import com.carsharingapp.model.NotificationChannelType;
+import com.carsharingapp.model.User;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A way of reaching users. Notifications are written to the outbox once per channel the
+ * user has enabled, addressed to the recipient the channel resolved, and delivered by
+ * {@link NotificationOutboxDispatcher} on a worker pool of the channel's own.
+ */
+public interface NotificationChannel {
+    NotificationChannelType type();
+
+    /**
+     * Returns the channel address of the user, or empty if the user cannot be reached
+     * through this channel.
+     */
+    Optional<String> resolveRecipient(User user);
+
+    void send(String recipient, String message);
+
+    /**
+     * How long a single send may take before the dispatcher interrupts it and schedules
+     * a retry.
+     */
+    Duration timeout();
+}
@@ -0,0 +1,234 @@
+package com.carsharingapp.service.notification;
+
+import com.carsharingapp.model.NotificationOutbox;
+import com.carsharingapp.repository.notification.NotificationOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Drains the notification outbox into the notification channels. Every channel has a
+ * worker pool of its own with a bounded queue, so a slow channel only ever backs up its
+ * own rows. Due rows are claimed per channel in a short transaction by pushing their next
+ * attempt out by a lease; only as many rows are claimed as the channel's pool can queue.
+ * A row whose worker dies before reporting back becomes due again once the lease runs
+ * out, so delivery is at least once. A send running past the channel's timeout is
+ * interrupted, and failed sends are retried with exponential backoff until
+ * {@code notification.outbox.max-attempts} is reached. Claimed rows that carry a summary
+ * are merged per recipient into a single digest message.
+ */
+@Component
+public class NotificationOutboxDispatcher {
+    private static final Logger logger =
+            LoggerFactory.getLogger(NotificationOutboxDispatcher.class);
+
+    private static final int SENDING = 0;
+    private static final int INTERRUPTING = 1;
+    private static final int INTERRUPTED = 2;
+    private static final int SENT = 3;
+
+    private static final String DIGEST_HEADER =
+            "📬 Here is what happened with your rentals:";
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final Map<NotificationChannel, ThreadPoolExecutor> workers = new LinkedHashMap<>();
+    private final ScheduledExecutorService timeouts =
+            Executors.newSingleThreadScheduledExecutor(
+                    new CustomizableThreadFactory("notification-timeout-"));
+
+    @Value("${notification.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notification.digest.max-items:20}")
+    private int digestMaxItems;
+
+    @Value("${notification.outbox.lease:300000}")
+    private long leaseMillis;
+
+    @Value("${notification.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${notification.outbox.backoff.initial:1000}")
+    private long initialBackoffMillis;
+
+    @Value("${notification.outbox.backoff.max:600000}")
+    private long maxBackoffMillis;
+
+    @Value("${notification.outbox.retention:604800000}")
+    private long retentionMillis;
+
+    public NotificationOutboxDispatcher(NotificationOutboxRepository outboxRepository,
+                                        List<NotificationChannel> channels,
+                                        PlatformTransactionManager transactionManager,
+                                        Clock clock,
+                                        @Value("${notification.outbox.workers:4}") int workers,
+                                        @Value("${notification.outbox.queue-capacity:100}")
+                                        int queueCapacity) {
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        for (NotificationChannel channel : channels) {
+            String threadPrefix = "notification-" + channel.type().name().toLowerCase() + "-";
+            this.workers.put(channel, new ThreadPoolExecutor(workers, workers,
+                    0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    new CustomizableThreadFactory(threadPrefix)));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval:1000}")
+    public void dispatch() {
+        workers.forEach((channel, channelWorkers) -> {
+            int capacity = Math.min(batchSize, channelWorkers.getQueue().remainingCapacity());
+            if (capacity == 0) {
+                return;
+            }
+            for (List<NotificationOutbox> batch : coalesce(claim(channel, capacity))) {
+                channelWorkers.execute(() -> deliver(channel, batch));
+            }
+        });
+    }
+
+    @Scheduled(cron = "${notification.outbox.cleanup-cron:0 30 3 * * *}")
+    public void deleteSent() {
+        LocalDateTime before = LocalDateTime.now(clock).minus(Duration.ofMillis(retentionMillis));
+        int deleted = outboxRepository.deleteSentBefore(before);
+        logger.info("Deleted {} sent notifications older than {}", deleted, before);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.values().forEach(ThreadPoolExecutor::shutdown);
+        timeouts.shutdown();
+    }
+
+    private List<NotificationOutbox> claim(NotificationChannel channel, int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now(clock);
+            List<NotificationOutbox> due = outboxRepository.findDueForUpdate(channel.type(),
+                    NotificationOutbox.Status.PENDING, now, Limit.of(limit));
+            LocalDateTime leaseUntil = now.plus(Duration.ofMillis(leaseMillis));
+            due.forEach(notification -> notification.setNextAttemptAt(leaseUntil));
+            return due;
+        });
+    }
+
+    /**
+     * Groups the claimed rows into what goes out as one message: rows with a summary are
+     * merged per recipient into digests of at most {@code notification.digest.max-items},
+     * every other row is sent on its own.
+     */
+    private List<List<NotificationOutbox>> coalesce(List<NotificationOutbox> claimed) {
+        List<List<NotificationOutbox>> batches = new ArrayList<>();
+        Map<String, List<NotificationOutbox>> digests = new LinkedHashMap<>();
+        for (NotificationOutbox notification : claimed) {
+            if (notification.getSummary() == null) {
+                batches.add(List.of(notification));
+                continue;
+            }
+            List<NotificationOutbox> digest = digests.computeIfAbsent(
+                    notification.getRecipient(), recipient -> new ArrayList<>());
+            digest.add(notification);
+            if (digest.size() == digestMaxItems) {
+                batches.add(digests.remove(notification.getRecipient()));
+            }
+        }
+        batches.addAll(digests.values());
+        return batches;
+    }
+
+    /**
+     * Sends the batch on the calling worker thread. A watchdog interrupts the thread if
+     * the send is still running when the channel's timeout expires. The state keeps it
+     * from firing once the send returned; if it already started, the worker waits until
+     * the interrupt was delivered and clears it, so the bookkeeping is never interrupted.
+     */
+    private void deliver(NotificationChannel channel, List<NotificationOutbox> batch) {
+        Thread worker = Thread.currentThread();
+        AtomicInteger state = new AtomicInteger(SENDING);
+        ScheduledFuture<?> watchdog = timeouts.schedule(() -> {
+            if (state.compareAndSet(SENDING, INTERRUPTING)) {
+                worker.interrupt();
+                state.set(INTERRUPTED);
+            }
+        }, channel.timeout().toMillis(), TimeUnit.MILLISECONDS);
+        RuntimeException failure = null;
+        try {
+            channel.send(batch.get(0).getRecipient(), formatMessage(batch));
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        watchdog.cancel(false);
+        if (!state.compareAndSet(SENDING, SENT)) {
+            while (state.get() != INTERRUPTED) {
+                Thread.onSpinWait();
+            }
+            Thread.interrupted();
+        }
+        if (failure == null) {
+            outboxRepository.markSent(
+                    batch.stream().map(NotificationOutbox::getId).toList(),
+                    LocalDateTime.now(clock));
+            return;
+        }
+        for (NotificationOutbox notification : batch) {
+            markFailed(notification, failure);
+        }
+    }
+
+    private String formatMessage(List<NotificationOutbox> batch) {
+        if (batch.size() == 1) {
+            return batch.get(0).getMessage();
+        }
+        StringBuilder sb = new StringBuilder(DIGEST_HEADER);
+        for (NotificationOutbox notification : batch) {
+            sb.append(System.lineSeparator())
+                    .append(notification.getSummary());
+        }
+        return sb.toString();
+    }
+
+    private void markFailed(NotificationOutbox notification, RuntimeException e) {
+        int attempts = notification.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            logger.error("Giving up on notification {} after {} attempts",
+                    notification.getId(), attempts, e);
+            outboxRepository.markAttemptFailed(notification.getId(),
+                    NotificationOutbox.Status.FAILED, attempts, LocalDateTime.now(clock));
+            return;
+        }
+        Duration backoff = backoff(attempts);
+        logger.warn("Failed to send notification {}, retrying in {}",
+                notification.getId(), backoff, e);
+        outboxRepository.markAttemptFailed(notification.getId(),
+                NotificationOutbox.Status.PENDING, attempts,
+                LocalDateTime.now(clock).plus(backoff));
+    }
+
+    private Duration backoff(int attempts) {
+        long millis = initialBackoffMillis << Math.min(attempts - 1, 30);
+        return Duration.ofMillis(Math.min(millis, maxBackoffMillis));
+    }
+}
@@ -0,0 +1,44 @@
+package com.carsharingapp.service.notification;
+
+import com.carsharingapp.model.NotificationChannelType;
+import com.carsharingapp.model.User;
+import com.carsharingapp.service.TelegramChatService;
+import com.carsharingapp.service.telegram.CarSharingBot;
+import java.time.Duration;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class TelegramNotificationChannel implements NotificationChannel {
+    private final CarSharingBot carSharingBot;
+    private final TelegramChatService telegramChatService;
+
+    @Value("${bot.chat}")
+    private String adminChatId;
+
+    @Value("${notification.channels.telegram.timeout:35000}")
+    private long timeout;
+
+    @Override
+    public NotificationChannelType type() {
+        return NotificationChannelType.TELEGRAM;
+    }
+
+    @Override
+    public Optional<String> resolveRecipient(User user) {
+        return telegramChatService.findChatId(user.getId());
+    }
+
+    @Override
+    public void send(String recipient, String message) {
+        carSharingBot.sendMessage(recipient != null ? recipient : adminChatId, message);
+    }
+
+    @Override
+    public Duration timeout() {
+        return Duration.ofMillis(timeout);
+    }
+}
@@ -0,0 +1,37 @@
+package com.carsharingapp.service.payment;
+
+import java.time.Clock;
+
+/**
+ * Consecutive failure circuit breaker. After {@code failureThreshold} failures in a row
+ * the circuit opens and rejects calls for {@code openMillis}; once that passes, calls
+ * are let through again but a single failure opens it anew, while a success closes it.
+ */
+public class CircuitBreaker {
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+    private int consecutiveFailures;
+    private long openUntil;
+
+    public CircuitBreaker(int failureThreshold, long openMillis, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    public synchronized boolean allowRequest() {
+        return clock.millis() >= openUntil;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (consecutiveFailures >= failureThreshold) {
+            openUntil = clock.millis() + openMillis;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.carsharingapp.service.payment;
+
+import com.carsharingapp.repository.payment.PaymentIdempotencyKeyRepository;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes payment idempotency keys once they are older than
+ * {@code payment.idempotency.retention}. Stripe forgets its idempotency keys after a day,
+ * so a key kept longer than that couldn't protect a retry anyway.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentIdempotencyKeyCleanupJob {
+    private static final Logger logger =
+            LoggerFactory.getLogger(PaymentIdempotencyKeyCleanupJob.class);
+
+    private final PaymentIdempotencyKeyRepository idempotencyKeyRepository;
+    private final Clock clock;
+
+    @Value("${payment.idempotency.retention:86400000}")
+    private long retentionMillis;
+
+    @Scheduled(fixedDelayString = "${payment.idempotency.cleanup-interval:3600000}")
+    public void purge() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(
+                LocalDateTime.now(clock).minus(retentionMillis, ChronoUnit.MILLIS));
+        if (deleted > 0) {
+            logger.info("Deleted {} expired payment idempotency keys", deleted);
+        }
+    }
+}
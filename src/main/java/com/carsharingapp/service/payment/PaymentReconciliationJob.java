@@ -0,0 +1,175 @@
+package com.carsharingapp.service.payment;
+
+import com.carsharingapp.dto.payment.PaymentSessionDto;
+import com.carsharingapp.model.Payment;
+import com.carsharingapp.repository.payment.PaymentRepository;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settles pending payments whose checkout session expired without the webhook ever
+ * reporting it, e.g. because the user abandoned the checkout while the application was
+ * down. Stale payments are read in keyset chunks, the sessions of a chunk are looked up
+ * in Stripe on a bounded pool, and the ones that ended are handed to the
+ * {@link PaymentStatusUpdater} as one batch. Consecutive lookup failures open a circuit
+ * breaker that ends the run, so an unreachable Stripe isn't hammered chunk after chunk;
+ * the next run picks up where the sessions were left.
+ */
+@Component
+public class PaymentReconciliationJob {
+    private static final Logger logger =
+            LoggerFactory.getLogger(PaymentReconciliationJob.class);
+    private static final String COMPLETE = "complete";
+    private static final String EXPIRED = "expired";
+    private static final List<String> PAID = List.of("paid", "no_payment_required");
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentStatusUpdater statusUpdater;
+    private final Clock clock;
+    private final RequestOptions requestOptions;
+    private final CircuitBreaker circuitBreaker;
+    private final ExecutorService lookups;
+    private final Counter resolved;
+    private final Counter unresolved;
+    private final Counter failed;
+
+    @Value("${payment.reconciliation.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${payment.reconciliation.grace:300000}")
+    private long graceMillis;
+
+    public PaymentReconciliationJob(
+            PaymentRepository paymentRepository,
+            PaymentStatusUpdater statusUpdater,
+            MeterRegistry meterRegistry,
+            Clock clock,
+            @Value("${stripe.secret-key}") String stripeKey,
+            @Value("${payment.reconciliation.parallelism:8}") int parallelism,
+            @Value("${payment.reconciliation.timeout:10000}") int timeoutMillis,
+            @Value("${payment.reconciliation.circuit.failure-threshold:5}")
+            int failureThreshold,
+            @Value("${payment.reconciliation.circuit.open:60000}") long openMillis) {
+        this.paymentRepository = paymentRepository;
+        this.statusUpdater = statusUpdater;
+        this.clock = clock;
+        this.requestOptions = RequestOptions.builder()
+                .setApiKey(stripeKey)
+                .setConnectTimeout(timeoutMillis)
+                .setReadTimeout(timeoutMillis)
+                .setMaxNetworkRetries(0)
+                .build();
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMillis, clock);
+        this.lookups = Executors.newFixedThreadPool(parallelism,
+                new CustomizableThreadFactory("payment-reconciliation-"));
+        this.resolved = lookupCounter(meterRegistry, "resolved");
+        this.unresolved = lookupCounter(meterRegistry, "unresolved");
+        this.failed = lookupCounter(meterRegistry, "failed");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookups.shutdownNow();
+    }
+
+    @Scheduled(cron = "${payment.reconciliation.cron:0 */10 * * * *}")
+    public void reconcile() {
+        LocalDateTime expiredBefore = LocalDateTime.now(clock)
+                .minus(graceMillis, ChronoUnit.MILLIS);
+        Long afterId = 0L;
+        int settled = 0;
+        List<PaymentSessionDto> chunk;
+        do {
+            if (!circuitBreaker.allowRequest()) {
+                logger.warn("Stripe lookups keep failing, payment reconciliation stopped "
+                        + "after payment {}", afterId);
+                break;
+            }
+            chunk = paymentRepository.findStalePendingSessionsAfter(expiredBefore, afterId,
+                    Limit.of(chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            settled += statusUpdater.apply(lookUp(chunk));
+            afterId = chunk.get(chunk.size() - 1).id();
+        } while (chunk.size() == chunkSize);
+        logger.info("Payment reconciliation finished, {} payments settled", settled);
+    }
+
+    private Map<String, Payment.PaymentStatus> lookUp(List<PaymentSessionDto> chunk) {
+        List<CompletableFuture<Payment.PaymentStatus>> statuses = chunk.stream()
+                .map(payment -> CompletableFuture.supplyAsync(
+                        () -> lookUp(payment.sessionId()), lookups))
+                .toList();
+        Map<String, Payment.PaymentStatus> ended = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Payment.PaymentStatus status = statuses.get(i).join();
+            if (status != null) {
+                ended.put(chunk.get(i).sessionId(), status);
+            }
+        }
+        return ended;
+    }
+
+    private Payment.PaymentStatus lookUp(String sessionId) {
+        if (!circuitBreaker.allowRequest()) {
+            return null;
+        }
+        Session session;
+        try {
+            session = Session.retrieve(sessionId, requestOptions);
+        } catch (InvalidRequestException e) {
+            circuitBreaker.onSuccess();
+            unresolved.increment();
+            logger.warn("Stripe rejected the lookup of session {}", sessionId, e);
+            return null;
+        } catch (StripeException e) {
+            circuitBreaker.onFailure();
+            failed.increment();
+            logger.warn("Failed to look up Stripe session {}", sessionId, e);
+            return null;
+        }
+        circuitBreaker.onSuccess();
+        Payment.PaymentStatus status = toPaymentStatus(session);
+        (status == null ? unresolved : resolved).increment();
+        return status;
+    }
+
+    private Payment.PaymentStatus toPaymentStatus(Session session) {
+        if (COMPLETE.equals(session.getStatus()) && PAID.contains(session.getPaymentStatus())) {
+            return Payment.PaymentStatus.PAID;
+        }
+        if (EXPIRED.equals(session.getStatus())) {
+            return Payment.PaymentStatus.CANCELED;
+        }
+        return null;
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("payment.reconciliation.lookups")
+                .description("Stripe session lookups of stale pending payments")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
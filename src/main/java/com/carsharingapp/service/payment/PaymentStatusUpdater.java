@@ -0,0 +1,76 @@
+package com.carsharingapp.service.payment;
+
+import com.carsharingapp.model.Payment;
+import com.carsharingapp.repository.payment.PaymentRepository;
+import com.carsharingapp.service.NotificationService;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves pending payments to the status their Stripe session ended in. The payments of a
+ * batch are locked together and updated with one UPDATE per status, keyed by session id,
+ * before their users are notified. Payments that are no longer pending are skipped, so
+ * a session reported twice, or completed through the success and cancel pages in the
+ * meantime, is neither updated nor notified again.
+ */
+@Component
+public class PaymentStatusUpdater {
+    private final PaymentRepository paymentRepository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+
+    public PaymentStatusUpdater(PaymentRepository paymentRepository,
+                                NotificationService notificationService,
+                                PlatformTransactionManager transactionManager) {
+        this.paymentRepository = paymentRepository;
+        this.notificationService = notificationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Applies the new statuses, keyed by session id, and returns how many payments moved.
+     */
+    public int apply(Map<String, Payment.PaymentStatus> statuses) {
+        if (statuses.isEmpty()) {
+            return 0;
+        }
+        Integer updated = transactionTemplate.execute(transaction -> {
+            List<Payment> pending = paymentRepository
+                    .findPendingBySessionIdsForUpdate(statuses.keySet());
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            // Loads rental, car and user of the locked payments in one query, so notifying
+            // their users below doesn't lazy-load them payment by payment
+            paymentRepository.findWithRentalByIdIn(
+                    pending.stream().map(Payment::getId).toList());
+            Map<Payment.PaymentStatus, List<Payment>> byStatus = pending.stream()
+                    .collect(Collectors.groupingBy(
+                            payment -> statuses.get(payment.getSessionId()),
+                            () -> new EnumMap<>(Payment.PaymentStatus.class),
+                            Collectors.toList()));
+            byStatus.forEach((status, payments) -> {
+                paymentRepository.updatePendingStatusBySessionIds(status,
+                        payments.stream().map(Payment::getSessionId).toList());
+                payments.forEach(payment -> notifyUser(payment, status));
+            });
+            return pending.size();
+        });
+        return updated == null ? 0 : updated;
+    }
+
+    private void notifyUser(Payment payment, Payment.PaymentStatus status) {
+        if (status == Payment.PaymentStatus.PAID) {
+            notificationService.notifyUserAboutSuccessfulPayment(payment,
+                    payment.getRental().getCar());
+        } else {
+            notificationService.notifyUserAboutCanceledPayment(payment,
+                    payment.getRental().getCar());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.carsharingapp.service.payment;
+
+import com.carsharingapp.exception.InvalidWebhookException;
+import com.carsharingapp.exception.WebhookQueueFullException;
+import com.carsharingapp.model.Payment;
+import com.stripe.exception.EventDataObjectDeserializationException;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.Webhook;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies Stripe checkout events to payments. Events are verified against the endpoint
+ * secret and queued, so the webhook is acknowledged without touching the database. A
+ * single worker drains the queue in batches and hands each batch to the
+ * {@link PaymentStatusUpdater}. Events still queued when the application stops are
+ * lost, as Stripe got its acknowledgement; {@link PaymentReconciliationJob} settles
+ * their payments once the sessions expire.
+ */
+@Component
+public class StripeWebhookProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(StripeWebhookProcessor.class);
+    private static final String SESSION_COMPLETED = "checkout.session.completed";
+    private static final String PAID = "paid";
+    private static final Map<String, Payment.PaymentStatus> STATUS_BY_EVENT = Map.of(
+            SESSION_COMPLETED, Payment.PaymentStatus.PAID,
+            "checkout.session.async_payment_succeeded", Payment.PaymentStatus.PAID,
+            "checkout.session.async_payment_failed", Payment.PaymentStatus.CANCELED,
+            "checkout.session.expired", Payment.PaymentStatus.CANCELED);
+
+    private final PaymentStatusUpdater statusUpdater;
+    private final String endpointSecret;
+    private final int batchSize;
+    private final BlockingQueue<StatusUpdate> queue;
+    private Thread workerThread;
+
+    public StripeWebhookProcessor(
+            PaymentStatusUpdater statusUpdater,
+            MeterRegistry meterRegistry,
+            @Value("${stripe.webhook.secret}") String endpointSecret,
+            @Value("${payment.webhook.queue-capacity:10000}") int queueCapacity,
+            @Value("${payment.webhook.batch-size:100}") int batchSize) {
+        this.statusUpdater = statusUpdater;
+        this.endpointSecret = endpointSecret;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("payment.webhook.queue.size", queue, BlockingQueue::size)
+                .description("Stripe events waiting to be applied")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        workerThread = new Thread(this::run, "stripe-webhook-worker");
+        workerThread.setDaemon(true);
+        workerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (workerThread != null) {
+            workerThread.interrupt();
+        }
+    }
+
+    /**
+     * Verifies the event and queues the status change it carries. Events that don't
+     * complete or end a checkout session are ignored.
+     *
+     * @throws InvalidWebhookException if the signature or the payload is invalid
+     * @throws WebhookQueueFullException if the queue is full, so Stripe retries later
+     */
+    public void accept(String payload, String signature) {
+        Event event = verify(payload, signature);
+        Payment.PaymentStatus status = STATUS_BY_EVENT.get(event.getType());
+        if (status == null) {
+            return;
+        }
+        Session session = toSession(event);
+        if (SESSION_COMPLETED.equals(event.getType())
+                && !PAID.equals(session.getPaymentStatus())) {
+            return;
+        }
+        if (!queue.offer(new StatusUpdate(session.getId(), status))) {
+            throw new WebhookQueueFullException("Stripe event queue is full, rejecting event "
+                    + event.getId());
+        }
+    }
+
+    private Event verify(String payload, String signature) {
+        if (signature == null) {
+            throw new InvalidWebhookException("Missing Stripe-Signature header", null);
+        }
+        try {
+            return Webhook.constructEvent(payload, signature, endpointSecret);
+        } catch (SignatureVerificationException e) {
+            throw new InvalidWebhookException("Invalid Stripe webhook", e);
+        }
+    }
+
+    private Session toSession(Event event) {
+        try {
+            return (Session) event.getDataObjectDeserializer().deserializeUnsafe();
+        } catch (EventDataObjectDeserializationException | ClassCastException e) {
+            throw new InvalidWebhookException("Unexpected object in Stripe event "
+                    + event.getId(), e);
+        }
+    }
+
+    private void run() {
+        List<StatusUpdate> batch = new ArrayList<>(batchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                try {
+                    apply(batch);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to apply {} Stripe events", batch.size(), e);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void apply(List<StatusUpdate> batch) {
+        Map<String, Payment.PaymentStatus> statuses = new LinkedHashMap<>();
+        for (StatusUpdate update : batch) {
+            statuses.put(update.sessionId(), update.status());
+        }
+        statusUpdater.apply(statuses);
+    }
+
+    private record StatusUpdate(String sessionId, Payment.PaymentStatus status) {
+    }
+}
@@ -0,0 +1,154 @@
+package com.carsharingapp.service.scheduler;
+
+import com.carsharingapp.dto.rental.RentalDeadlineDto;
+import com.carsharingapp.event.RentalEndedEvent;
+import com.carsharingapp.event.RentalStartedEvent;
+import com.carsharingapp.repository.rental.RentalRepository;
+import com.carsharingapp.service.NotificationService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Fires an overdue notification within a tick of a rental's return deadline. Deadlines
+ * live in a {@link TimingWheel} fed by rental events; on startup the wheel is refilled
+ * with the active rentals whose deadline is still ahead or passed within
+ * {@code rental.overdue.recovery-window}, so a restart doesn't swallow the deadlines that
+ * passed while the application was down. Those fire on the first tick; older ones are
+ * left to {@link OverdueRentalScanner}.
+ *
+ * <p>The wheel ticks on a thread of its own rather than on the shared scheduling pool,
+ * where a long reconciliation or cleanup run would hold back the deadlines by as long.
+ */
+@Component
+@ConditionalOnProperty(name = "rental.overdue.detector.enabled", havingValue = "true",
+        matchIfMissing = true)
+public class OverdueRentalDetector {
+    private static final Logger logger = LoggerFactory.getLogger(OverdueRentalDetector.class);
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_LEVELS = 4;
+    private static final int RECOVERY_CHUNK_SIZE = 1000;
+
+    private final RentalRepository rentalRepository;
+    private final NotificationService notificationService;
+    private final Clock clock;
+    private final Duration recoveryWindow;
+    private final long tickMillis;
+    private final TimingWheel<Long> wheel;
+    private final Timer firingLag;
+    private ScheduledExecutorService ticker;
+
+    public OverdueRentalDetector(RentalRepository rentalRepository,
+                                 NotificationService notificationService,
+                                 MeterRegistry meterRegistry,
+                                 Clock clock,
+                                 @Value("${rental.overdue.tick:1000}") long tickMillis,
+                                 @Value("${rental.overdue.recovery-window:3600000}")
+                                 long recoveryWindowMillis) {
+        this.rentalRepository = rentalRepository;
+        this.notificationService = notificationService;
+        this.clock = clock;
+        this.recoveryWindow = Duration.ofMillis(recoveryWindowMillis);
+        this.tickMillis = tickMillis;
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_BITS, WHEEL_LEVELS, clock.millis());
+        this.firingLag = Timer.builder("rental.overdue.firing.lag")
+                .description("Time between a rental's return deadline and its overdue event")
+                .register(meterRegistry);
+        Gauge.builder("rental.overdue.wheel.size", wheel, TimingWheel::size)
+                .description("Active rentals waiting for their return deadline")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("overdue-detector-"));
+        ticker.scheduleAtFixedRate(this::safeTick, tickMillis, tickMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        LocalDateTime since = LocalDateTime.now(clock).minus(recoveryWindow);
+        Long afterId = 0L;
+        List<RentalDeadlineDto> chunk;
+        do {
+            chunk = rentalRepository.findActiveDeadlinesAfter(since, afterId,
+                    Limit.of(RECOVERY_CHUNK_SIZE));
+            for (RentalDeadlineDto deadline : chunk) {
+                wheel.schedule(deadline.id(), toMillis(deadline.returnDateTime()));
+                afterId = deadline.id();
+            }
+        } while (chunk.size() == RECOVERY_CHUNK_SIZE);
+        logger.info("Overdue detector recovered {} active rentals", wheel.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRentalStarted(RentalStartedEvent event) {
+        wheel.schedule(event.rentalId(), toMillis(event.returnDateTime()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRentalEnded(RentalEndedEvent event) {
+        wheel.cancel(event.rentalId());
+    }
+
+    public void tick() {
+        long now = clock.millis();
+        for (TimingWheel.Expired<Long> expired : wheel.advance(now)) {
+            firingLag.record(Duration.ofMillis(Math.max(0, now - expired.deadlineMillis())));
+            try {
+                notifyOverdue(expired.key());
+            } catch (RuntimeException e) {
+                logger.error("Failed to notify about overdue rental {}", expired.key(), e);
+            }
+        }
+    }
+
+    /**
+     * An exception escaping a task cancels its further runs, so none is let through.
+     */
+    private void safeTick() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            logger.error("Overdue detector tick failed", e);
+        }
+    }
+
+    private void notifyOverdue(Long rentalId) {
+        rentalRepository.findWithCarAndUserById(rentalId)
+                .filter(rental -> rental.getActualReturnDate() == null)
+                .ifPresent(rental -> notificationService
+                        .sendScheduledOverdueRentalsNotification(Set.of(rental)));
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+}
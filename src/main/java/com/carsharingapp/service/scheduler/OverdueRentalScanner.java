@@ -0,0 +1,65 @@
+package com.carsharingapp.service.scheduler;
+
+import com.carsharingapp.model.Rental;
+import com.carsharingapp.repository.rental.RentalRepository;
+import com.carsharingapp.service.NotificationService;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds rentals that are past their return date and not returned yet, and notifies about
+ * them once per user. Rentals are read in keyset chunks so only one chunk is held in
+ * memory no matter how many rentals the table has.
+ */
+@Component
+@RequiredArgsConstructor
+public class OverdueRentalScanner {
+    private static final Logger logger = LoggerFactory.getLogger(OverdueRentalScanner.class);
+
+    private final RentalRepository rentalRepository;
+    private final NotificationService notificationService;
+
+    @Value("${rental.overdue.chunk-size:500}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${rental.overdue.cron:0 0 9 * * *}")
+    public void scan() {
+        LocalDateTime now = LocalDateTime.now();
+        Set<Rental> userRentals = new LinkedHashSet<>();
+        Long userId = 0L;
+        Long rentalId = 0L;
+        int users = 0;
+        List<Rental> chunk;
+        do {
+            chunk = rentalRepository.findOverdueAfter(now, userId, rentalId,
+                    Limit.of(chunkSize));
+            for (Rental rental : chunk) {
+                if (!rental.getUser().getId().equals(userId) && !userRentals.isEmpty()) {
+                    notificationService.sendScheduledOverdueRentalsNotification(userRentals);
+                    userRentals = new LinkedHashSet<>();
+                    users++;
+                }
+                userRentals.add(rental);
+                userId = rental.getUser().getId();
+                rentalId = rental.getId();
+            }
+        } while (chunk.size() == chunkSize);
+        if (!userRentals.isEmpty()) {
+            notificationService.sendScheduledOverdueRentalsNotification(userRentals);
+            users++;
+        }
+        if (users == 0) {
+            notificationService.notifyUserAboutNoOverdueRentals();
+        }
+        logger.info("Overdue rental scan finished, {} users notified", users);
+    }
+}
@@ -0,0 +1,141 @@
+package com.carsharingapp.service.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel keyed by {@code K}. Level 0 has one slot per tick, every next
+ * level one slot per full turn of the level below, so adding and cancelling a deadline
+ * are O(1) and only the slots that come due are ever looked at. When a higher level slot
+ * comes due its entries are cascaded down to the level matching their remaining time.
+ * Deadlines beyond the top level are parked in its furthest slot and placed again on
+ * every cascade until they fit.
+ */
+public class TimingWheel<K> {
+    private final long tickMillis;
+    private final int wheelBits;
+    private final int levels;
+    private final List<List<Set<K>>> wheels;
+    private final Map<K, Entry> entries = new HashMap<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int wheelBits, int levels, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelBits = wheelBits;
+        this.levels = levels;
+        this.wheels = new ArrayList<>(levels);
+        for (int level = 0; level < levels; level++) {
+            List<Set<K>> slots = new ArrayList<>(1 << wheelBits);
+            for (int slot = 0; slot < 1 << wheelBits; slot++) {
+                slots.add(new LinkedHashSet<>());
+            }
+            wheels.add(slots);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Adds or moves the deadline of {@code key}. Deadlines that already passed expire on
+     * the next {@link #advance(long)}.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        Entry entry = new Entry(key, deadlineMillis,
+                Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1));
+        entries.put(key, entry);
+        place(entry);
+    }
+
+    public synchronized boolean cancel(K key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        wheels.get(entry.level).get(entry.slot).remove(key);
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Moves the wheel up to {@code nowMillis} and returns the entries that came due, in
+     * deadline tick order.
+     */
+    public synchronized List<Expired<K>> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<Expired<K>> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = 1; level < levels && isTurnOf(level); level++) {
+                cascade(level, slotOf(currentTick, level));
+            }
+            Set<K> due = wheels.get(0).get(slotOf(currentTick, 0));
+            for (K key : due) {
+                Entry entry = entries.remove(key);
+                expired.add(new Expired<>(key, entry.deadlineMillis));
+            }
+            due.clear();
+        }
+        return expired;
+    }
+
+    private void cascade(int level, int slot) {
+        Set<K> bucket = wheels.get(level).get(slot);
+        List<K> keys = new ArrayList<>(bucket);
+        bucket.clear();
+        for (K key : keys) {
+            place(entries.get(key));
+        }
+    }
+
+    private void place(Entry entry) {
+        long ticks = entry.deadlineTick - currentTick;
+        int level = 0;
+        while (level < levels - 1 && ticks >= 1L << (wheelBits * (level + 1))) {
+            level++;
+        }
+        long tick = entry.deadlineTick;
+        long reach = currentTick + (1L << (wheelBits * (level + 1))) - 1;
+        if (level == levels - 1 && tick > reach) {
+            tick = reach;
+        }
+        entry.level = level;
+        entry.slot = slotOf(tick, level);
+        wheels.get(level).get(entry.slot).add(entry.key);
+    }
+
+    private boolean isTurnOf(int level) {
+        return (currentTick & ((1L << (wheelBits * level)) - 1)) == 0;
+    }
+
+    private int slotOf(long tick, int level) {
+        return (int) ((tick >>> (wheelBits * level)) & ((1L << wheelBits) - 1));
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    public record Expired<K>(K key, long deadlineMillis) {
+    }
+
+    private final class Entry {
+        private final K key;
+        private final long deadlineMillis;
+        private final long deadlineTick;
+        private int level;
+        private int slot;
+
+        private Entry(K key, long deadlineMillis, long deadlineTick) {
+            this.key = key;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
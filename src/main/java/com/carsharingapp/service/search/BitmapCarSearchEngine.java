@@ -0,0 +1,110 @@
+package com.carsharingapp.service.search;
+
+import com.carsharingapp.dto.car.CarFilterDto;
+import com.carsharingapp.dto.car.CarResponseDto;
+import com.carsharingapp.event.CarChangedEvent;
+import com.carsharingapp.mapper.car.CarMapper;
+import com.carsharingapp.model.Car;
+import com.carsharingapp.repository.car.CarRepository;
+import com.carsharingapp.service.inventory.CarInventoryService;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Answers car searches from a {@link CarBitmapIndex} kept in sync through
+ * {@link CarChangedEvent}s. Changes arriving before the index is loaded, including while
+ * the catalog snapshot is being read, are only recorded, and the cars they name are read
+ * again once the snapshot is in, so a change committed during the load isn't overwritten
+ * by the older snapshot. Re-reading a car and writing it to the index happen under a lock
+ * striped by car id, so two listeners for the same car can't write their reads out of order
+ * and leave the older one in the index.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "car.search.engine", havingValue = "bitmap")
+public class BitmapCarSearchEngine implements CarSearchEngine {
+    private static final Logger logger = LoggerFactory.getLogger(BitmapCarSearchEngine.class);
+    private static final int LOCK_STRIPES = 64;
+
+    private final CarRepository carRepository;
+    private final CarMapper carMapper;
+    private final CarInventoryService carInventoryService;
+    private final CarBitmapIndex carBitmapIndex = new CarBitmapIndex();
+    private final Set<Long> changedWhileLoading = ConcurrentHashMap.newKeySet();
+    private final Object[] carLocks = createLocks();
+    private volatile boolean loaded;
+
+    @Override
+    public List<CarResponseDto> search(CarFilterDto carFilterDto) {
+        if (!loaded) {
+            load();
+        }
+        return carMapper.toDtoList(carBitmapIndex.search(carFilterDto));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        List<Car> cars = carRepository.findAll();
+        carInventoryService.loadInventory(cars);
+        carBitmapIndex.reload(cars);
+        loaded = true;
+        replayChanges();
+        logger.info("Car search index loaded with {} cars", carBitmapIndex.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCarChanged(CarChangedEvent event) {
+        if (loaded) {
+            apply(event.carId());
+            return;
+        }
+        changedWhileLoading.add(event.carId());
+        // The load may have drained the changes between the check and the add
+        if (loaded) {
+            replayChanges();
+        }
+    }
+
+    private void replayChanges() {
+        for (Long carId : changedWhileLoading) {
+            if (changedWhileLoading.remove(carId)) {
+                apply(carId);
+            }
+        }
+    }
+
+    private void apply(Long carId) {
+        synchronized (carLocks[Math.floorMod(carId.hashCode(), LOCK_STRIPES)]) {
+            carRepository.findById(carId).ifPresentOrElse(
+                    car -> {
+                        carInventoryService.loadInventory(List.of(car));
+                        carBitmapIndex.put(car);
+                    },
+                    () -> carBitmapIndex.remove(carId)
+            );
+        }
+    }
+
+    private static Object[] createLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,285 @@
+package com.carsharingapp.service.search;
+
+import com.carsharingapp.dto.car.CarFilterDto;
+import com.carsharingapp.exception.InvalidCarFilterException;
+import com.carsharingapp.model.Car;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * In-memory index over the car catalog. Every car gets a slot number; brand, model and
+ * body type are kept as one bitset per value, daily fee and inventory as slot arrays
+ * sorted by value, so a filter becomes a handful of bitset ORs and ANDs. The sorted arrays
+ * are built once on reload; a changed car is moved to its new position by binary search.
+ */
+public class CarBitmapIndex {
+    private static final Comparator<Car> BY_DAILY_FEE = Comparator.comparing(Car::getDailyFee);
+    private static final Comparator<Car> BY_INVENTORY =
+            Comparator.comparing(Car::getAvailableInventory);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotsByCarId = new HashMap<>();
+    private final List<Car> cars = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private final Map<String, BitSet> brands = new HashMap<>();
+    private final Map<String, BitSet> models = new HashMap<>();
+    private final Map<Car.CarBodyType, BitSet> bodyTypes = new EnumMap<>(Car.CarBodyType.class);
+    private int[] slotsByDailyFee = new int[0];
+    private int[] slotsByInventory = new int[0];
+
+    public void reload(Collection<Car> allCars) {
+        lock.writeLock().lock();
+        try {
+            slotsByCarId.clear();
+            cars.clear();
+            freeSlots.clear();
+            live.clear();
+            brands.clear();
+            models.clear();
+            bodyTypes.clear();
+            allCars.forEach(this::add);
+            slotsByDailyFee = sortedSlots(BY_DAILY_FEE);
+            slotsByInventory = sortedSlots(BY_INVENTORY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Car car) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(car.getId());
+            int slot = add(car);
+            slotsByDailyFee = insertSorted(slotsByDailyFee, slot, BY_DAILY_FEE);
+            slotsByInventory = insertSorted(slotsByInventory, slot, BY_INVENTORY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long carId) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(carId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsByCarId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Car> search(CarFilterDto filter) {
+        lock.readLock().lock();
+        try {
+            return searchLocked(filter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Car> searchLocked(CarFilterDto filter) {
+        BitSet result = (BitSet) live.clone();
+        if (isPresent(filter.brands())) {
+            result.and(union(brands, filter.brands(), CarBitmapIndex::normalize));
+        }
+        if (isPresent(filter.models())) {
+            result.and(union(models, filter.models(), CarBitmapIndex::normalize));
+        }
+        if (isPresent(filter.carBodyTypes())) {
+            result.and(union(bodyTypes, filter.carBodyTypes(), CarBitmapIndex::toBodyType));
+        }
+        if (isPresent(filter.dailyFees())) {
+            BigDecimal maxFee = toDailyFee(filter.dailyFees()[0]);
+            result.and(atMost(slotsByDailyFee,
+                    slot -> cars.get(slot).getDailyFee().compareTo(maxFee) <= 0));
+        }
+        if (isPresent(filter.inventories())) {
+            int maxInventory = toInventory(filter.inventories()[0]);
+            result.and(atMost(slotsByInventory,
+                    slot -> cars.get(slot).getAvailableInventory() <= maxInventory));
+        }
+        List<Car> found = new ArrayList<>(result.cardinality());
+        result.stream().forEach(slot -> found.add(cars.get(slot)));
+        found.sort(Comparator.comparing(Car::getId));
+        return found;
+    }
+
+    private int add(Car car) {
+        int slot = freeSlots.isEmpty() ? cars.size() : freeSlots.pop();
+        if (slot == cars.size()) {
+            cars.add(car);
+        } else {
+            cars.set(slot, car);
+        }
+        slotsByCarId.put(car.getId(), slot);
+        live.set(slot);
+        brands.computeIfAbsent(normalize(car.getBrand()), key -> new BitSet()).set(slot);
+        models.computeIfAbsent(normalize(car.getModel()), key -> new BitSet()).set(slot);
+        bodyTypes.computeIfAbsent(car.getCarBodyType(), key -> new BitSet()).set(slot);
+        return slot;
+    }
+
+    private void removeSlot(Long carId) {
+        Integer slot = slotsByCarId.remove(carId);
+        if (slot == null) {
+            return;
+        }
+        slotsByDailyFee = removeSorted(slotsByDailyFee, slot, BY_DAILY_FEE);
+        slotsByInventory = removeSorted(slotsByInventory, slot, BY_INVENTORY);
+        Car car = cars.get(slot);
+        clearBit(brands, normalize(car.getBrand()), slot);
+        clearBit(models, normalize(car.getModel()), slot);
+        clearBit(bodyTypes, car.getCarBodyType(), slot);
+        live.clear(slot);
+        cars.set(slot, null);
+        freeSlots.push(slot);
+    }
+
+    private int[] sortedSlots(Comparator<Car> comparator) {
+        return live.stream()
+                .boxed()
+                .sorted(Comparator.comparing(cars::get, comparator))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private int[] insertSorted(int[] sortedSlots, int slot, Comparator<Car> comparator) {
+        int index = -indexOf(sortedSlots, slot, comparator) - 1;
+        int[] inserted = new int[sortedSlots.length + 1];
+        System.arraycopy(sortedSlots, 0, inserted, 0, index);
+        inserted[index] = slot;
+        System.arraycopy(sortedSlots, index, inserted, index + 1, sortedSlots.length - index);
+        return inserted;
+    }
+
+    private int[] removeSorted(int[] sortedSlots, int slot, Comparator<Car> comparator) {
+        int index = indexOf(sortedSlots, slot, comparator);
+        int[] removed = new int[sortedSlots.length - 1];
+        System.arraycopy(sortedSlots, 0, removed, 0, index);
+        System.arraycopy(sortedSlots, index + 1, removed, index, removed.length - index);
+        return removed;
+    }
+
+    /**
+     * Binary search for the position of a slot, with equal values ordered by slot number
+     * as the stable sort on reload leaves them. Returns {@code -(insertion point) - 1} for
+     * a slot that is not in the array.
+     */
+    private int indexOf(int[] sortedSlots, int slot, Comparator<Car> comparator) {
+        Car car = cars.get(slot);
+        int low = 0;
+        int high = sortedSlots.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = comparator.compare(cars.get(sortedSlots[middle]), car);
+            if (comparison == 0) {
+                comparison = Integer.compare(sortedSlots[middle], slot);
+            }
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Slots are sorted by the column value, so the matching ones form a prefix whose end
+     * is found by binary search.
+     */
+    private BitSet atMost(int[] sortedSlots, IntPredicate matches) {
+        int low = 0;
+        int high = sortedSlots.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (matches.test(sortedSlots[middle])) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        BitSet bits = new BitSet();
+        Arrays.stream(sortedSlots, 0, low).forEach(bits::set);
+        return bits;
+    }
+
+    private <K> BitSet union(Map<K, BitSet> bitmaps, String[] values,
+                             Function<String, K> toKey) {
+        BitSet bits = new BitSet();
+        for (String value : values) {
+            BitSet matching = bitmaps.get(toKey.apply(value));
+            if (matching != null) {
+                bits.or(matching);
+            }
+        }
+        return bits;
+    }
+
+    private <K> void clearBit(Map<K, BitSet> bitmaps, K key, int slot) {
+        BitSet bits = bitmaps.get(key);
+        if (bits != null) {
+            bits.clear(slot);
+            if (bits.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private static boolean isPresent(String[] values) {
+        return values != null && values.length > 0;
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static BigDecimal toDailyFee(String value) {
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidCarFilterException("Invalid daily fee: " + value);
+        }
+    }
+
+    private static int toInventory(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidCarFilterException("Invalid inventory: " + value);
+        }
+    }
+
+    private static Car.CarBodyType toBodyType(String value) {
+        try {
+            return Car.CarBodyType.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
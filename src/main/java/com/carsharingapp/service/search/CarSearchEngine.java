@@ -0,0 +1,9 @@
+package com.carsharingapp.service.search;
+
+import com.carsharingapp.dto.car.CarFilterDto;
+import com.carsharingapp.dto.car.CarResponseDto;
+import java.util.List;
+
+public interface CarSearchEngine {
+    List<CarResponseDto> search(CarFilterDto carFilterDto);
+}
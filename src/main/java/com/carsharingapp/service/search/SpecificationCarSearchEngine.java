@@ -0,0 +1,34 @@
+package com.carsharingapp.service.search;
+
+import com.carsharingapp.dto.car.CarFilterDto;
+import com.carsharingapp.dto.car.CarResponseDto;
+import com.carsharingapp.mapper.car.CarMapper;
+import com.carsharingapp.model.Car;
+import com.carsharingapp.repository.car.CarRepository;
+import com.carsharingapp.repository.spec.CarSpecificationBuilder;
+import com.carsharingapp.service.inventory.CarInventoryService;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "car.search.engine", havingValue = "specification",
+        matchIfMissing = true)
+public class SpecificationCarSearchEngine implements CarSearchEngine {
+    private final CarRepository carRepository;
+    private final CarMapper carMapper;
+    private final CarSpecificationBuilder carSpecificationBuilder;
+    private final CarInventoryService carInventoryService;
+
+    @Override
+    public List<CarResponseDto> search(CarFilterDto carFilterDto) {
+        Specification<Car> build = carSpecificationBuilder
+                .build(carFilterDto);
+        List<Car> cars = carRepository.findAll(build);
+        carInventoryService.loadInventory(cars);
+        return carMapper.toDtoList(cars);
+    }
+}
@@ -1,8 +1,10 @@
 package com.carsharingapp.service.telegram;
 
 import com.carsharingapp.exception.TelegramBotSendMessageException;
-import java.util.HashSet;
-import java.util.Set;
+import com.carsharingapp.service.TelegramChatService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,13 +13,15 @@ import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
 @Component
 @RequiredArgsConstructor
 public class CarSharingBot extends TelegramLongPollingBot {
 
     private static final Logger logger = LoggerFactory.getLogger(CarSharingBot.class);
+    private static final String START_COMMAND = "/start";
+    private static final String EXPIRED_LINK_MESSAGE =
+            "⌛ This link has expired. Please request a new one in the app.";
 
     @Value("${telegram.bot.username}")
     private String botName;
@@ -25,26 +29,30 @@ public class CarSharingBot extends TelegramLongPollingBot {
     @Value("${bot.token}")
     private String token;
 
-    private final Set<String> activeChatIds = new HashSet<>();
+    @Value("${telegram.send.timeout:30000}")
+    private long sendTimeout;
+
+    private final TelegramSendScheduler sendScheduler;
+
+    private final TelegramChatService telegramChatService;
 
     @Override
     public void onUpdateReceived(Update update) {
         if (update.hasMessage() && update.getMessage().hasText()) {
             String chatId = String.valueOf(update.getMessage().getChatId());
-            addChatId(chatId);
-
             String messageText = update.getMessage().getText();
-            if (messageText.equals("/start")) {
-                sendOnStartCommand(update.getMessage().getChat().getFirstName());
+            if (messageText.startsWith(START_COMMAND)) {
+                String linkToken = messageText.substring(START_COMMAND.length()).trim();
+                if (!linkToken.isEmpty() && !telegramChatService.linkChat(linkToken, chatId)) {
+                    sendMessage(chatId, EXPIRED_LINK_MESSAGE);
+                    return;
+                }
+                sendOnStartCommand(chatId, update.getMessage().getChat().getFirstName());
             }
         }
     }
 
-    private void addChatId(String chatId) {
-        activeChatIds.add(chatId);
-    }
-
-    private void sendOnStartCommand(String name) {
+    private void sendOnStartCommand(String chatId, String name) {
         String message = """
                 Hi, %s! 🌟 Welcome aboard! We're excited to have you here! 😄
                                  
@@ -57,27 +65,23 @@ public class CarSharingBot extends TelegramLongPollingBot {
                 We wish you a fantastic journey ahead! 🌍 Enjoy your trip!
                 """.formatted(name);
         logger.info("Sending start command message to {}: {}", name, message);
-        sendMessage(message);
+        sendMessage(chatId, message);
     }
 
-    public void sendMessage(String text) {
-        String chatId = getChatId();
+    public void sendMessage(String chatId, String text) {
         SendMessage message = new SendMessage(chatId, text);
         try {
-            execute(message);
+            sendScheduler.submit(message).get(sendTimeout, TimeUnit.MILLISECONDS);
             logger.info("Message sent successfully to chat ID {}: {}", chatId, text);
-        } catch (TelegramApiException e) {
+        } catch (ExecutionException | TimeoutException e) {
             logger.error("Failed to send message to chat ID {}: {}", chatId, text, e);
             throw new TelegramBotSendMessageException("Failed to send a message: " + text, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TelegramBotSendMessageException("Failed to send a message: " + text, e);
         }
     }
 
-    private String getChatId() {
-        return activeChatIds.stream()
-                .findFirst()
-                .orElseThrow(null);
-    }
-
     @Override
     public String getBotUsername() {
         return botName;
@@ -0,0 +1,350 @@
+package com.carsharingapp.service.telegram;
+
+import com.carsharingapp.exception.TelegramBotSendMessageException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+/**
+ * Paces outgoing messages to Telegram's documented limits: a global token bucket for
+ * the bot as a whole, and one bucket per chat allowing a message per second in private
+ * chats and twenty per minute in groups. Messages wait in per-chat FIFO queues sharing a
+ * bounded capacity; a single scheduling thread round-robins over the chats whose bucket
+ * has a token, so one busy chat never holds up the others, and hands each message to a
+ * bounded pool of sender threads, so slow HTTP calls overlap up to the global rate. A chat
+ * has at most one message in flight, which keeps its messages in order. A 429 answer
+ * pauses all sending for the {@code retry_after} Telegram asks for and puts the message
+ * back at the head of its chat queue.
+ *
+ * <p>The bot's HTTP client keeps only two connections to Telegram, so every sender thread
+ * sends through a client of its own built from the bot's options and token.
+ */
+@Component
+public class TelegramSendScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(TelegramSendScheduler.class);
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final ObjectProvider<AbsSender> senderProvider;
+    private final double chatRatePerSecond;
+    private final double groupChatRatePerSecond;
+    private final int queueCapacity;
+    private final int senders;
+    private final ExecutorService sendPool;
+    private final ThreadLocal<AbsSender> threadSenders =
+            ThreadLocal.withInitial(this::createThreadSender);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, ChatQueue> chats = new LinkedHashMap<>();
+    private final TokenBucket globalBucket;
+    private final Timer sendLatency;
+    private final Counter throttled;
+    private int queued;
+    private int inFlight;
+    private long pausedUntilNanos = System.nanoTime();
+    private Thread schedulerThread;
+
+    public TelegramSendScheduler(
+            ObjectProvider<AbsSender> senderProvider,
+            MeterRegistry meterRegistry,
+            @Value("${telegram.send.global-rate:30}") double globalRatePerSecond,
+            @Value("${telegram.send.chat-rate:1}") double chatRatePerSecond,
+            @Value("${telegram.send.group-chat-rate-per-minute:20}") double groupChatPerMinute,
+            @Value("${telegram.send.queue-capacity:1000}") int queueCapacity,
+            @Value("${telegram.send.senders:8}") int senders) {
+        this.senderProvider = senderProvider;
+        this.chatRatePerSecond = chatRatePerSecond;
+        this.groupChatRatePerSecond = groupChatPerMinute / 60;
+        this.queueCapacity = queueCapacity;
+        this.senders = senders;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("telegram-sender-");
+        threadFactory.setDaemon(true);
+        this.sendPool = Executors.newFixedThreadPool(senders, threadFactory);
+        this.globalBucket = new TokenBucket(globalRatePerSecond, globalRatePerSecond);
+        this.sendLatency = Timer.builder("telegram.send.latency")
+                .description("Time from queueing a Telegram message until it is delivered")
+                .register(meterRegistry);
+        this.throttled = Counter.builder("telegram.send.throttled")
+                .description("Telegram answers asking to retry later")
+                .register(meterRegistry);
+        Gauge.builder("telegram.send.queue.size", this, TelegramSendScheduler::queueSize)
+                .description("Telegram messages waiting to be sent")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        schedulerThread = new Thread(this::run, "telegram-scheduler");
+        schedulerThread.setDaemon(true);
+        schedulerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        schedulerThread.interrupt();
+        sendPool.shutdownNow();
+    }
+
+    /**
+     * Queues the message for sending. The returned future completes once Telegram
+     * accepted it, or exceptionally if Telegram rejected it.
+     *
+     * @throws TelegramBotSendMessageException if the queue is full
+     */
+    public CompletableFuture<Message> submit(SendMessage message) {
+        PendingMessage pending = new PendingMessage(message, System.nanoTime());
+        lock.lock();
+        try {
+            if (queued >= queueCapacity) {
+                throw new TelegramBotSendMessageException(
+                        "Telegram send queue is full, dropping message for chat "
+                                + message.getChatId(), null);
+            }
+            chats.computeIfAbsent(message.getChatId(), this::createChatQueue)
+                    .messages.addLast(pending);
+            queued++;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        return pending.future;
+    }
+
+    public int queueSize() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                PendingMessage next = takeNext();
+                sendPool.execute(() -> send(next));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private PendingMessage takeNext() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long waitNanos = pausedUntilNanos - now;
+                if (waitNanos <= 0 && queued > 0 && inFlight < senders) {
+                    waitNanos = globalBucket.nanosUntilAvailable(now);
+                    if (waitNanos == 0) {
+                        PendingMessage next = pollReadyChat(now);
+                        if (next != null) {
+                            return next;
+                        }
+                        waitNanos = nanosUntilAnyChatReady(now);
+                    }
+                }
+                if (queued == 0 || inFlight >= senders) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(waitNanos);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PendingMessage pollReadyChat(long now) {
+        Iterator<Map.Entry<String, ChatQueue>> iterator = chats.entrySet().iterator();
+        while (iterator.hasNext()) {
+            ChatQueue chat = iterator.next().getValue();
+            if (chat.sending) {
+                continue;
+            }
+            if (chat.messages.isEmpty()) {
+                if (chat.bucket.isFull(now)) {
+                    iterator.remove();
+                }
+                continue;
+            }
+            if (chat.bucket.tryAcquire(now)) {
+                globalBucket.tryAcquire(now);
+                iterator.remove();
+                chats.put(chat.chatId, chat);
+                chat.sending = true;
+                inFlight++;
+                queued--;
+                return chat.messages.pollFirst();
+            }
+        }
+        return null;
+    }
+
+    private long nanosUntilAnyChatReady(long now) {
+        long waitNanos = Long.MAX_VALUE;
+        for (ChatQueue chat : chats.values()) {
+            if (!chat.sending && !chat.messages.isEmpty()) {
+                waitNanos = Math.min(waitNanos, chat.bucket.nanosUntilAvailable(now));
+            }
+        }
+        return Math.max(waitNanos, 1);
+    }
+
+    private void send(PendingMessage pending) {
+        try {
+            Message sent = threadSenders.get().execute(pending.message);
+            sendLatency.record(System.nanoTime() - pending.queuedAtNanos, TimeUnit.NANOSECONDS);
+            finish(pending, false, 0);
+            pending.future.complete(sent);
+        } catch (TelegramApiRequestException e) {
+            if (!isThrottled(e)) {
+                finish(pending, false, 0);
+                pending.future.completeExceptionally(e);
+                return;
+            }
+            int retryAfter = e.getParameters().getRetryAfter();
+            logger.warn("Telegram asked to retry after {}s, pausing sends", retryAfter);
+            throttled.increment();
+            finish(pending, true, TimeUnit.SECONDS.toNanos(retryAfter));
+        } catch (TelegramApiException | RuntimeException e) {
+            finish(pending, false, 0);
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private boolean isThrottled(TelegramApiRequestException e) {
+        return e.getErrorCode() != null && e.getErrorCode() == TOO_MANY_REQUESTS
+                && e.getParameters() != null && e.getParameters().getRetryAfter() != null;
+    }
+
+    /**
+     * Frees the message's chat and sender slot, putting the message back at the head of
+     * its chat queue and pausing all sending if Telegram asked to retry later.
+     */
+    private void finish(PendingMessage pending, boolean requeue, long pauseNanos) {
+        lock.lock();
+        try {
+            ChatQueue chat = chats.computeIfAbsent(pending.message.getChatId(),
+                    this::createChatQueue);
+            chat.sending = false;
+            inFlight--;
+            if (requeue) {
+                pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + pauseNanos);
+                chat.messages.addFirst(pending);
+                queued++;
+            }
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private AbsSender createThreadSender() {
+        AbsSender sender = senderProvider.getObject();
+        if (!(sender instanceof DefaultAbsSender bot)) {
+            return sender;
+        }
+        return new DefaultAbsSender(bot.getOptions()) {
+            @Override
+            public String getBotToken() {
+                return bot.getBotToken();
+            }
+        };
+    }
+
+    private ChatQueue createChatQueue(String chatId) {
+        TokenBucket bucket = chatId.startsWith("-")
+                ? new TokenBucket(1, groupChatRatePerSecond)
+                : new TokenBucket(1, chatRatePerSecond);
+        return new ChatQueue(chatId, bucket);
+    }
+
+    private static final class PendingMessage {
+        private final SendMessage message;
+        private final long queuedAtNanos;
+        private final CompletableFuture<Message> future = new CompletableFuture<>();
+
+        private PendingMessage(SendMessage message, long queuedAtNanos) {
+            this.message = message;
+            this.queuedAtNanos = queuedAtNanos;
+        }
+    }
+
+    private static final class ChatQueue {
+        private final String chatId;
+        private final TokenBucket bucket;
+        private final Deque<PendingMessage> messages = new ArrayDeque<>();
+        private boolean sending;
+
+        private ChatQueue(String chatId, TokenBucket bucket) {
+            this.chatId = chatId;
+            this.bucket = bucket;
+        }
+    }
+
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAtNanos;
+
+        private TokenBucket(double capacity, double tokensPerSecond) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+            this.refilledAtNanos = System.nanoTime();
+        }
+
+        private boolean tryAcquire(long now) {
+            refill(now);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        private long nanosUntilAvailable(long now) {
+            refill(now);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        private boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAtNanos) * tokensPerNano);
+            refilledAtNanos = now;
+        }
+    }
+}
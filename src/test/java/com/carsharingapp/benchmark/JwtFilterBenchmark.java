@@ -0,0 +1,125 @@
+package com.carsharingapp.benchmark;
+
+import com.carsharingapp.repository.token.RevokedTokenRepository;
+import com.carsharingapp.security.HmacJwtKeyProvider;
+import com.carsharingapp.security.JwtAuthenticationFilter;
+import com.carsharingapp.security.JwtUtil;
+import com.carsharingapp.security.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares the cost of turning a bearer token into an authentication. {@code legacy}
+ * verifies the token twice like the filter used to, {@code singleParse} runs the filter
+ * with the verified-token cache switched off and {@code cached} with it on. All variants
+ * use the stateless principal so no user lookup is involved, and check the token against
+ * an empty revocation filter.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.carsharingapp.benchmark.JwtFilterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+    private static final String SECRET = "01234567890123456789012345678901234567890123456789";
+
+    private String token;
+    private JwtParser legacyParser;
+    private JwtUtil uncachedJwtUtil;
+    private JwtAuthenticationFilter uncachedFilter;
+    private JwtAuthenticationFilter cachedFilter;
+    private TokenRevocationService tokenRevocationService;
+
+    @Setup
+    public void setUp() {
+        tokenRevocationService = new TokenRevocationService(
+                Mockito.mock(RevokedTokenRepository.class), Clock.systemUTC(),
+                new SimpleMeterRegistry(), 100000, 0.001);
+        tokenRevocationService.rebuild();
+        JwtUtil cachedJwtUtil = createJwtUtil(10000);
+        uncachedJwtUtil = createJwtUtil(0);
+        token = cachedJwtUtil.generateToken(1L, "user@example.com",
+                List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+        legacyParser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        uncachedFilter = createFilter(uncachedJwtUtil);
+        cachedFilter = createFilter(cachedJwtUtil);
+    }
+
+    @Benchmark
+    public Object legacy() {
+        legacyParser.parse(token);
+        Claims claims = legacyParser.parseSignedClaims(token).getPayload();
+        return uncachedJwtUtil.getPrincipal(claims);
+    }
+
+    @Benchmark
+    public Object singleParse() throws Exception {
+        return authenticate(uncachedFilter);
+    }
+
+    @Benchmark
+    public Object cached() throws Exception {
+        return authenticate(cachedFilter);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private Object authenticate(JwtAuthenticationFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    private JwtUtil createJwtUtil(long cacheMaximumSize) {
+        JwtUtil jwtUtil = new JwtUtil(new HmacJwtKeyProvider(SECRET), cacheMaximumSize);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", TimeUnit.HOURS.toMillis(1));
+        return jwtUtil;
+    }
+
+    private JwtAuthenticationFilter createFilter(JwtUtil jwtUtil) {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(null, jwtUtil,
+                tokenRevocationService);
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", true);
+        return filter;
+    }
+}
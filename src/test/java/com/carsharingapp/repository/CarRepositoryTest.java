@@ -0,0 +1,165 @@
+package com.carsharingapp.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.carsharingapp.model.Car;
+import com.carsharingapp.model.Rental;
+import com.carsharingapp.model.User;
+import com.carsharingapp.repository.car.CarRepository;
+import com.carsharingapp.repository.rental.RentalRepository;
+import com.carsharingapp.repository.user.UserRepository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CarRepositoryTest {
+    private static final int INVENTORY = 5;
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS = 200;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        rentalRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        carRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Concurrent rentals never take inventory below zero")
+    void decreaseInventory_ConcurrentCalls_ShouldNeverOversell() throws Exception {
+        Long carId = carRepository.save(createCar()).getId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return transaction.execute(status -> carRepository.decreaseInventory(carId));
+            }));
+        }
+        start.countDown();
+        int rented = 0;
+        for (Future<Integer> result : results) {
+            rented += result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(rented).isEqualTo(INVENTORY);
+        assertThat(carRepository.findById(carId).orElseThrow().getInventory()).isZero();
+    }
+
+    @Test
+    @DisplayName("Concurrent returns of one rental put the car back only once")
+    void markReturned_ConcurrentCalls_ShouldReleaseOnce() throws Exception {
+        Car car = createCar();
+        car.setInventory(0);
+        car = carRepository.save(car);
+        Long carId = car.getId();
+        Long rentalId = rentalRepository.save(createRental(car, userRepository.save(createUser())))
+                .getId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return transaction.execute(status -> {
+                    int returned = rentalRepository.markReturned(rentalId, LocalDateTime.now());
+                    if (returned == 1) {
+                        carRepository.increaseInventory(carId);
+                    }
+                    return returned;
+                });
+            }));
+        }
+        start.countDown();
+        int returned = 0;
+        for (Future<Integer> result : results) {
+            returned += result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(returned).isOne();
+        assertThat(carRepository.findById(carId).orElseThrow().getInventory()).isOne();
+    }
+
+    @Test
+    @DisplayName("Returning a car puts it back into inventory")
+    void increaseInventory_ShouldAddOneCar() {
+        Car car = createCar();
+        car.setInventory(0);
+        Long carId = carRepository.save(car).getId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.execute(status -> carRepository.increaseInventory(carId));
+
+        assertThat(carRepository.findById(carId).orElseThrow().getInventory()).isOne();
+        Integer firstRental = transaction
+                .execute(status -> carRepository.decreaseInventory(carId));
+        Integer secondRental = transaction
+                .execute(status -> carRepository.decreaseInventory(carId));
+        assertThat(firstRental).isOne();
+        assertThat(secondRental).isZero();
+    }
+
+    private Car createCar() {
+        Car car = new Car();
+        car.setBrand("Test brand");
+        car.setModel("Test model");
+        car.setInventory(INVENTORY);
+        car.setCarBodyType(Car.CarBodyType.SUV);
+        car.setDailyFee(BigDecimal.ONE);
+        return car;
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setEmail("renter@example.com");
+        user.setPassword("password");
+        user.setFirstName("Test");
+        user.setLastName("Renter");
+        return user;
+    }
+
+    private Rental createRental(Car car, User user) {
+        Rental rental = new Rental();
+        rental.setCar(car);
+        rental.setUser(user);
+        rental.setRentalDateTime(LocalDateTime.now().minusDays(1));
+        rental.setReturnDateTime(LocalDateTime.now().plusDays(1));
+        return rental;
+    }
+}
@@ -2,6 +2,7 @@ package com.carsharingapp.repository;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 
+import com.carsharingapp.dto.rental.RentalResponseDto;
 import com.carsharingapp.model.Car;
 import com.carsharingapp.model.Rental;
 import com.carsharingapp.model.User;
@@ -44,25 +45,25 @@ public class RentalRepoTest {
     private EntityManager entityManager;
 
     @Test
-    public void getAllByUserIdAndActualReturnDateTimeIsNull_ShouldReturnCorrectRentals() {
+    public void findActiveRentalDtosByUserId_ShouldReturnCorrectRentals() {
         Pageable pageable = PageRequest.of(0, 10);
         Long userId = 1L;
-        List<Rental> result = rentalRepo
-                .getAllByUserIdAndActualReturnDateIsNull(userId, pageable);
+        List<RentalResponseDto> result = rentalRepo
+                .findActiveRentalDtosByUserId(userId, pageable);
 
         assertThat(result).hasSize(2);
-        assertThat(result).extracting("actualReturnDate").containsOnlyNulls();
+        assertThat(result).extracting("actualReturnDateTime").containsOnlyNulls();
     }
 
     @Test
-    public void getAllByUserIdAndActualReturnDateTimeIsNotNull_ShouldReturnCorrectRentals() {
+    public void findNotActiveRentalDtosByUserId_ShouldReturnCorrectRentals() {
         Pageable pageable = PageRequest.of(0, 10);
         Long userId = 1L;
-        List<Rental> result = rentalRepo
-                .getAllByUserIdAndActualReturnDateIsNotNull(userId, pageable);
+        List<RentalResponseDto> result = rentalRepo
+                .findNotActiveRentalDtosByUserId(userId, pageable);
 
         assertThat(result).hasSize(2);
-        assertThat(result).extracting("actualReturnDate").doesNotContainNull();
+        assertThat(result).extracting("actualReturnDateTime").doesNotContainNull();
     }
 
     private List<Rental> createRentalsWithNullActualReturnDate(User user, Car car) {
@@ -0,0 +1,133 @@
+package com.carsharingapp.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.dto.user.UserLoginResponseDto;
+import com.carsharingapp.exception.InvalidRefreshTokenException;
+import com.carsharingapp.model.Role;
+import com.carsharingapp.model.User;
+import io.jsonwebtoken.Claims;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class AuthenticationServiceTest {
+    private static final String EMAIL = "user@example.com";
+
+    @Mock
+    private AuthenticationManager authenticationManager;
+
+    @Mock
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    private JwtUtil jwtUtil;
+
+    private AuthenticationService authenticationService;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(new HmacJwtKeyProvider(
+                "01234567890123456789012345678901234567890123456789"), 100);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 300000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 600000L);
+        authenticationService = new AuthenticationService(jwtUtil, authenticationManager,
+                passwordHashingExecutor, userDetailsService, tokenRevocationService);
+    }
+
+    @Test
+    @DisplayName("Refreshing issues an access token with current roles and no password check")
+    void refresh_ValidToken_ShouldIssueAccessToken() {
+        User user = createUser();
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(user);
+        String refreshToken = jwtUtil.generateRefreshToken(1L, EMAIL);
+
+        UserLoginResponseDto response = authenticationService.refresh(refreshToken);
+
+        Claims claims = jwtUtil.getClaims(response.token());
+        assertThat(jwtUtil.isRefreshToken(claims)).isFalse();
+        assertThat(jwtUtil.getPrincipal(claims).getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_MANAGER");
+        assertThat(response.refreshToken()).isEqualTo(refreshToken);
+        verifyNoInteractions(authenticationManager, passwordHashingExecutor);
+    }
+
+    @Test
+    @DisplayName("A revoked refresh token is rejected")
+    void refresh_RevokedToken_ShouldThrow() {
+        String refreshToken = jwtUtil.generateRefreshToken(1L, EMAIL);
+        when(tokenRevocationService.isRevokedInDatabase(jwtUtil.getClaims(refreshToken).getId()))
+                .thenReturn(true);
+
+        assertThatThrownBy(() -> authenticationService.refresh(refreshToken))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+    }
+
+    @Test
+    @DisplayName("An access token can't be used to refresh")
+    void refresh_AccessToken_ShouldThrow() {
+        String accessToken = jwtUtil.generateToken(1L, EMAIL,
+                List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+
+        assertThatThrownBy(() -> authenticationService.refresh(accessToken))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    @DisplayName("Logging out revokes both the refresh and the access token")
+    void logout_ShouldRevokeBothTokens() {
+        String refreshToken = jwtUtil.generateRefreshToken(1L, EMAIL);
+        String accessToken = jwtUtil.generateToken(1L, EMAIL,
+                List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+
+        authenticationService.logout(refreshToken, accessToken);
+
+        Claims refreshClaims = jwtUtil.getClaims(refreshToken);
+        Claims accessClaims = jwtUtil.getClaims(accessToken);
+        verify(tokenRevocationService)
+                .revoke(refreshClaims.getId(), refreshClaims.getExpiration());
+        verify(tokenRevocationService)
+                .revoke(accessClaims.getId(), accessClaims.getExpiration());
+    }
+
+    @Test
+    @DisplayName("Logging out with an invalid refresh token is rejected")
+    void logout_InvalidRefreshToken_ShouldThrow() {
+        assertThatThrownBy(() -> authenticationService.logout("not-a-token", null))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        verify(tokenRevocationService, never()).isRevokedInDatabase(anyString());
+    }
+
+    private User createUser() {
+        Role role = new Role();
+        role.setName(Role.RoleName.MANAGER);
+        User user = new User();
+        user.setId(1L);
+        user.setEmail(EMAIL);
+        user.getRoles().add(role);
+        return user;
+    }
+}
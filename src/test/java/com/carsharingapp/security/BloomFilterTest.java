@@ -0,0 +1,33 @@
+package com.carsharingapp.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+    private static final int ENTRIES = 10000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Test
+    @DisplayName("Every value put is found and absent values are rarely reported")
+    void mightContain_ShouldNeverMissAndKeepFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_RATE);
+        String[] values = new String[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            values[i] = UUID.randomUUID().toString();
+            filter.put(values[i]);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < ENTRIES; i++) {
+            assertThat(filter.mightContain(values[i])).isTrue();
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        assertThat((double) falsePositives / ENTRIES).isLessThan(FALSE_POSITIVE_RATE * 2);
+    }
+}
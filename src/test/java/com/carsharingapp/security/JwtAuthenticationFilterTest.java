@@ -0,0 +1,146 @@
+package com.carsharingapp.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+    private static final List<GrantedAuthority> AUTHORITIES =
+            List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER"));
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    private JwtUtil jwtUtil;
+
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(new HmacJwtKeyProvider(
+                "01234567890123456789012345678901234567890123456789"), 100);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 300000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 600000L);
+        filter = new JwtAuthenticationFilter(userDetailsService, jwtUtil,
+                tokenRevocationService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Stateless mode builds the principal from token claims only")
+    void doFilter_StatelessMode_ShouldNotLoadUser() throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", true);
+        String token = jwtUtil.generateToken(7L, "user@example.com", AUTHORITIES);
+
+        filter.doFilter(requestWith(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        assertThat(principal.getId()).isEqualTo(7L);
+        assertThat(principal.getEmail()).isEqualTo("user@example.com");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_CUSTOMER");
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("Default mode loads the user entity as principal")
+    void doFilter_DefaultMode_ShouldLoadUser() throws Exception {
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("user@example.com");
+        when(userDetailsService.loadUserByUsername("user@example.com")).thenReturn(user);
+        String token = jwtUtil.generateToken(7L, "user@example.com", AUTHORITIES);
+
+        filter.doFilter(requestWith(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal())
+                .isSameAs(user);
+    }
+
+    @Test
+    @DisplayName("A verified token is served from the cache on the next request")
+    void getClaims_SameTokenTwice_ShouldReturnCachedClaims() {
+        String token = jwtUtil.generateToken(7L, "user@example.com", AUTHORITIES);
+
+        Claims first = jwtUtil.getClaims(token);
+        Claims second = jwtUtil.getClaims(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.getSubject()).isEqualTo("user@example.com");
+    }
+
+    @Test
+    @DisplayName("A token with a broken signature is rejected")
+    void getClaims_TamperedToken_ShouldThrowJwtException() {
+        String token = jwtUtil.generateToken(7L, "user@example.com", AUTHORITIES);
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwtUtil.getClaims(tampered))
+                .isInstanceOf(JwtException.class)
+                .hasMessage("Expired or invalid JWT token");
+    }
+
+    @Test
+    @DisplayName("A revoked access token is rejected")
+    void doFilter_RevokedToken_ShouldThrowJwtException() {
+        String token = jwtUtil.generateToken(7L, "user@example.com", AUTHORITIES);
+        when(tokenRevocationService.isRevoked(jwtUtil.getClaims(token).getId()))
+                .thenReturn(true);
+
+        assertThatThrownBy(() -> filter.doFilter(requestWith(token),
+                new MockHttpServletResponse(), new MockFilterChain()))
+                .isInstanceOf(JwtException.class);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    @DisplayName("A refresh token is not accepted as access token")
+    void doFilter_RefreshToken_ShouldThrowJwtException() {
+        String refreshToken = jwtUtil.generateRefreshToken(7L, "user@example.com");
+
+        assertThatThrownBy(() -> filter.doFilter(requestWith(refreshToken),
+                new MockHttpServletResponse(), new MockFilterChain()))
+                .isInstanceOf(JwtException.class);
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    private MockHttpServletRequest requestWith(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,183 @@
+package com.carsharingapp.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.model.JwtSigningKey;
+import com.carsharingapp.repository.token.JwtSigningKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import java.security.PublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class JwtKeyRingTest {
+    private static final String SECRET = "01234567890123456789012345678901234567890123456789";
+    private static final Duration ROTATION_INTERVAL = Duration.ofDays(7);
+    private static final Duration PUBLISH_AHEAD = Duration.ofHours(1);
+    private static final Duration MAX_TOKEN_LIFETIME = Duration.ofDays(14);
+
+    private final List<JwtSigningKey> storedKeys = new ArrayList<>();
+    private final SettableClock clock = new SettableClock(Instant.parse("2024-11-01T12:00:00Z"));
+    private JwtSigningKeyRepository jwtSigningKeyRepository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jwtSigningKeyRepository = mock(JwtSigningKeyRepository.class);
+        when(jwtSigningKeyRepository.findAllByOrderByActivatesAtDesc()).thenAnswer(invocation ->
+                storedKeys.stream()
+                        .sorted(Comparator.comparing(JwtSigningKey::getActivatesAt).reversed())
+                        .toList());
+        when(jwtSigningKeyRepository.save(any(JwtSigningKey.class))).thenAnswer(invocation -> {
+            storedKeys.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        doAnswer(invocation -> {
+            ((Iterable<JwtSigningKey>) invocation.getArgument(0)).forEach(storedKeys::remove);
+            return null;
+        }).when(jwtSigningKeyRepository).deleteAll(any(Iterable.class));
+    }
+
+    @Test
+    @DisplayName("Tokens carry a kid and verify with the published JWK set alone")
+    void generateToken_ShouldVerifyWithPublishedKey() throws Exception {
+        JwtKeyRing keyRing = createKeyRing(SECRET, JwtSigningKey.Algorithm.ED25519);
+        keyRing.refresh();
+        String token = createJwtUtil(keyRing, 100).generateToken(1L, "user@example.com",
+                List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+
+        String json = new ObjectMapper().writeValueAsString(
+                Map.of("keys", keyRing.publicKeys()));
+        JwkSet jwkSet = Jwks.setParser().build().parse(json);
+        PublicJwk<?> jwk = (PublicJwk<?>) jwkSet.getKeys().iterator().next();
+        String subject = Jwts.parser().verifyWith((PublicKey) jwk.toKey()).build()
+                .parseSignedClaims(token).getPayload().getSubject();
+
+        assertThat(jwk.getId()).isEqualTo(kidOf(keyRing, token));
+        assertThat(jwk.getAlgorithm()).isEqualTo("EdDSA");
+        assertThat(subject).isEqualTo("user@example.com");
+    }
+
+    @Test
+    @DisplayName("Next key is published ahead of use and the old one retired after token lifetime")
+    void refresh_ShouldRotateAndRetireKeys() {
+        JwtKeyRing keyRing = createKeyRing(SECRET, JwtSigningKey.Algorithm.RS256);
+        JwtUtil jwtUtil = createJwtUtil(keyRing, 0);
+        keyRing.refresh();
+        final String firstKid = keyRing.publicKeys().get(0).getId();
+        final String firstToken = jwtUtil.generateRefreshToken(1L, "user@example.com");
+
+        clock.advance(ROTATION_INTERVAL.minus(PUBLISH_AHEAD));
+        keyRing.refresh();
+        assertThat(keyRing.publicKeys()).hasSize(2);
+        assertThat(kidOf(keyRing, jwtUtil.generateRefreshToken(1L, "user@example.com")))
+                .isEqualTo(firstKid);
+
+        clock.advance(PUBLISH_AHEAD);
+        keyRing.refresh();
+        String secondToken = jwtUtil.generateRefreshToken(1L, "user@example.com");
+        assertThat(kidOf(keyRing, secondToken)).isNotEqualTo(firstKid);
+        assertThat(jwtUtil.getClaims(firstToken).getSubject()).isEqualTo("user@example.com");
+
+        clock.advance(MAX_TOKEN_LIFETIME.plusSeconds(1));
+        keyRing.refresh();
+        assertThat(storedKeys).extracting(JwtSigningKey::getKid).doesNotContain(firstKid);
+        assertThat(jwtUtil.getClaims(secondToken).getSubject()).isEqualTo("user@example.com");
+        assertThatThrownBy(() -> jwtUtil.getClaims(firstToken))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    @DisplayName("An instance reloads the ring for a key created by another instance")
+    void getClaims_UnknownKid_ShouldReloadRing() {
+        JwtKeyRing issuingKeyRing = createKeyRing(SECRET, JwtSigningKey.Algorithm.ED25519);
+        JwtKeyRing verifyingKeyRing = createKeyRing(SECRET, JwtSigningKey.Algorithm.ED25519);
+        String token = createJwtUtil(issuingKeyRing, 100)
+                .generateRefreshToken(1L, "user@example.com");
+
+        assertThat(createJwtUtil(verifyingKeyRing, 100).getClaims(token).getSubject())
+                .isEqualTo("user@example.com");
+        assertThat(storedKeys).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Stored private keys can't be used without the same jwt.secret")
+    void refresh_OtherSecret_ShouldNotDecryptPrivateKey() {
+        createKeyRing(SECRET, JwtSigningKey.Algorithm.ED25519).refresh();
+        JwtKeyRing otherKeyRing = createKeyRing(SECRET.replace('0', 'x'),
+                JwtSigningKey.Algorithm.ED25519);
+
+        assertThatThrownBy(otherKeyRing::refresh).isInstanceOf(IllegalStateException.class);
+    }
+
+    private JwtKeyRing createKeyRing(String secret, JwtSigningKey.Algorithm algorithm) {
+        return new JwtKeyRing(jwtSigningKeyRepository, clock, secret, algorithm,
+                ROTATION_INTERVAL.toMillis(), PUBLISH_AHEAD.toMillis(),
+                MAX_TOKEN_LIFETIME.toMillis());
+    }
+
+    private JwtUtil createJwtUtil(JwtKeyRing keyRing, long cacheMaximumSize) {
+        JwtUtil jwtUtil = new JwtUtil(keyRing, cacheMaximumSize);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", TimeUnit.MINUTES.toMillis(5));
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", TimeUnit.HOURS.toMillis(1));
+        return jwtUtil;
+    }
+
+    private String kidOf(JwtKeyRing keyRing, String token) {
+        return Jwts.parser()
+                .keyLocator(header -> keyRing.verificationKey(
+                        ((ProtectedHeader) header).getKeyId()))
+                .build()
+                .parseSignedClaims(token).getHeader().getKeyId();
+    }
+
+    private static final class SettableClock extends Clock {
+        private Instant instant;
+
+        private SettableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
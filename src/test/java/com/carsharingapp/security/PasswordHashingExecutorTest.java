@@ -0,0 +1,60 @@
+package com.carsharingapp.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.carsharingapp.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+class PasswordHashingExecutorTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordHashingExecutor executor =
+            new PasswordHashingExecutor(meterRegistry, 1, 1);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Work beyond the pool and its queue is rejected right away")
+    void submit_PoolSaturated_ShouldReject() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = executor.submit(() -> await(release));
+        final CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+        assertThatThrownBy(() -> executor.submit(() -> "rejected"))
+                .isInstanceOf(PasswordHashingBusyException.class);
+        release.countDown();
+        assertThat(running.get()).isEqualTo("released");
+        assertThat(queued.get()).isEqualTo("queued");
+        assertThat(meterRegistry.get("security.password.hashing.rejected").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Exceptions of the task complete the future exceptionally")
+    void submit_TaskThrows_ShouldCompleteExceptionally() {
+        CompletableFuture<String> future = executor.submit(() -> {
+            throw new BadCredentialsException("Bad credentials");
+        });
+
+        assertThatThrownBy(future::get)
+                .hasCauseInstanceOf(BadCredentialsException.class);
+    }
+
+    private String await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "released";
+    }
+}
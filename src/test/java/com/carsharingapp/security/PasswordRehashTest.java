@@ -0,0 +1,72 @@
+package com.carsharingapp.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.model.User;
+import com.carsharingapp.repository.user.UserRepository;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+
+@ExtendWith(MockitoExtension.class)
+class PasswordRehashTest {
+    private static final String EMAIL = "user@example.com";
+    private static final String PASSWORD = "password";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("Logging in with a hash of another cost stores a hash of the configured one")
+    void authenticate_CostChanged_ShouldRehash() {
+        User user = createUser(new AdaptiveBCryptPasswordEncoder(5).encode(PASSWORD));
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        authenticate(new AdaptiveBCryptPasswordEncoder(4));
+
+        ArgumentCaptor<String> rehashed = ArgumentCaptor.forClass(String.class);
+        verify(userRepository).updatePassword(eq(1L), rehashed.capture());
+        assertThat(rehashed.getValue()).startsWith("$2a$04$");
+        assertThat(user.getPassword()).isEqualTo(rehashed.getValue());
+    }
+
+    @Test
+    @DisplayName("Logging in with a hash of the configured cost keeps it")
+    void authenticate_SameCost_ShouldNotRehash() {
+        User user = createUser(new AdaptiveBCryptPasswordEncoder(4).encode(PASSWORD));
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        authenticate(new AdaptiveBCryptPasswordEncoder(4));
+
+        verify(userRepository, never()).updatePassword(anyLong(), anyString());
+    }
+
+    private void authenticate(AdaptiveBCryptPasswordEncoder passwordEncoder) {
+        CustomUserDetailsService userDetailsService =
+                new CustomUserDetailsService(userRepository);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(passwordEncoder);
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, PASSWORD));
+    }
+
+    private User createUser(String passwordHash) {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail(EMAIL);
+        user.setPassword(passwordHash);
+        return user;
+    }
+}
@@ -0,0 +1,151 @@
+package com.carsharingapp.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class RateLimitFilterTest {
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter rateLimitFilter;
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.getClaims(anyString())).thenAnswer(invocation -> {
+            String token = invocation.getArgument(0);
+            if (token.equals("invalid")) {
+                throw new JwtException("Expired or invalid JWT token");
+            }
+            return Jwts.claims().subject(token.substring(0, token.indexOf('-'))).build();
+        });
+        rateLimitFilter = new RateLimitFilter(new ObjectMapper().findAndRegisterModules(),
+                meterRegistry, jwtUtil, Clock.fixed(Instant.parse("2024-11-01T12:00:30Z"),
+                ZoneOffset.UTC), 1024, 4);
+        ReflectionTestUtils.setField(rateLimitFilter, "authWindow", 60000L);
+        ReflectionTestUtils.setField(rateLimitFilter, "authIpLimit", 2);
+        ReflectionTestUtils.setField(rateLimitFilter, "bookingWindow", 60000L);
+        ReflectionTestUtils.setField(rateLimitFilter, "bookingIpLimit", 3);
+        ReflectionTestUtils.setField(rateLimitFilter, "bookingPrincipalLimit", 1);
+        rateLimitFilter.afterPropertiesSet();
+    }
+
+    @Test
+    @DisplayName("Login over the per-IP limit gets 429 without reaching the chain")
+    void doFilter_AuthOverIpLimit_ShouldRejectWithRetryAfter() throws Exception {
+        filter("POST", "/auth/login", "10.0.0.1", null);
+        filter("POST", "/auth/login", "10.0.0.1", null);
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = filter("POST", "/auth/login", "10.0.0.1", null,
+                chain);
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("60");
+        assertThat(response.getContentAsString()).contains("Rate limit exceeded");
+        assertThat(chain.getRequest()).isNull();
+        assertThat(meterRegistry.get("http.rate.limit.rejections").tag("route", "auth")
+                .counter().count()).isEqualTo(1);
+        assertThat(filter("POST", "/auth/login", "10.0.0.2", null).getStatus())
+                .isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Booking is limited per token subject and per IP")
+    void doFilter_Booking_ShouldLimitPerSubjectAndIp() throws Exception {
+        assertThat(filter("POST", "/rentals", "10.0.0.1", "alice-1").getStatus())
+                .isEqualTo(200);
+        assertThat(filter("POST", "/rentals", "10.0.0.2", "alice-2").getStatus())
+                .isEqualTo(429);
+        assertThat(filter("POST", "/rentals/1/return", "10.0.0.1", "bob-1").getStatus())
+                .isEqualTo(200);
+        assertThat(filter("POST", "/payments/pay", "10.0.0.1", "carol-1").getStatus())
+                .isEqualTo(200);
+        assertThat(filter("POST", "/rentals", "10.0.0.1", "dave-1").getStatus())
+                .isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("A request rejected by one window is not counted by the other")
+    void doFilter_RejectedByIp_ShouldNotCountPrincipal() throws Exception {
+        for (String token : new String[] {"bob-1", "carol-1", "dave-1"}) {
+            filter("POST", "/rentals", "10.0.0.1", token);
+        }
+
+        assertThat(filter("POST", "/rentals", "10.0.0.1", "alice-1").getStatus())
+                .isEqualTo(429);
+        assertThat(filter("POST", "/rentals", "10.0.0.2", "alice-1").getStatus())
+                .isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("An IP over its limit is rejected before the token is verified")
+    void doFilter_IpOverLimit_ShouldNotVerifyToken() throws Exception {
+        for (String token : new String[] {"bob-1", "carol-1", "dave-1"}) {
+            filter("POST", "/rentals", "10.0.0.1", token);
+        }
+
+        assertThat(filter("POST", "/rentals", "10.0.0.1", "alice-1").getStatus())
+                .isEqualTo(429);
+        verify(jwtUtil, times(3)).getClaims(anyString());
+    }
+
+    @Test
+    @DisplayName("A token failing verification is limited by IP only")
+    void doFilter_InvalidToken_ShouldLimitByIp() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(filter("POST", "/rentals", "10.0.0.1", "invalid").getStatus())
+                    .isEqualTo(200);
+        }
+
+        assertThat(filter("POST", "/rentals", "10.0.0.1", "invalid").getStatus())
+                .isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("Routes without a limit are passed through")
+    void doFilter_UnlimitedRoute_ShouldPassThrough() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertThat(filter("GET", "/rentals", "10.0.0.1", "alice-1").getStatus())
+                    .isEqualTo(200);
+        }
+    }
+
+    private MockHttpServletResponse filter(String method, String uri, String remoteAddr,
+                                           String token) throws Exception {
+        return filter(method, uri, remoteAddr, token, new MockFilterChain());
+    }
+
+    private MockHttpServletResponse filter(String method, String uri, String remoteAddr,
+                                           String token, MockFilterChain chain)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setServletPath(uri);
+        request.setRemoteAddr(remoteAddr);
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, chain);
+        return response;
+    }
+}
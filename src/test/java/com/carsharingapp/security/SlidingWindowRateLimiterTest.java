@@ -0,0 +1,96 @@
+package com.carsharingapp.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SlidingWindowRateLimiterTest {
+    private static final long WINDOW = 1000;
+
+    private final AtomicLong now = new AtomicLong(500);
+    private Clock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now.get());
+    }
+
+    @Test
+    @DisplayName("Requests over the limit are rejected until the window moves on")
+    void tryAcquire_OverLimit_ShouldReject() {
+        SlidingWindowRateLimiter rateLimiter = new SlidingWindowRateLimiter(1024, 4, clock);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.tryAcquire("client", 3, WINDOW)).isZero();
+        }
+
+        assertThat(rateLimiter.tryAcquire("client", 3, WINDOW)).isEqualTo(834);
+        assertThat(rateLimiter.tryAcquire("other", 3, WINDOW)).isZero();
+    }
+
+    @Test
+    @DisplayName("Hits of the previous window count by the part of it the window still covers")
+    void tryAcquire_PreviousWindow_ShouldBeWeighted() {
+        SlidingWindowRateLimiter rateLimiter = new SlidingWindowRateLimiter(1024, 4, clock);
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.tryAcquire("client", 10, WINDOW);
+        }
+
+        now.set(1500);
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("client", 10, WINDOW)).isZero();
+        }
+        long retryAfter = rateLimiter.tryAcquire("client", 10, WINDOW);
+        now.addAndGet(retryAfter);
+
+        assertThat(retryAfter).isEqualTo(100);
+        assertThat(rateLimiter.tryAcquire("client", 10, WINDOW)).isZero();
+    }
+
+    @Test
+    @DisplayName("A request over the limit of either key is counted by neither")
+    void tryAcquire_TwoKeys_ShouldCountOnlyWhenBothAllow() {
+        SlidingWindowRateLimiter rateLimiter = new SlidingWindowRateLimiter(1024, 4, clock);
+        assertThat(rateLimiter.tryAcquire("ip", 1, WINDOW)).isZero();
+
+        assertThat(rateLimiter.tryAcquire("user", 1, "ip", 1, WINDOW)).isPositive();
+        assertThat(rateLimiter.tryAcquire("user", 1, "other-ip", 1, WINDOW)).isZero();
+        assertThat(rateLimiter.tryAcquire("user", 1, "third-ip", 1, WINDOW)).isPositive();
+        assertThat(rateLimiter.tryAcquire("third-ip", 1, WINDOW)).isZero();
+    }
+
+    @Test
+    @DisplayName("Peeking tells whether a request fits without counting it")
+    void peek_ShouldNotCount() {
+        SlidingWindowRateLimiter rateLimiter = new SlidingWindowRateLimiter(1024, 4, clock);
+
+        assertThat(rateLimiter.peek("client", 1, WINDOW)).isZero();
+        assertThat(rateLimiter.peek("client", 1, WINDOW)).isZero();
+        assertThat(rateLimiter.tryAcquire("client", 1, WINDOW)).isZero();
+
+        assertThat(rateLimiter.peek("client", 1, WINDOW)).isPositive();
+        assertThat(rateLimiter.tryAcquire("client", 1, WINDOW)).isPositive();
+    }
+
+    @Test
+    @DisplayName("A full bucket hands the slot touched longest ago to a new key")
+    void tryAcquire_FullBucket_ShouldEvictLeastRecentlyTouched() {
+        SlidingWindowRateLimiter rateLimiter = new SlidingWindowRateLimiter(4, 1, clock);
+        rateLimiter.tryAcquire("evicted", 1, WINDOW);
+        assertThat(rateLimiter.tryAcquire("evicted", 1, WINDOW)).isPositive();
+
+        for (String key : new String[] {"b", "c", "d", "e"}) {
+            now.incrementAndGet();
+            rateLimiter.tryAcquire(key, 1, WINDOW);
+        }
+
+        assertThat(rateLimiter.tryAcquire("evicted", 1, WINDOW)).isZero();
+    }
+}
@@ -0,0 +1,118 @@
+package com.carsharingapp.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.model.RevokedToken;
+import com.carsharingapp.repository.token.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+    private static final Instant NOW = Instant.parse("2024-11-01T12:00:00Z");
+    private static final String REVOKED_JTI = "4b9a2f3e-3d1c-4a51-9f1e-6c1a7f0b2d11";
+    private static final String OTHER_JTI = "0f7c1d2e-8a3b-4c5d-9e6f-7a8b9c0d1e2f";
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationService = new TokenRevocationService(revokedTokenRepository,
+                Clock.fixed(NOW, ZoneOffset.UTC), new SimpleMeterRegistry(), 1000, 0.001);
+    }
+
+    @Test
+    @DisplayName("Tokens that were never revoked are cleared without a database lookup")
+    void isRevoked_NotRevoked_ShouldNotQueryDatabase() {
+        tokenRevocationService.rebuild();
+
+        assertThat(tokenRevocationService.isRevoked(OTHER_JTI)).isFalse();
+        verify(revokedTokenRepository, never()).existsById(anyString());
+    }
+
+    @Test
+    @DisplayName("A revoked token is confirmed by the database")
+    void isRevoked_Revoked_ShouldConfirmInDatabase() {
+        tokenRevocationService.rebuild();
+        tokenRevocationService.revoke(REVOKED_JTI, Date.from(NOW.plusSeconds(300)));
+        when(revokedTokenRepository.existsById(REVOKED_JTI)).thenReturn(true);
+
+        assertThat(tokenRevocationService.isRevoked(REVOKED_JTI)).isTrue();
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(saved.capture());
+        assertThat(saved.getValue().getExpiresAt())
+                .isEqualTo(LocalDateTime.of(2024, 11, 1, 12, 5));
+    }
+
+    @Test
+    @DisplayName("Rebuilding drops expired revocations and loads the active ones")
+    void rebuild_ShouldLoadActiveRevocations() {
+        LocalDateTime now = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+        when(revokedTokenRepository.findActiveJtisAfter(eq(now), eq(""), any(Limit.class)))
+                .thenReturn(List.of(REVOKED_JTI));
+        when(revokedTokenRepository.existsById(REVOKED_JTI)).thenReturn(true);
+
+        tokenRevocationService.rebuild();
+
+        verify(revokedTokenRepository).deleteExpired(now);
+        assertThat(tokenRevocationService.isRevoked(REVOKED_JTI)).isTrue();
+    }
+
+    @Test
+    @DisplayName("A revocation made by another instance is seen before the next rebuild")
+    void isRevokedInDatabase_RevokedElsewhere_ShouldQueryDatabase() {
+        tokenRevocationService.rebuild();
+        when(revokedTokenRepository.existsById(REVOKED_JTI)).thenReturn(true);
+
+        assertThat(tokenRevocationService.isRevokedInDatabase(REVOKED_JTI)).isTrue();
+    }
+
+    @Test
+    @DisplayName("A token revoked after the rebuild scan passed it is in the rebuilt filter")
+    void revoke_ConcurrentWithRebuild_ShouldBeInRebuiltFilter() {
+        LocalDateTime now = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+        when(revokedTokenRepository.findActiveJtisAfter(eq(now), eq(""), any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    Thread revoking = new Thread(() -> tokenRevocationService.revoke(
+                            REVOKED_JTI, Date.from(NOW.plusSeconds(300))));
+                    revoking.start();
+                    revoking.join();
+                    return List.of();
+                });
+        when(revokedTokenRepository.existsById(REVOKED_JTI)).thenReturn(true);
+
+        tokenRevocationService.rebuild();
+
+        assertThat(tokenRevocationService.isRevoked(REVOKED_JTI)).isTrue();
+        verify(revokedTokenRepository).existsById(REVOKED_JTI);
+    }
+
+    @Test
+    @DisplayName("Before the first build every token is checked in the database")
+    void isRevoked_BeforeFirstBuild_ShouldQueryDatabase() {
+        assertThat(tokenRevocationService.isRevoked(OTHER_JTI)).isFalse();
+        verify(revokedTokenRepository).existsById(OTHER_JTI);
+    }
+}
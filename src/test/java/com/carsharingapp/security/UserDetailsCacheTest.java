@@ -0,0 +1,155 @@
+package com.carsharingapp.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.config.CacheConfig;
+import com.carsharingapp.dto.user.UserUpdateDto;
+import com.carsharingapp.mapper.user.UserMapper;
+import com.carsharingapp.model.Role;
+import com.carsharingapp.model.User;
+import com.carsharingapp.repository.role.RoleRepository;
+import com.carsharingapp.repository.user.UserRepository;
+import com.carsharingapp.service.UserService;
+import com.carsharingapp.service.impl.UserServiceImpl;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringJUnitConfig({CacheConfig.class, CustomUserDetailsService.class, UserServiceImpl.class})
+class UserDetailsCacheTest {
+    private static final String EMAIL = "user@example.com";
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterBinder cacheHitRatioMetrics;
+
+    @Autowired
+    private ObjectProvider<CacheManager> cacheManagerProvider;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private RoleRepository roleRepository;
+
+    @MockBean
+    private UserMapper userMapper;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @MockBean
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("Requests of the same user are served from the cache")
+    void loadUserByUsername_CalledTwice_ShouldHitRepositoryOnce() {
+        User user = createUser();
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        userDetailsService.loadUserByUsername(EMAIL);
+
+        assertThat(userDetailsService.loadUserByUsername(EMAIL)).isSameAs(user);
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Changing the user's role evicts the cached user")
+    void updateUserRole_ShouldEvictUser() {
+        User user = createUser();
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+        when(roleRepository.findRoleByName(Role.RoleName.MANAGER))
+                .thenReturn(Optional.of(new Role()));
+
+        userDetailsService.loadUserByUsername(EMAIL);
+        userService.updateUserRole(1L, Role.RoleName.MANAGER.name());
+        userDetailsService.loadUserByUsername(EMAIL);
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Updating the user's profile evicts the cached user")
+    void updateUserInfo_ShouldEvictUser() {
+        User user = createUser();
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+
+        userDetailsService.loadUserByUsername(EMAIL);
+        userService.updateUserInfo(1L, new UserUpdateDto());
+        userDetailsService.loadUserByUsername(EMAIL);
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Soft deleting the user evicts the cached user")
+    void remove_ShouldEvictUser() {
+        User user = createUser();
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        userDetailsService.loadUserByUsername(EMAIL);
+        new UserDetailsCacheEvictionListener(cacheManagerProvider).evict(user);
+        userDetailsService.loadUserByUsername(EMAIL);
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    @DisplayName("The hit ratio of the user cache is published")
+    void cacheHitRatioMetrics_ShouldReportUserDetailsHitRatio() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cacheHitRatioMetrics.bindTo(registry);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(createUser()));
+
+        for (int i = 0; i < 4; i++) {
+            userDetailsService.loadUserByUsername(EMAIL);
+        }
+
+        assertThat(registry.get("cache.hit.ratio").tag("cache", CacheConfig.USER_DETAILS_CACHE)
+                .gauge().value()).isEqualTo(0.75);
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail(EMAIL);
+        user.setPassword("hash");
+        return user;
+    }
+}
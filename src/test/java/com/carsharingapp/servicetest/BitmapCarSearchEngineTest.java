@@ -0,0 +1,107 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.dto.car.CarFilterDto;
+import com.carsharingapp.event.CarChangedEvent;
+import com.carsharingapp.mapper.car.CarMapper;
+import com.carsharingapp.model.Car;
+import com.carsharingapp.repository.car.CarRepository;
+import com.carsharingapp.service.inventory.CarInventoryService;
+import com.carsharingapp.service.search.BitmapCarSearchEngine;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BitmapCarSearchEngineTest {
+    @InjectMocks
+    private BitmapCarSearchEngine carSearchEngine;
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private CarMapper carMapper;
+
+    @Mock
+    private CarInventoryService carInventoryService;
+
+    @Captor
+    private ArgumentCaptor<List<Car>> found;
+
+    @Test
+    @DisplayName("A car changed while the catalog is loading is read again after the load")
+    void load_CarChangedDuringLoad_ShouldNotBeOverwrittenBySnapshot() {
+        when(carRepository.findAll()).thenAnswer(invocation -> {
+            carSearchEngine.onCarChanged(new CarChangedEvent(1L));
+            return List.of(createCar(3));
+        });
+        when(carRepository.findById(1L)).thenReturn(Optional.of(createCar(0)));
+
+        carSearchEngine.load();
+        carSearchEngine.search(new CarFilterDto(null, null, null, null, new String[]{"0"}));
+
+        verify(carMapper).toDtoList(found.capture());
+        assertThat(found.getValue()).extracting(Car::getInventory).containsExactly(0);
+    }
+
+    @Test
+    @DisplayName("A later change of a car is not overwritten by an earlier one finishing last")
+    void onCarChanged_EarlierReadFinishingLast_ShouldKeepLaterRead() throws Exception {
+        when(carRepository.findAll()).thenReturn(List.of(createCar(4)));
+        CountDownLatch firstReading = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        when(carRepository.findById(1L)).thenAnswer(invocation -> {
+            if (reads.getAndIncrement() == 0) {
+                firstReading.countDown();
+                releaseFirst.await(5, TimeUnit.SECONDS);
+                return Optional.of(createCar(3));
+            }
+            return Optional.of(createCar(2));
+        });
+        carSearchEngine.load();
+
+        Thread first = new Thread(() -> carSearchEngine.onCarChanged(new CarChangedEvent(1L)));
+        first.start();
+        assertThat(firstReading.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread second = new Thread(() -> carSearchEngine.onCarChanged(new CarChangedEvent(1L)));
+        second.start();
+        while (second.getState() == Thread.State.NEW
+                || second.getState() == Thread.State.RUNNABLE) {
+            Thread.onSpinWait();
+        }
+        releaseFirst.countDown();
+        first.join();
+        second.join();
+        carSearchEngine.search(new CarFilterDto(null, null, null, null, new String[]{"10"}));
+
+        verify(carMapper).toDtoList(found.capture());
+        assertThat(found.getValue()).extracting(Car::getInventory).containsExactly(2);
+    }
+
+    private Car createCar(int inventory) {
+        Car car = new Car();
+        car.setId(1L);
+        car.setBrand("Toyota");
+        car.setModel("Corolla");
+        car.setCarBodyType(Car.CarBodyType.SEDAN);
+        car.setInventory(inventory);
+        car.setDailyFee(new BigDecimal("50.00"));
+        return car;
+    }
+}
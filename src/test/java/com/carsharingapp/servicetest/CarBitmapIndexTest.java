@@ -0,0 +1,129 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.carsharingapp.dto.car.CarFilterDto;
+import com.carsharingapp.exception.InvalidCarFilterException;
+import com.carsharingapp.model.Car;
+import com.carsharingapp.service.search.CarBitmapIndex;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CarBitmapIndexTest {
+    private CarBitmapIndex carBitmapIndex;
+
+    @BeforeEach
+    void setUp() {
+        carBitmapIndex = new CarBitmapIndex();
+        carBitmapIndex.reload(List.of(
+                createCar(1L, "Toyota", "Corolla", Car.CarBodyType.SEDAN, 3, "50.00"),
+                createCar(2L, "Toyota", "RAV4", Car.CarBodyType.SUV, 1, "80.00"),
+                createCar(3L, "BMW", "X5", Car.CarBodyType.SUV, 2, "120.00"),
+                createCar(4L, "Audi", "A4", Car.CarBodyType.SEDAN, 0, "90.00")
+        ));
+    }
+
+    @Test
+    @DisplayName("Empty filter returns the whole catalog ordered by id")
+    void search_EmptyFilter_ShouldReturnAllCars() {
+        List<Car> result = carBitmapIndex.search(filter(null, null, null, null, null));
+
+        assertThat(result).extracting(Car::getId).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Values within one criterion are ORed, criteria are ANDed")
+    void search_BrandsAndBodyType_ShouldIntersect() {
+        List<Car> result = carBitmapIndex.search(filter(
+                new String[]{"toyota", "BMW"}, null, new String[]{"suv"}, null, null));
+
+        assertThat(result).extracting(Car::getId).containsExactly(2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Daily fee and inventory filters keep cars at or below the bound")
+    void search_RangeFilters_ShouldUseUpperBound() {
+        List<Car> byFee = carBitmapIndex.search(filter(null, null, null,
+                new String[]{"90"}, null));
+        List<Car> byInventory = carBitmapIndex.search(filter(null, null, null,
+                null, new String[]{"1"}));
+
+        assertThat(byFee).extracting(Car::getId).containsExactly(1L, 2L, 4L);
+        assertThat(byInventory).extracting(Car::getId).containsExactly(2L, 4L);
+    }
+
+    @Test
+    @DisplayName("Updated and removed cars are reflected in later searches")
+    void putAndRemove_ShouldKeepIndexInSync() {
+        carBitmapIndex.put(createCar(2L, "Toyota", "RAV4", Car.CarBodyType.SUV, 5, "80.00"));
+        carBitmapIndex.remove(3L);
+        carBitmapIndex.put(createCar(5L, "BMW", "X3", Car.CarBodyType.SUV, 1, "100.00"));
+
+        List<Car> suvs = carBitmapIndex.search(filter(null, null, new String[]{"SUV"},
+                null, new String[]{"1"}));
+        List<Car> bmws = carBitmapIndex.search(filter(new String[]{"BMW"}, null, null,
+                null, null));
+
+        assertThat(suvs).extracting(Car::getId).containsExactly(5L);
+        assertThat(bmws).extracting(Car::getModel).containsExactly("X3");
+        assertThat(carBitmapIndex.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Repeated updates move a car through equal values without losing others")
+    void put_RepeatedUpdates_ShouldKeepColumnsSorted() {
+        for (int inventory = 0; inventory <= 3; inventory++) {
+            carBitmapIndex.put(createCar(1L, "Toyota", "Corolla", Car.CarBodyType.SEDAN,
+                    inventory, "90.00"));
+            carBitmapIndex.put(createCar(3L, "BMW", "X5", Car.CarBodyType.SUV,
+                    3 - inventory, "50.00"));
+        }
+
+        List<Car> byInventory = carBitmapIndex.search(filter(null, null, null,
+                null, new String[]{"0"}));
+        List<Car> byFee = carBitmapIndex.search(filter(null, null, null,
+                new String[]{"80"}, null));
+
+        assertThat(byInventory).extracting(Car::getId).containsExactly(3L, 4L);
+        assertThat(byFee).extracting(Car::getId).containsExactly(2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Unknown values match nothing")
+    void search_UnknownValues_ShouldReturnEmptyList() {
+        List<Car> result = carBitmapIndex.search(filter(null, new String[]{"Model T"},
+                null, null, null));
+
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A range bound that is not a number is rejected as an invalid filter")
+    void search_NonNumericBound_ShouldThrowInvalidCarFilterException() {
+        assertThrows(InvalidCarFilterException.class, () -> carBitmapIndex.search(
+                filter(null, null, null, new String[]{"cheap"}, null)));
+        assertThrows(InvalidCarFilterException.class, () -> carBitmapIndex.search(
+                filter(null, null, null, null, new String[]{"1.5"})));
+    }
+
+    private CarFilterDto filter(String[] brands, String[] models, String[] carBodyTypes,
+                                String[] dailyFees, String[] inventories) {
+        return new CarFilterDto(brands, models, carBodyTypes, dailyFees, inventories);
+    }
+
+    private Car createCar(Long id, String brand, String model, Car.CarBodyType carBodyType,
+                          int inventory, String dailyFee) {
+        Car car = new Car();
+        car.setId(id);
+        car.setBrand(brand);
+        car.setModel(model);
+        car.setCarBodyType(carBodyType);
+        car.setInventory(inventory);
+        car.setDailyFee(new BigDecimal(dailyFee));
+        return car;
+    }
+}
@@ -0,0 +1,141 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.config.CacheConfig;
+import com.carsharingapp.dto.car.CarResponseDto;
+import com.carsharingapp.dto.car.RequestCarDto;
+import com.carsharingapp.mapper.car.CarMapper;
+import com.carsharingapp.model.Car;
+import com.carsharingapp.repository.car.CarRepository;
+import com.carsharingapp.service.CarService;
+import com.carsharingapp.service.impl.CarServiceImp;
+import com.carsharingapp.service.inventory.CarInventoryService;
+import com.carsharingapp.service.search.CarSearchEngine;
+import com.github.benmanes.caffeine.cache.Cache;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+@SpringJUnitConfig({CacheConfig.class, CarServiceImp.class})
+class CarServiceCacheTest {
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private CarRepository carRepository;
+
+    @MockBean
+    private CarMapper carMapper;
+
+    @MockBean
+    private CarSearchEngine carSearchEngine;
+
+    @MockBean
+    private CarInventoryService carInventoryService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("Second lookup by id is served from the cache")
+    void findById_CalledTwice_ShouldHitRepositoryOnce() {
+        Car car = createCar(1L);
+        CarResponseDto dto = createCarResponseDto(1L);
+        when(carRepository.findById(1L)).thenReturn(Optional.of(car));
+        when(carMapper.toDto(car)).thenReturn(dto);
+
+        carService.findById(1L);
+        CarResponseDto cached = carService.findById(1L);
+
+        assertThat(cached).isEqualTo(dto);
+        verify(carRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Deleting a car evicts its entry and all cached pages")
+    void deleteById_ShouldEvictCarAndPages() {
+        Car car = createCar(1L);
+        Pageable pageable = PageRequest.of(0, 10);
+        when(carRepository.findById(1L)).thenReturn(Optional.of(car));
+        when(carMapper.toDto(car)).thenReturn(createCarResponseDto(1L));
+        when(carRepository.findAll(pageable)).thenReturn(new PageImpl<>(List.of(car)));
+        when(carMapper.toDtoList(List.of(car))).thenReturn(List.of(createCarResponseDto(1L)));
+
+        carService.findById(1L);
+        carService.findAllCars(pageable);
+        carService.deleteById(1L);
+        carService.findById(1L);
+        carService.findAllCars(pageable);
+
+        verify(carRepository, times(2)).findById(1L);
+        verify(carRepository, times(2)).findAll(pageable);
+    }
+
+    @Test
+    @DisplayName("Cached pages expire on their own short timeout")
+    void carPagesCache_ShouldExpireShortlyAfterWrite() {
+        Cache<?, ?> pages = (Cache<?, ?>) cacheManager.getCache(CacheConfig.CAR_PAGES_CACHE)
+                .getNativeCache();
+
+        assertThat(pages.policy().expireAfterWrite().orElseThrow().getExpiresAfter())
+                .isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Updating a car refreshes the cached entry")
+    void update_ShouldPutFreshValueIntoCache() {
+        Car car = createCar(1L);
+        CarResponseDto updated = createCarResponseDto(1L).setModel("Updated");
+        when(carRepository.findById(1L)).thenReturn(Optional.of(car));
+        when(carRepository.save(car)).thenReturn(car);
+        when(carMapper.toDto(car)).thenReturn(updated);
+
+        RequestCarDto requestCarDto = new RequestCarDto().setModel("Updated");
+        carService.update(1L, requestCarDto);
+        CarResponseDto cached = carService.findById(1L);
+
+        assertThat(cached.getModel()).isEqualTo("Updated");
+        verify(carRepository, times(1)).findById(1L);
+    }
+
+    private Car createCar(Long id) {
+        Car car = new Car();
+        car.setId(id);
+        car.setModel("Model");
+        car.setBrand("Brand");
+        car.setCarBodyType(Car.CarBodyType.SUV);
+        car.setInventory(1);
+        car.setDailyFee(BigDecimal.ONE);
+        return car;
+    }
+
+    private CarResponseDto createCarResponseDto(Long id) {
+        return new CarResponseDto()
+                .setId(id)
+                .setModel("Model")
+                .setBrand("Brand")
+                .setCarBodyType(Car.CarBodyType.SUV)
+                .setInventory(1)
+                .setDailyFee(BigDecimal.ONE);
+    }
+}
@@ -3,6 +3,7 @@ package com.carsharingapp.servicetest;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.times;
@@ -13,14 +14,17 @@ import static org.mockito.Mockito.when;
 import com.carsharingapp.dto.car.CarFilterDto;
 import com.carsharingapp.dto.car.CarResponseDto;
 import com.carsharingapp.dto.car.RequestCarDto;
+import com.carsharingapp.dto.page.CursorPageDto;
+import com.carsharingapp.dto.page.PageCursor;
 import com.carsharingapp.exception.EntityNotFoundException;
+import com.carsharingapp.exception.InvalidCursorException;
 import com.carsharingapp.mapper.car.CarMapper;
 import com.carsharingapp.model.Car;
 import com.carsharingapp.repository.car.CarRepository;
-import com.carsharingapp.repository.spec.CarSpecificationBuilder;
 import com.carsharingapp.service.impl.CarServiceImp;
+import com.carsharingapp.service.inventory.CarInventoryService;
+import com.carsharingapp.service.search.CarSearchEngine;
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.Assertions;
@@ -29,13 +33,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 
 @ExtendWith(MockitoExtension.class)
 public class CarServiceImpTest {
@@ -50,7 +54,13 @@ public class CarServiceImpTest {
     private CarMapper carMapper;
 
     @Mock
-    private CarSpecificationBuilder carSpecificationBuilder;
+    private CarSearchEngine carSearchEngine;
+
+    @Mock
+    private CarInventoryService carInventoryService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @Test
     @DisplayName("Finds car with valid id")
@@ -101,27 +111,9 @@ public class CarServiceImpTest {
     @DisplayName("Search cars by parameters")
     public void searchCars_ByParameters_ShouldReturnCars_WithValidParameters_Ok() {
         CarFilterDto searchParams = createCarFilterDto();
-
-        Specification<Car> specification = Mockito.mock(Specification.class);
-
-        List<Car> books = new ArrayList<>();
-        books.add(createCarWithParams(1L, "Model X",
-                "Brand X",
-                Car.CarBodyType.SEDAN,
-                2,
-                BigDecimal.valueOf(1.0)));
-        books.add(createCarWithParams(2L,
-                "Model Y",
-                "Brand Y",
-                Car.CarBodyType.SUV,
-                3,
-                BigDecimal.valueOf(2.0)));
-
         List<CarResponseDto> carResponseDtos = createCarResponseDtoList();
 
-        Mockito.when(carSpecificationBuilder.build(searchParams)).thenReturn(specification);
-        Mockito.when(carRepository.findAll(specification)).thenReturn(books);
-        Mockito.when(carMapper.toDtoList(books)).thenReturn(carResponseDtos);
+        when(carSearchEngine.search(searchParams)).thenReturn(carResponseDtos);
 
         List<CarResponseDto> result = carService.search(searchParams);
 
@@ -129,9 +121,7 @@ public class CarServiceImpTest {
         assertThat(result.get(0).getModel()).isEqualTo("Model X");
         assertEquals(carResponseDtos.size(), result.size());
 
-        verify(carSpecificationBuilder).build(searchParams);
-        verify(carRepository).findAll(specification);
-        verify(carMapper).toDtoList(books);
+        verify(carSearchEngine).search(searchParams);
     }
 
     @Test
@@ -191,6 +181,45 @@ public class CarServiceImpTest {
         verify(carRepository).deleteById(id);
     }
 
+    @Test
+    @DisplayName("Cursor page fetches one extra car and returns cursor of the last one")
+    void findAllCars_WithCursor_ShouldReturnPageAndNextCursor_Ok() {
+        List<Car> cars = createTestCarList();
+        cars.get(0).setId(6L);
+        cars.get(1).setId(7L);
+        List<CarResponseDto> dtos = List.of(createCarResponseDto());
+        when(carRepository.findAllByIdGreaterThanOrderByIdAsc(5L, Limit.of(2)))
+                .thenReturn(cars);
+        when(carMapper.toDtoList(cars.subList(0, 1))).thenReturn(dtos);
+
+        CursorPageDto<CarResponseDto> page = carService
+                .findAllCars(PageCursor.ofId(5L).encode(), 1);
+
+        assertEquals(dtos, page.content());
+        assertEquals(6L, PageCursor.decode(page.nextCursor()).id());
+    }
+
+    @Test
+    @DisplayName("Last cursor page has no next cursor")
+    void findAllCars_LastPage_ShouldReturnNullCursor_Ok() {
+        List<Car> cars = createTestCarList();
+        when(carRepository.findAllByIdGreaterThanOrderByIdAsc(0L, Limit.of(11)))
+                .thenReturn(cars);
+        when(carMapper.toDtoList(cars)).thenReturn(createCarResponseDtoList());
+
+        CursorPageDto<CarResponseDto> page = carService.findAllCars(null, 10);
+
+        assertEquals(2, page.content().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Malformed cursor should throw an exception")
+    void findAllCars_MalformedCursor_ShouldThrowException_NotOk() {
+        assertThrows(InvalidCursorException.class,
+                () -> carService.findAllCars("not a cursor", 10));
+    }
+
     private Car createTestCar() {
         Car car = new Car();
         car.setModel("Model");
@@ -263,20 +292,4 @@ public class CarServiceImpTest {
                 new String[]{"2", "3"}
         );
     }
-
-    private Car createCarWithParams(Long id,
-                                    String model,
-                                    String brand,
-                                    Car.CarBodyType carBodyType,
-                                    Integer inventory,
-                                    BigDecimal dailyFee) {
-        Car car = createTestCar();
-        car.setId(id);
-        car.setModel(model);
-        car.setBrand(brand);
-        car.setCarBodyType(carBodyType);
-        car.setInventory(inventory);
-        car.setDailyFee(dailyFee);
-        return car;
-    }
 }
@@ -0,0 +1,68 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.carsharingapp.model.User;
+import com.carsharingapp.service.notification.EmailNotificationChannel;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class EmailNotificationChannelTest {
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private JavaMailSenderImpl mailSender;
+    private EmailNotificationChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+        channel = new EmailNotificationChannel(mailSender);
+        ReflectionTestUtils.setField(channel, "from", "no-reply@carsharing.local");
+        ReflectionTestUtils.setField(channel, "timeout", 30000L);
+    }
+
+    @Test
+    @DisplayName("The notification is delivered as a plain text mail to the recipient")
+    void send_ShouldDeliverMail() throws Exception {
+        channel.send("john.doe@mail.com", "Hello");
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(1);
+        assertThat(received[0].getAllRecipients()[0].toString())
+                .isEqualTo("john.doe@mail.com");
+        assertThat(received[0].getSubject()).isEqualTo("Car sharing notification");
+        assertThat(GreenMailUtil.getBody(received[0]).trim()).isEqualTo("Hello");
+    }
+
+    @Test
+    @DisplayName("A mail server that can't be reached fails the send")
+    void send_ServerDown_ShouldThrow() {
+        mailSender.setPort(greenMail.getSmtp().getPort() + 1);
+
+        assertThatThrownBy(() -> channel.send("john.doe@mail.com", "Hello"))
+                .isInstanceOf(MailException.class);
+    }
+
+    @Test
+    @DisplayName("Users are reached at the email address of their account")
+    void resolveRecipient_ShouldReturnUserEmail() {
+        User user = new User();
+        user.setEmail("john.doe@mail.com");
+
+        assertThat(channel.resolveRecipient(user)).isEqualTo(Optional.of("john.doe@mail.com"));
+    }
+}
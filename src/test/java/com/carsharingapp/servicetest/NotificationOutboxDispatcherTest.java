@@ -0,0 +1,256 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.exception.TelegramBotSendMessageException;
+import com.carsharingapp.model.NotificationChannelType;
+import com.carsharingapp.model.NotificationOutbox;
+import com.carsharingapp.repository.notification.NotificationOutboxRepository;
+import com.carsharingapp.service.notification.NotificationChannel;
+import com.carsharingapp.service.notification.NotificationOutboxDispatcher;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxDispatcherTest {
+    private static final Instant NOW = Instant.parse("2024-11-10T10:00:00Z");
+    private static final LocalDateTime NOW_DATE_TIME = LocalDateTime.of(2024, 11, 10, 10, 0);
+
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
+
+    @Mock
+    private NotificationChannel telegramChannel;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private NotificationOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(telegramChannel.type()).thenReturn(NotificationChannelType.TELEGRAM);
+        lenient().when(telegramChannel.timeout()).thenReturn(Duration.ofSeconds(1));
+        dispatcher = createDispatcher(List.of(telegramChannel));
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "digestMaxItems", 2);
+        ReflectionTestUtils.setField(dispatcher, "leaseMillis", 300000L);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffMillis", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMillis", 600000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Claimed notifications are leased, sent and marked as sent")
+    void dispatch_DueNotification_ShouldSendAndMarkSent() {
+        NotificationOutbox notification = createNotification(1L, 0);
+        when(outboxRepository.findDueForUpdate(NotificationChannelType.TELEGRAM,
+                NotificationOutbox.Status.PENDING, NOW_DATE_TIME, Limit.of(10)))
+                .thenReturn(List.of(notification));
+
+        dispatcher.dispatch();
+
+        verify(telegramChannel, timeout(1000)).send("42", "Hello");
+        verify(outboxRepository, timeout(1000)).markSent(List.of(1L), NOW_DATE_TIME);
+        assertThat(notification.getNextAttemptAt()).isEqualTo(NOW_DATE_TIME.plusMinutes(5));
+    }
+
+    @Test
+    @DisplayName("A failed send is rescheduled with exponential backoff")
+    void dispatch_SendFails_ShouldRescheduleWithBackoff() {
+        NotificationOutbox notification = createNotification(1L, 1);
+        when(outboxRepository.findDueForUpdate(NotificationChannelType.TELEGRAM,
+                NotificationOutbox.Status.PENDING, NOW_DATE_TIME, Limit.of(10)))
+                .thenReturn(List.of(notification));
+        doThrow(new TelegramBotSendMessageException("Failed", null))
+                .when(telegramChannel).send("42", "Hello");
+
+        dispatcher.dispatch();
+
+        verify(outboxRepository, timeout(1000)).markAttemptFailed(1L,
+                NotificationOutbox.Status.PENDING, 2, NOW_DATE_TIME.plusSeconds(2));
+        verify(outboxRepository, never()).markSent(any(), any());
+    }
+
+    @Test
+    @DisplayName("A notification is given up after the last allowed attempt")
+    void dispatch_LastAttemptFails_ShouldMarkFailed() {
+        NotificationOutbox notification = createNotification(1L, 2);
+        when(outboxRepository.findDueForUpdate(NotificationChannelType.TELEGRAM,
+                NotificationOutbox.Status.PENDING, NOW_DATE_TIME, Limit.of(10)))
+                .thenReturn(List.of(notification));
+        doThrow(new TelegramBotSendMessageException("Failed", null))
+                .when(telegramChannel).send("42", "Hello");
+
+        dispatcher.dispatch();
+
+        verify(outboxRepository, timeout(1000)).markAttemptFailed(eq(1L),
+                eq(NotificationOutbox.Status.FAILED), eq(3), any());
+    }
+
+    @Test
+    @DisplayName("A send running past the channel timeout is interrupted and retried")
+    void dispatch_SendTimesOut_ShouldInterruptAndReschedule() {
+        NotificationOutbox notification = createNotification(1L, 0);
+        when(telegramChannel.timeout()).thenReturn(Duration.ofMillis(100));
+        when(outboxRepository.findDueForUpdate(NotificationChannelType.TELEGRAM,
+                NotificationOutbox.Status.PENDING, NOW_DATE_TIME, Limit.of(10)))
+                .thenReturn(List.of(notification));
+        doAnswer(invocation -> sleep(10000)).when(telegramChannel).send("42", "Hello");
+
+        dispatcher.dispatch();
+
+        verify(outboxRepository, timeout(2000)).markAttemptFailed(1L,
+                NotificationOutbox.Status.PENDING, 1, NOW_DATE_TIME.plusSeconds(1));
+    }
+
+    @Test
+    @DisplayName("A timeout firing as the send returns does not interrupt the bookkeeping")
+    void dispatch_TimeoutAsSendReturns_ShouldNotInterruptBookkeeping() throws Exception {
+        NotificationOutbox notification = createNotification(1L, 0);
+        when(telegramChannel.timeout()).thenReturn(Duration.ofMillis(100));
+        when(outboxRepository.findDueForUpdate(NotificationChannelType.TELEGRAM,
+                NotificationOutbox.Status.PENDING, NOW_DATE_TIME, Limit.of(10)))
+                .thenReturn(List.of(notification));
+        CountDownLatch timedOut = new CountDownLatch(1);
+        CountDownLatch marked = new CountDownLatch(1);
+        AtomicBoolean interruptedWhileMarking = new AtomicBoolean();
+        Map<?, ?> workers = (Map<?, ?>) ReflectionTestUtils.getField(dispatcher, "workers");
+        ((ThreadPoolExecutor) workers.values().iterator().next()).setThreadFactory(
+                task -> new Thread(task) {
+                    @Override
+                    public void interrupt() {
+                        // Let the send return before the interrupt is delivered
+                        timedOut.countDown();
+                        NotificationOutboxDispatcherTest.this.sleep(200);
+                        super.interrupt();
+                    }
+                });
+        doAnswer(invocation -> timedOut.await(5, TimeUnit.SECONDS))
+                .when(telegramChannel).send("42", "Hello");
+        doAnswer(invocation -> {
+            try {
+                Thread.sleep(300);
+                interruptedWhileMarking.set(Thread.currentThread().isInterrupted());
+            } catch (InterruptedException e) {
+                interruptedWhileMarking.set(true);
+            }
+            marked.countDown();
+            return null;
+        }).when(outboxRepository).markSent(List.of(1L), NOW_DATE_TIME);
+
+        dispatcher.dispatch();
+
+        assertThat(marked.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(interruptedWhileMarking).isFalse();
+    }
+
+    @Test
+    @DisplayName("A slow channel does not hold back delivery on the other channels")
+    void dispatch_SlowChannel_ShouldNotDelayOtherChannels() {
+        NotificationChannel emailChannel = mock(NotificationChannel.class);
+        when(emailChannel.type()).thenReturn(NotificationChannelType.EMAIL);
+        when(emailChannel.timeout()).thenReturn(Duration.ofSeconds(10));
+        dispatcher.shutdown();
+        dispatcher = createDispatcher(List.of(emailChannel, telegramChannel));
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "leaseMillis", 300000L);
+        NotificationOutbox email = createNotification(1L, 0);
+        NotificationOutbox telegram = createNotification(2L, 0);
+        when(outboxRepository.findDueForUpdate(NotificationChannelType.EMAIL,
+                NotificationOutbox.Status.PENDING, NOW_DATE_TIME, Limit.of(10)))
+                .thenReturn(List.of(email, createNotification(3L, 0),
+                        createNotification(4L, 0)));
+        when(outboxRepository.findDueForUpdate(NotificationChannelType.TELEGRAM,
+                NotificationOutbox.Status.PENDING, NOW_DATE_TIME, Limit.of(10)))
+                .thenReturn(List.of(telegram));
+        doAnswer(invocation -> sleep(5000)).when(emailChannel).send("42", "Hello");
+
+        dispatcher.dispatch();
+
+        verify(outboxRepository, timeout(1000)).markSent(List.of(2L), NOW_DATE_TIME);
+        verify(outboxRepository, never()).markSent(List.of(1L), NOW_DATE_TIME);
+    }
+
+    @Test
+    @DisplayName("Notifications with a summary are merged per recipient into one digest")
+    void dispatch_SummariesForOneChat_ShouldSendDigest() {
+        NotificationOutbox first = createNotification(1L, 0);
+        first.setSummary("First");
+        NotificationOutbox second = createNotification(2L, 0);
+        second.setSummary("Second");
+        NotificationOutbox third = createNotification(3L, 0);
+        third.setSummary("Third");
+        NotificationOutbox single = createNotification(4L, 0);
+        when(outboxRepository.findDueForUpdate(NotificationChannelType.TELEGRAM,
+                NotificationOutbox.Status.PENDING, NOW_DATE_TIME, Limit.of(10)))
+                .thenReturn(List.of(first, single, second, third));
+
+        dispatcher.dispatch();
+
+        verify(telegramChannel, timeout(1000)).send("42",
+                "📬 Here is what happened with your rentals:" + System.lineSeparator()
+                        + "First" + System.lineSeparator() + "Second");
+        verify(telegramChannel, timeout(1000).times(2)).send("42", "Hello");
+        verify(outboxRepository, timeout(1000)).markSent(List.of(1L, 2L), NOW_DATE_TIME);
+        verify(outboxRepository, timeout(1000)).markSent(List.of(3L), NOW_DATE_TIME);
+        verify(outboxRepository, timeout(1000)).markSent(List.of(4L), NOW_DATE_TIME);
+    }
+
+    private NotificationOutboxDispatcher createDispatcher(List<NotificationChannel> channels) {
+        return new NotificationOutboxDispatcher(outboxRepository, channels,
+                transactionManager, Clock.fixed(NOW, ZoneOffset.UTC), 2, 10);
+    }
+
+    private Object sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending", e);
+        }
+        return null;
+    }
+
+    private NotificationOutbox createNotification(Long id, int attempts) {
+        NotificationOutbox notification = NotificationOutbox.pending(
+                NotificationChannelType.TELEGRAM, "42", "Hello", NOW_DATE_TIME);
+        notification.setId(id);
+        notification.setAttempts(attempts);
+        return notification;
+    }
+}
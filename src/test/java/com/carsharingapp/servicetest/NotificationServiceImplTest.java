@@ -1,36 +1,69 @@
 package com.carsharingapp.servicetest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.carsharingapp.model.Car;
+import com.carsharingapp.model.NotificationChannelType;
+import com.carsharingapp.model.NotificationOutbox;
 import com.carsharingapp.model.Payment;
 import com.carsharingapp.model.Rental;
 import com.carsharingapp.model.User;
+import com.carsharingapp.repository.notification.NotificationOutboxRepository;
+import com.carsharingapp.service.UserNotificationService;
 import com.carsharingapp.service.impl.NotificationServiceImpl;
-import com.carsharingapp.service.telegram.CarSharingBot;
+import com.carsharingapp.service.notification.NotificationChannel;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 class NotificationServiceImplTest {
+    private static final Long USER_ID = 1L;
+    private static final String CHAT_ID = "42";
+
+    @Mock
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Mock
+    private NotificationChannel telegramChannel;
+
     @Mock
-    private CarSharingBot carSharingBot;
+    private UserNotificationService userNotificationService;
 
-    @InjectMocks
     private NotificationServiceImpl notificationService;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(telegramChannel.type()).thenReturn(NotificationChannelType.TELEGRAM);
+        lenient().when(userNotificationService.getEnabledChannels(USER_ID))
+                .thenReturn(Set.of(NotificationChannelType.TELEGRAM));
+        notificationService = new NotificationServiceImpl(notificationOutboxRepository,
+                List.of(telegramChannel), userNotificationService);
+        ReflectionTestUtils.setField(notificationService, "digestWindow", 60000L);
+    }
+
     @Test
     void shouldNotifyUserAboutCreatedRental() {
+        when(telegramChannel.resolveRecipient(any())).thenReturn(Optional.of(CHAT_ID));
         Rental rental = createTestRental(createTestCar());
         notificationService.notifyUserAboutCreatedRental(rental);
 
@@ -49,16 +82,15 @@ class NotificationServiceImplTest {
                 rental.getReturnDateTime().format(formatter)
         );
 
-        ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
-        verify(carSharingBot, times(1)).sendMessage(messageCaptor.capture());
-
-        String actualMessage = messageCaptor.getValue();
-
-        assertThat(actualMessage).isEqualToIgnoringWhitespace(expectedMessage);
+        NotificationOutbox enqueued = enqueued();
+        assertThat(enqueued.getChannel()).isEqualTo(NotificationChannelType.TELEGRAM);
+        assertThat(enqueued.getRecipient()).isEqualTo(CHAT_ID);
+        assertThat(enqueued.getMessage()).isEqualToIgnoringWhitespace(expectedMessage);
     }
 
     @Test
     void shouldNotifyUserAboutOverdueRental() {
+        when(telegramChannel.resolveRecipient(any())).thenReturn(Optional.of(CHAT_ID));
         Rental rental = createTestRental(createTestCar());
         rental.setActualReturnDate(LocalDateTime.now().plusDays(3));
 
@@ -77,11 +109,12 @@ class NotificationServiceImplTest {
                 rental.getActualReturnDate().format(formatter)
         );
 
-        verify(carSharingBot, times(1)).sendMessage(expectedMessage);
+        assertThat(enqueued().getMessage()).isEqualTo(expectedMessage);
     }
 
     @Test
     void shouldNotifyUserAboutSuccessfulPayment() {
+        when(telegramChannel.resolveRecipient(any())).thenReturn(Optional.of(CHAT_ID));
         Payment payment = createTestPayment();
         Car car = createTestCar();
 
@@ -97,11 +130,12 @@ class NotificationServiceImplTest {
                 payment.getAmountToPay()
         );
 
-        verify(carSharingBot, times(1)).sendMessage(expectedMessage);
+        assertThat(enqueued().getMessage()).isEqualTo(expectedMessage);
     }
 
     @Test
     void shouldNotifyUserAboutCanceledPayment() {
+        when(telegramChannel.resolveRecipient(any())).thenReturn(Optional.of(CHAT_ID));
         Payment payment = createTestPayment();
         Car car = createTestCar();
 
@@ -119,17 +153,77 @@ class NotificationServiceImplTest {
                 payment.getAmountToPay()
         );
 
-        verify(carSharingBot, times(1)).sendMessage(expectedMessage);
+        assertThat(enqueued().getMessage()).isEqualTo(expectedMessage);
     }
 
     @Test
     void shouldNotifyUserAboutNoOverdueRentals() {
         notificationService.notifyUserAboutNoOverdueRentals();
 
-        verify(carSharingBot, times(1)).sendMessage("🌞 "
+        assertThat(enqueued().getMessage()).isEqualTo("🌞 "
                 + "Great news! You have no overdue rentals today!");
     }
 
+    @Test
+    void shouldJoinOpenDigestForChat() {
+        Rental rental = createTestRental(createTestCar());
+        LocalDateTime digestDueAt = LocalDateTime.now().plusSeconds(30);
+        when(telegramChannel.resolveRecipient(any())).thenReturn(Optional.of(CHAT_ID));
+        when(notificationOutboxRepository.findOpenDigestDueAt(
+                eq(NotificationChannelType.TELEGRAM), eq(CHAT_ID), any(), any()))
+                .thenReturn(Optional.of(digestDueAt));
+
+        notificationService.notifyUserAboutCreatedRental(rental);
+
+        NotificationOutbox enqueued = enqueued();
+        assertThat(enqueued.getNextAttemptAt()).isEqualTo(digestDueAt);
+        assertThat(enqueued.getSummary()).startsWith("🔑 Rented: 🚗 Model: Model S");
+    }
+
+    @Test
+    void shouldSkipUserWithoutLinkedChat() {
+        Rental rental = createTestRental(createTestCar());
+        when(telegramChannel.resolveRecipient(rental.getUser())).thenReturn(Optional.empty());
+
+        notificationService.notifyUserAboutCreatedRental(rental);
+
+        verify(notificationOutboxRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldEnqueueOncePerEnabledChannel() {
+        NotificationChannel inAppChannel = mock(NotificationChannel.class);
+        NotificationChannel emailChannel = mock(NotificationChannel.class);
+        when(inAppChannel.type()).thenReturn(NotificationChannelType.IN_APP);
+        when(emailChannel.type()).thenReturn(NotificationChannelType.EMAIL);
+        notificationService = new NotificationServiceImpl(notificationOutboxRepository,
+                List.of(telegramChannel, inAppChannel, emailChannel), userNotificationService);
+        Rental rental = createTestRental(createTestCar());
+        when(userNotificationService.getEnabledChannels(USER_ID)).thenReturn(
+                Set.of(NotificationChannelType.TELEGRAM, NotificationChannelType.IN_APP));
+        when(telegramChannel.resolveRecipient(rental.getUser()))
+                .thenReturn(Optional.of(CHAT_ID));
+        when(inAppChannel.resolveRecipient(rental.getUser()))
+                .thenReturn(Optional.of(USER_ID.toString()));
+
+        notificationService.sendScheduledOverdueRentalsNotification(Set.of(rental));
+
+        ArgumentCaptor<NotificationOutbox> captor =
+                ArgumentCaptor.forClass(NotificationOutbox.class);
+        verify(notificationOutboxRepository, times(2)).save(captor.capture());
+        assertThat(captor.getAllValues()).extracting(NotificationOutbox::getChannel)
+                .containsExactly(NotificationChannelType.TELEGRAM, NotificationChannelType.IN_APP);
+        verify(emailChannel, never()).resolveRecipient(any());
+    }
+
+    private NotificationOutbox enqueued() {
+        ArgumentCaptor<NotificationOutbox> captor =
+                ArgumentCaptor.forClass(NotificationOutbox.class);
+        verify(notificationOutboxRepository, times(1)).save(captor.capture());
+        assertThat(captor.getValue().getStatus()).isEqualTo(NotificationOutbox.Status.PENDING);
+        return captor.getValue();
+    }
+
     private Car createTestCar() {
         Car car = new Car();
         car.setModel("Model S");
@@ -143,6 +237,7 @@ class NotificationServiceImplTest {
     private Rental createTestRental(Car car) {
         final Rental rental = new Rental();
         User user = new User();
+        user.setId(USER_ID);
         user.setEmail("john.doe@mail.com");
         user.setFirstName("John");
         user.setLastName("Doe");
@@ -156,6 +251,7 @@ class NotificationServiceImplTest {
     private Payment createTestPayment() {
         Payment payment = new Payment();
         payment.setAmountToPay(BigDecimal.valueOf(100.00));
+        payment.setRental(createTestRental(createTestCar()));
         return payment;
     }
 }
@@ -0,0 +1,111 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.dto.rental.RentalDeadlineDto;
+import com.carsharingapp.event.RentalEndedEvent;
+import com.carsharingapp.event.RentalStartedEvent;
+import com.carsharingapp.model.Rental;
+import com.carsharingapp.repository.rental.RentalRepository;
+import com.carsharingapp.service.NotificationService;
+import com.carsharingapp.service.scheduler.OverdueRentalDetector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueRentalDetectorTest {
+    private static final Instant START = Instant.parse("2024-11-10T10:00:00Z");
+    private static final LocalDateTime DEADLINE = LocalDateTime.of(2024, 11, 10, 10, 0, 5);
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private Clock clock;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OverdueRentalDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        when(clock.millis()).thenReturn(START.toEpochMilli());
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        meterRegistry = new SimpleMeterRegistry();
+        detector = new OverdueRentalDetector(rentalRepository, notificationService,
+                meterRegistry, clock, 1000, 3600000);
+    }
+
+    @Test
+    @DisplayName("Active rental is reported once its deadline passes")
+    void tick_AfterDeadline_ShouldNotifyAboutOverdueRental() {
+        Rental rental = new Rental();
+        rental.setId(1L);
+        when(rentalRepository.findWithCarAndUserById(1L)).thenReturn(Optional.of(rental));
+
+        detector.onRentalStarted(new RentalStartedEvent(1L, DEADLINE));
+        assertThat(meterRegistry.get("rental.overdue.wheel.size").gauge().value())
+                .isEqualTo(1);
+        when(clock.millis()).thenReturn(START.plusSeconds(4).toEpochMilli());
+        detector.tick();
+        verify(notificationService, never()).sendScheduledOverdueRentalsNotification(any());
+
+        when(clock.millis()).thenReturn(START.plusSeconds(6).toEpochMilli());
+        detector.tick();
+
+        verify(notificationService).sendScheduledOverdueRentalsNotification(Set.of(rental));
+        assertThat(meterRegistry.get("rental.overdue.firing.lag").timer().count()).isOne();
+        assertThat(meterRegistry.get("rental.overdue.wheel.size").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deadlines passed within the recovery window fire on the first tick")
+    void recover_DeadlinePassedWhileDown_ShouldFireOnFirstTick() {
+        Rental rental = new Rental();
+        rental.setId(1L);
+        when(clock.instant()).thenReturn(START);
+        when(rentalRepository.findActiveDeadlinesAfter(eq(LocalDateTime.of(2024, 11, 10, 9, 0)),
+                eq(0L), any(Limit.class)))
+                .thenReturn(List.of(new RentalDeadlineDto(1L, DEADLINE.minusMinutes(10))));
+        when(rentalRepository.findWithCarAndUserById(1L)).thenReturn(Optional.of(rental));
+
+        detector.recover();
+        when(clock.millis()).thenReturn(START.plusSeconds(1).toEpochMilli());
+        detector.tick();
+
+        verify(notificationService).sendScheduledOverdueRentalsNotification(Set.of(rental));
+    }
+
+    @Test
+    @DisplayName("Returned rental is taken off the wheel")
+    void onRentalEnded_ShouldCancelDeadline() {
+        detector.onRentalStarted(new RentalStartedEvent(1L, DEADLINE));
+        detector.onRentalEnded(new RentalEndedEvent(1L));
+
+        when(clock.millis()).thenReturn(START.plusSeconds(6).toEpochMilli());
+        detector.tick();
+
+        verify(rentalRepository, never()).findWithCarAndUserById(any());
+    }
+}
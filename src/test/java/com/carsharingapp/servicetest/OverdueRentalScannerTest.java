@@ -0,0 +1,89 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.model.Rental;
+import com.carsharingapp.model.User;
+import com.carsharingapp.repository.rental.RentalRepository;
+import com.carsharingapp.service.NotificationService;
+import com.carsharingapp.service.scheduler.OverdueRentalScanner;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueRentalScannerTest {
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @InjectMocks
+    private OverdueRentalScanner overdueRentalScanner;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(overdueRentalScanner, "chunkSize", 2);
+    }
+
+    @Test
+    @DisplayName("Rentals of a user split across chunks are sent in one notification")
+    @SuppressWarnings("unchecked")
+    void scan_UserAcrossChunks_ShouldNotifyOncePerUser() {
+        Rental first = createRental(1L, 1L);
+        Rental second = createRental(2L, 2L);
+        Rental third = createRental(3L, 2L);
+        when(rentalRepository.findOverdueAfter(any(), eq(0L), eq(0L), eq(Limit.of(2))))
+                .thenReturn(List.of(first, second));
+        when(rentalRepository.findOverdueAfter(any(), eq(2L), eq(2L), eq(Limit.of(2))))
+                .thenReturn(List.of(third));
+
+        overdueRentalScanner.scan();
+
+        ArgumentCaptor<Set<Rental>> captor = ArgumentCaptor.forClass(Set.class);
+        verify(notificationService, times(2))
+                .sendScheduledOverdueRentalsNotification(captor.capture());
+        assertThat(captor.getAllValues().get(0)).containsExactly(first);
+        assertThat(captor.getAllValues().get(1)).containsExactly(second, third);
+        verify(notificationService, never()).notifyUserAboutNoOverdueRentals();
+    }
+
+    @Test
+    @DisplayName("No overdue rentals sends the all-clear message")
+    void scan_NoOverdueRentals_ShouldNotifyAboutNoOverdueRentals() {
+        when(rentalRepository.findOverdueAfter(any(), eq(0L), eq(0L), eq(Limit.of(2))))
+                .thenReturn(List.of());
+
+        overdueRentalScanner.scan();
+
+        verify(notificationService).notifyUserAboutNoOverdueRentals();
+        verify(notificationService, never()).sendScheduledOverdueRentalsNotification(any());
+    }
+
+    private Rental createRental(Long id, Long userId) {
+        User user = new User();
+        user.setId(userId);
+        Rental rental = new Rental();
+        rental.setId(id);
+        rental.setUser(user);
+        rental.setReturnDateTime(LocalDateTime.now().minusDays(1));
+        return rental;
+    }
+}
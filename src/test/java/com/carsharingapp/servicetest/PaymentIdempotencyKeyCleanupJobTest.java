@@ -0,0 +1,36 @@
+package com.carsharingapp.servicetest;
+
+import static org.mockito.Mockito.verify;
+
+import com.carsharingapp.repository.payment.PaymentIdempotencyKeyRepository;
+import com.carsharingapp.service.payment.PaymentIdempotencyKeyCleanupJob;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentIdempotencyKeyCleanupJobTest {
+    @Mock
+    private PaymentIdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Test
+    @DisplayName("Keys older than the retention are deleted")
+    void purge_ShouldDeleteKeysOlderThanRetention() {
+        PaymentIdempotencyKeyCleanupJob job = new PaymentIdempotencyKeyCleanupJob(
+                idempotencyKeyRepository,
+                Clock.fixed(Instant.parse("2024-11-02T12:00:00Z"), ZoneOffset.UTC));
+        ReflectionTestUtils.setField(job, "retentionMillis", 86400000L);
+
+        job.purge();
+
+        verify(idempotencyKeyRepository).deleteCreatedBefore(
+                LocalDateTime.parse("2024-11-01T12:00:00"));
+    }
+}
@@ -0,0 +1,150 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.dto.payment.PaymentSessionDto;
+import com.carsharingapp.model.Payment;
+import com.carsharingapp.repository.payment.PaymentRepository;
+import com.carsharingapp.service.payment.PaymentReconciliationJob;
+import com.carsharingapp.service.payment.PaymentStatusUpdater;
+import com.stripe.Stripe;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Runs the job against a local HTTP server standing in for the Stripe API.
+ */
+@ExtendWith(MockitoExtension.class)
+class PaymentReconciliationJobTest {
+    private static final String SESSIONS_PATH = "/v1/checkout/sessions/";
+    private static final Clock CLOCK =
+            Clock.fixed(Instant.parse("2024-11-01T12:00:00Z"), ZoneOffset.UTC);
+    private static final LocalDateTime EXPIRED_BEFORE = LocalDateTime.of(2024, 11, 1, 11, 55);
+
+    private final Map<String, String> sessions = new HashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private HttpServer stripe;
+    private PaymentReconciliationJob job;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private PaymentStatusUpdater statusUpdater;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stripe = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stripe.createContext(SESSIONS_PATH, this::handleLookup);
+        stripe.start();
+        Stripe.overrideApiBase("http://localhost:" + stripe.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+        stripe.stop(0);
+        if (job != null) {
+            job.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Ended sessions are settled chunk by chunk, open ones are left pending")
+    void reconcile_EndedSessions_ShouldApplyPerChunk() {
+        job = createJob(2, 5);
+        session("cs_paid", "complete", "paid");
+        session("cs_expired", "expired", "unpaid");
+        session("cs_open", "open", "unpaid");
+        when(paymentRepository.findStalePendingSessionsAfter(EXPIRED_BEFORE, 0L, Limit.of(2)))
+                .thenReturn(List.of(new PaymentSessionDto(1L, "cs_paid"),
+                        new PaymentSessionDto(2L, "cs_expired")));
+        when(paymentRepository.findStalePendingSessionsAfter(EXPIRED_BEFORE, 2L, Limit.of(2)))
+                .thenReturn(List.of(new PaymentSessionDto(3L, "cs_open")));
+
+        job.reconcile();
+
+        verify(statusUpdater).apply(Map.of(
+                "cs_paid", Payment.PaymentStatus.PAID,
+                "cs_expired", Payment.PaymentStatus.CANCELED));
+        verify(statusUpdater).apply(Map.of());
+        assertThat(lookups).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("Consecutive Stripe failures open the circuit and end the run")
+    void reconcile_StripeFailing_ShouldStopAfterThreshold() {
+        job = createJob(4, 2);
+        when(paymentRepository.findStalePendingSessionsAfter(EXPIRED_BEFORE, 0L, Limit.of(4)))
+                .thenReturn(List.of(new PaymentSessionDto(1L, "cs_1"),
+                        new PaymentSessionDto(2L, "cs_2"),
+                        new PaymentSessionDto(3L, "cs_3"),
+                        new PaymentSessionDto(4L, "cs_4")));
+
+        job.reconcile();
+
+        assertThat(lookups).hasValue(2);
+        verify(statusUpdater).apply(Map.of());
+        verify(paymentRepository, never())
+                .findStalePendingSessionsAfter(any(), eq(4L), any());
+    }
+
+    private PaymentReconciliationJob createJob(int chunkSize, int failureThreshold) {
+        PaymentReconciliationJob reconciliationJob = new PaymentReconciliationJob(
+                paymentRepository, statusUpdater, new SimpleMeterRegistry(), CLOCK,
+                "sk_test_reconciliation", 1, 1000, failureThreshold, 60000);
+        ReflectionTestUtils.setField(reconciliationJob, "chunkSize", chunkSize);
+        ReflectionTestUtils.setField(reconciliationJob, "graceMillis", 300000L);
+        return reconciliationJob;
+    }
+
+    private void session(String id, String status, String paymentStatus) {
+        sessions.put(id, "{\"id\": \"" + id + "\", \"object\": \"checkout.session\", "
+                + "\"status\": \"" + status + "\", \"payment_status\": \""
+                + paymentStatus + "\"}");
+    }
+
+    private void handleLookup(HttpExchange exchange) throws IOException {
+        lookups.incrementAndGet();
+        String id = exchange.getRequestURI().getPath().substring(SESSIONS_PATH.length());
+        String body = sessions.get(id);
+        int status = 200;
+        if (body == null) {
+            status = 500;
+            body = "{\"error\": {\"type\": \"api_error\", \"message\": \"Unavailable\"}}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
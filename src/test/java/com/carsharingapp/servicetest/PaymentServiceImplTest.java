@@ -3,35 +3,69 @@ package com.carsharingapp.servicetest;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.carsharingapp.config.CacheConfig;
 import com.carsharingapp.dto.payment.PaymentRequestDto;
 import com.carsharingapp.dto.payment.PaymentResponseDto;
 import com.carsharingapp.exception.EntityNotFoundException;
+import com.carsharingapp.exception.IdempotencyKeyConflictException;
+import com.carsharingapp.exception.PaymentNotFoundException;
 import com.carsharingapp.mapper.payment.PaymentMapper;
 import com.carsharingapp.model.Car;
 import com.carsharingapp.model.Payment;
+import com.carsharingapp.model.PaymentIdempotencyKey;
 import com.carsharingapp.model.Rental;
+import com.carsharingapp.repository.payment.PaymentIdempotencyKeyRepository;
 import com.carsharingapp.repository.payment.PaymentRepository;
 import com.carsharingapp.repository.rental.RentalRepository;
 import com.carsharingapp.service.NotificationService;
 import com.carsharingapp.service.impl.PaymentServiceImpl;
+import com.carsharingapp.service.payment.PaymentStatusUpdater;
 import com.stripe.Stripe;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.checkout.SessionCreateParams;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class PaymentServiceImplTest {
+    private static final Long USER_ID = 1L;
+    private static final String IDEMPOTENCY_KEY = "key";
 
     @InjectMocks
     private PaymentServiceImpl paymentService;
@@ -47,6 +81,23 @@ class PaymentServiceImplTest {
 
     @Mock
     private NotificationService notificationService;
+
+    @Mock
+    private PaymentIdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private PaymentStatusUpdater paymentStatusUpdater;
+
+    @Spy
+    private CacheManager cacheManager =
+            new ConcurrentMapCacheManager(CacheConfig.PAYMENT_IDEMPOTENCY_CACHE);
+
+    @Spy
+    private TransactionTemplate transactionTemplate =
+            new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
     private String stripeTestApi =
             "sk_test_51QD6L4I1LufT4rQ0RNeVwOk1xXUG21iQRYLovWQiQO"
             + "GnSWH4POMR39qA2vLC9KMEx9gmJlI0QxT74hCaLt4Riou000H8X5DICb";
@@ -56,6 +107,20 @@ class PaymentServiceImplTest {
         Stripe.apiKey = stripeTestApi;
     }
 
+    @Test
+    void shouldReturnPaymentsOfUserWithRequestedStatus() {
+        Pageable pageable = PageRequest.of(0, 10);
+        List<PaymentResponseDto> payments = List.of(new PaymentResponseDto(1L,
+                Payment.PaymentStatus.PAID, Payment.PaymentType.PAYMENT, null, "session",
+                BigDecimal.TEN));
+        when(paymentRepository.findPaymentDtosByUserIdAndStatus(
+                1L, Payment.PaymentStatus.PAID, pageable)).thenReturn(payments);
+
+        List<PaymentResponseDto> result = paymentService.getPaymentsByStatus(1L, "paid", pageable);
+
+        assertEquals(payments, result);
+    }
+
     @Test
     void shouldCreatePaymentSessionWhenPaymentDoesNotExist() {
         PaymentRequestDto request = createPaymentRequestDto();
@@ -68,14 +133,16 @@ class PaymentServiceImplTest {
                 .findById(request.rentalId())).thenReturn(Optional.of(rental));
         when(paymentRepository
                 .save(any(Payment.class))).thenReturn(payment);
+        when(paymentRepository
+                .findById(payment.getId())).thenReturn(Optional.of(payment));
         when(paymentMapper
                 .toDto(payment)).thenReturn(createPaymentResponseDto());
 
         PaymentResponseDto response = paymentService
-                .createPaymentSession(request);
+                .createPaymentSession(USER_ID, request, null);
 
         assertNotNull(response);
-        verify(paymentRepository).save(any(Payment.class));
+        verify(paymentRepository, times(2)).save(any(Payment.class));
     }
 
     @Test
@@ -86,7 +153,7 @@ class PaymentServiceImplTest {
         when(rentalRepository
                 .findById(request.rentalId())).thenReturn(Optional.empty());
         assertThrows(EntityNotFoundException.class,
-                () -> paymentService.createPaymentSession(request));
+                () -> paymentService.createPaymentSession(USER_ID, request, null));
     }
 
     @Test
@@ -99,7 +166,7 @@ class PaymentServiceImplTest {
                 .thenReturn(List.of(existingPayment));
 
         assertThrows(EntityNotFoundException.class,
-                () -> paymentService.createPaymentSession(request));
+                () -> paymentService.createPaymentSession(USER_ID, request, null));
     }
 
     @Test
@@ -108,22 +175,31 @@ class PaymentServiceImplTest {
         Payment payment = createPayment();
         payment.setSessionId(sessionId);
         payment.setStatus(Payment.PaymentStatus.PAID);
+        when(paymentRepository.findBySessionId(sessionId)).thenReturn(Optional.of(payment));
+        when(paymentMapper.toDto(payment)).thenReturn(createPaymentResponseDto());
 
-        PaymentResponseDto paymentResponseDto = createPaymentResponseDto();
+        PaymentResponseDto response = paymentService.getSuccessfulPayment(sessionId);
 
-        when(paymentRepository
-                .findBySessionId(sessionId)).thenReturn(Optional.of(payment));
-        when(paymentRepository
-                .save(any(Payment.class))).thenReturn(payment);
-        when(paymentMapper
-                .toDto(payment)).thenReturn(paymentResponseDto);
+        assertNotNull(response);
+        assertEquals(Payment.PaymentStatus.PAID, response.status());
+        verify(paymentStatusUpdater).apply(Map.of(sessionId, Payment.PaymentStatus.PAID));
+        verify(paymentRepository, never()).save(any(Payment.class));
+    }
 
-        PaymentResponseDto response = paymentService
-                .getSuccessfulPayment(sessionId);
+    @Test
+    void shouldNotCancelPaymentThatIsAlreadyPaid() {
+        String sessionId = "session_123";
+        Payment payment = createPayment();
+        payment.setSessionId(sessionId);
+        payment.setStatus(Payment.PaymentStatus.PAID);
+        when(paymentRepository.findBySessionId(sessionId)).thenReturn(Optional.of(payment));
+        when(paymentMapper.toDto(payment)).thenReturn(createPaymentResponseDto());
+
+        PaymentResponseDto response = paymentService.getCancelledPayment(sessionId);
 
-        assertNotNull(response);
         assertEquals(Payment.PaymentStatus.PAID, response.status());
-        verify(paymentRepository).save(any(Payment.class));
+        assertEquals(Payment.PaymentStatus.PAID, payment.getStatus());
+        verify(paymentRepository, never()).save(any(Payment.class));
     }
 
     @Test
@@ -134,16 +210,14 @@ class PaymentServiceImplTest {
 
         when(paymentRepository
                 .findBySessionId(sessionId)).thenReturn(Optional.of(payment));
-        when(paymentRepository
-                .save(any(Payment.class))).thenReturn(payment);
         when(paymentMapper
                 .toDto(any(Payment.class))).thenReturn(createPaymentResponseDto());
 
         PaymentResponseDto response = paymentService.getCancelledPayment(sessionId);
 
         assertNotNull(response);
-        verify(paymentRepository).save(any(Payment.class));
-        assertEquals(Payment.PaymentStatus.CANCELED, payment.getStatus());
+        verify(paymentStatusUpdater).apply(Map.of(sessionId, Payment.PaymentStatus.CANCELED));
+        verify(paymentRepository, never()).save(any(Payment.class));
     }
 
     @Test
@@ -156,7 +230,7 @@ class PaymentServiceImplTest {
                 .findById(request.rentalId())).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class,
-                () -> paymentService.createPaymentSession(request));
+                () -> paymentService.createPaymentSession(USER_ID, request, null));
     }
 
     @Test
@@ -171,48 +245,239 @@ class PaymentServiceImplTest {
                 .thenReturn(Optional.of(rental));
         when(paymentRepository.save(any(Payment.class)))
                 .thenReturn(payment);
+        when(paymentRepository.findById(payment.getId()))
+                .thenReturn(Optional.of(payment));
         when(paymentMapper.toDto(payment))
                 .thenReturn(createPaymentResponseDto());
 
-        PaymentResponseDto response = paymentService.createPaymentSession(request);
+        PaymentResponseDto response = paymentService.createPaymentSession(USER_ID, request, null);
 
         assertNotNull(response);
-        verify(paymentRepository).save(any(Payment.class));
+        verify(paymentRepository, times(2)).save(any(Payment.class));
         verify(paymentMapper).toDto(payment);
     }
 
     @Test
-    void shouldNotifyUserAfterSuccessfulPayment() {
+    void shouldLeaveNotificationToStatusUpdaterAfterSuccessfulPayment() {
         String sessionId = "session_123";
         Payment payment = createPayment();
         payment.setSessionId(sessionId);
 
         when(paymentRepository.findBySessionId(sessionId))
                 .thenReturn(Optional.of(payment));
-        when(paymentRepository.save(any(Payment.class)))
-                .thenReturn(payment);
 
-        PaymentResponseDto response = paymentService
-                .getSuccessfulPayment(sessionId);
+        paymentService.getSuccessfulPayment(sessionId);
 
-        verify(notificationService).notifyUserAboutSuccessfulPayment(payment,
-                payment.getRental().getCar());
+        verify(paymentStatusUpdater).apply(Map.of(sessionId, Payment.PaymentStatus.PAID));
+        verifyNoInteractions(notificationService);
     }
 
     @Test
-    void shouldNotifyUserAfterCanceledPayment() {
+    void shouldThrowWhenSessionOfRedirectIsUnknown() {
         String sessionId = "session_123";
+        when(paymentRepository.findBySessionId(sessionId)).thenReturn(Optional.empty());
+
+        assertThrows(PaymentNotFoundException.class,
+                () -> paymentService.getCancelledPayment(sessionId));
+    }
+
+    @Test
+    void shouldReturnStillValidSessionOfPendingPayment() throws MalformedURLException {
         Payment payment = createPayment();
-        payment.setSessionId(sessionId);
+        payment.setType(Payment.PaymentType.PAYMENT);
+        payment.setSessionUrl(new URL("https://checkout.stripe.com/c/pay/cs_test"));
+        payment.setSessionExpiresAt(LocalDateTime.now().plusMinutes(20));
+        ReflectionTestUtils.setField(paymentService, "sessionReuseMargin", 300000L);
+        PaymentRequestDto request = createPaymentRequestDto();
+        when(paymentRepository.findAllByRentalId(request.rentalId()))
+                .thenReturn(List.of(payment));
+        when(paymentMapper.toDto(payment)).thenReturn(createPaymentResponseDto());
 
-        when(paymentRepository.findBySessionId(sessionId)).thenReturn(Optional.of(payment));
+        PaymentResponseDto response = paymentService.createPaymentSession(USER_ID, request, null);
+
+        assertEquals(createPaymentResponseDto(), response);
+        verify(paymentRepository, never()).save(any(Payment.class));
+    }
+
+    @Test
+    void shouldReplayStoredPaymentForRepeatedIdempotencyKey() {
+        Payment payment = createPayment();
+        payment.setSessionId("cs_test");
+        PaymentIdempotencyKey key = createIdempotencyKey(payment);
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, IDEMPOTENCY_KEY))
+                .thenReturn(Optional.of(key));
+        when(paymentMapper.toDto(payment)).thenReturn(createPaymentResponseDto());
+        PaymentRequestDto request = createPaymentRequestDto();
+
+        PaymentResponseDto first = paymentService
+                .createPaymentSession(USER_ID, request, IDEMPOTENCY_KEY);
+        PaymentResponseDto second = paymentService
+                .createPaymentSession(USER_ID, request, IDEMPOTENCY_KEY);
+
+        assertEquals(createPaymentResponseDto(), first);
+        assertEquals(first, second);
+        verify(idempotencyKeyRepository).findByUserIdAndIdempotencyKey(USER_ID, IDEMPOTENCY_KEY);
+        verify(paymentRepository, never()).save(any(Payment.class));
+    }
+
+    @Test
+    void shouldRejectIdempotencyKeyReusedForDifferentRequest() {
+        Payment payment = createPayment();
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, IDEMPOTENCY_KEY))
+                .thenReturn(Optional.of(createIdempotencyKey(payment)));
+        when(paymentMapper.toDto(payment)).thenReturn(createPaymentResponseDto());
+        PaymentRequestDto request = new PaymentRequestDto(2L, Payment.PaymentType.PAYMENT);
+
+        assertThrows(IdempotencyKeyConflictException.class,
+                () -> paymentService.createPaymentSession(USER_ID, request, IDEMPOTENCY_KEY));
+    }
+
+    @Test
+    void shouldRejectIdempotencyKeyOfRequestInProgress() {
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, IDEMPOTENCY_KEY))
+                .thenReturn(Optional.empty());
+        when(idempotencyKeyRepository.saveAndFlush(any(PaymentIdempotencyKey.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+        PaymentRequestDto request = createPaymentRequestDto();
+
+        assertThrows(IdempotencyKeyConflictException.class,
+                () -> paymentService.createPaymentSession(USER_ID, request, IDEMPOTENCY_KEY));
+        verify(paymentRepository, never()).findAllByRentalId(any());
+    }
+
+    @Test
+    void shouldRejectIdempotencyKeyWhileSessionIsBeingOpened() {
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, IDEMPOTENCY_KEY))
+                .thenReturn(Optional.of(createIdempotencyKey(null)));
+        PaymentRequestDto request = createPaymentRequestDto();
+
+        assertThrows(IdempotencyKeyConflictException.class,
+                () -> paymentService.createPaymentSession(USER_ID, request, IDEMPOTENCY_KEY));
+        verify(paymentRepository, never()).findAllByRentalId(any());
+    }
+
+    @Test
+    void shouldReleaseReservationWhenStripeFails() {
+        Payment payment = createPayment();
+        payment.setId(7L);
+        PaymentIdempotencyKey key = createIdempotencyKey(null);
+        key.setId(3L);
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, IDEMPOTENCY_KEY))
+                .thenReturn(Optional.empty());
+        when(idempotencyKeyRepository.saveAndFlush(any(PaymentIdempotencyKey.class)))
+                .thenReturn(key);
+        when(paymentRepository.findAllByRentalId(1L)).thenReturn(List.of());
+        when(rentalRepository.findById(1L)).thenReturn(Optional.of(createRental()));
         when(paymentRepository.save(any(Payment.class))).thenReturn(payment);
+        PaymentRequestDto request = createPaymentRequestDto();
 
-        PaymentResponseDto response = paymentService.getCancelledPayment(sessionId);
+        Stripe.overrideApiBase("http://localhost:1");
+        try {
+            assertThrows(RuntimeException.class, () -> paymentService
+                    .createPaymentSession(USER_ID, request, IDEMPOTENCY_KEY));
+        } finally {
+            Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+        }
+
+        verify(idempotencyKeyRepository).release(eq(3L), notNull());
+        verify(idempotencyKeyRepository, never()).deleteById(any());
+        verify(paymentRepository).deleteById(7L);
+        assertEquals(1, meterRegistry.get("payment.session.transaction")
+                .tag("phase", "reserve").timer().count());
+        assertEquals(1, meterRegistry.get("payment.session.transaction")
+                .tag("phase", "release").timer().count());
+    }
+
+    @Test
+    void shouldRetryReleasedIdempotencyKeyWithSameSessionExpiry() {
+        Payment payment = createPayment();
+        payment.setId(7L);
+        LocalDateTime sessionExpiresAt = LocalDateTime.now().plusMinutes(31);
+        PaymentIdempotencyKey key = createIdempotencyKey(null);
+        key.setId(3L);
+        key.setSessionExpiresAt(sessionExpiresAt);
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, IDEMPOTENCY_KEY))
+                .thenReturn(Optional.of(key));
+        when(idempotencyKeyRepository.reclaim(eq(3L), any(), any(), eq(sessionExpiresAt)))
+                .thenReturn(1);
+        when(paymentRepository.findAllByRentalId(1L)).thenReturn(List.of());
+        when(rentalRepository.findById(1L)).thenReturn(Optional.of(createRental()));
+        when(paymentRepository.save(any(Payment.class))).thenReturn(payment);
+        PaymentRequestDto request = createPaymentRequestDto();
+
+        Stripe.overrideApiBase("http://localhost:1");
+        try {
+            assertThrows(RuntimeException.class, () -> paymentService
+                    .createPaymentSession(USER_ID, request, IDEMPOTENCY_KEY));
+        } finally {
+            Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+        }
+
+        verify(idempotencyKeyRepository, never()).saveAndFlush(any());
+        verify(idempotencyKeyRepository).release(3L, sessionExpiresAt);
+    }
+
+    @Test
+    void shouldSettlePaymentWhenReplacedSessionWasAlreadyCompleted() throws StripeException {
+        Payment payment = createPayment();
+        payment.setId(7L);
+        payment.setType(Payment.PaymentType.PAYMENT);
+        payment.setSessionId("cs_old");
+        payment.setSessionExpiresAt(LocalDateTime.now().plusMinutes(2));
+        ReflectionTestUtils.setField(paymentService, "sessionReuseMargin", 300000L);
+        PaymentRequestDto request = createPaymentRequestDto();
+        when(paymentRepository.findAllByRentalId(request.rentalId()))
+                .thenReturn(List.of(payment));
+        Session previous = mock(Session.class);
+        when(previous.getStatus()).thenReturn("complete");
+
+        try (MockedStatic<Session> sessions = mockStatic(Session.class)) {
+            sessions.when(() -> Session.retrieve("cs_old")).thenReturn(previous);
+
+            assertThrows(EntityNotFoundException.class,
+                    () -> paymentService.createPaymentSession(USER_ID, request, null));
+
+            sessions.verify(() -> Session.create(any(SessionCreateParams.class),
+                    any(RequestOptions.class)), never());
+        }
+        verify(paymentStatusUpdater).apply(Map.of("cs_old", Payment.PaymentStatus.PAID));
+        verify(previous, never()).expire();
+        verify(paymentRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void shouldKeepPreviousSessionWhenItCannotBeExpired() {
+        Payment payment = createPayment();
+        payment.setId(7L);
+        payment.setType(Payment.PaymentType.PAYMENT);
+        payment.setSessionId("cs_old");
+        payment.setSessionExpiresAt(LocalDateTime.now().plusMinutes(2));
+        ReflectionTestUtils.setField(paymentService, "sessionReuseMargin", 300000L);
+        PaymentRequestDto request = createPaymentRequestDto();
+        when(paymentRepository.findAllByRentalId(request.rentalId()))
+                .thenReturn(List.of(payment));
+
+        Stripe.overrideApiBase("http://localhost:1");
+        try {
+            assertThrows(RuntimeException.class,
+                    () -> paymentService.createPaymentSession(USER_ID, request, null));
+        } finally {
+            Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+        }
+
+        assertEquals("cs_old", payment.getSessionId());
+        verify(paymentRepository, never()).deleteById(any());
+        verifyNoInteractions(paymentStatusUpdater);
+    }
 
-        verify(notificationService)
-                .notifyUserAboutCanceledPayment(payment,
-                        payment.getRental().getCar());
+    private PaymentIdempotencyKey createIdempotencyKey(Payment payment) {
+        PaymentIdempotencyKey key = new PaymentIdempotencyKey();
+        key.setUserId(USER_ID);
+        key.setIdempotencyKey(IDEMPOTENCY_KEY);
+        key.setRentalId(1L);
+        key.setPaymentType(Payment.PaymentType.PAYMENT);
+        key.setPayment(payment);
+        return key;
     }
 
     private Rental createRental() {
@@ -1,10 +1,16 @@
 package com.carsharingapp.servicetest;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.carsharingapp.dto.page.CursorPageDto;
+import com.carsharingapp.dto.page.PageCursor;
 import com.carsharingapp.dto.rental.RentalRequestDto;
 import com.carsharingapp.dto.rental.RentalResponseDto;
 import com.carsharingapp.exception.NoAvailableCarsException;
@@ -18,6 +24,7 @@ import com.carsharingapp.repository.rental.RentalRepository;
 import com.carsharingapp.repository.user.UserRepository;
 import com.carsharingapp.service.NotificationService;
 import com.carsharingapp.service.impl.RentalServiceImpl;
+import com.carsharingapp.service.inventory.CarInventoryService;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -28,6 +35,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
@@ -39,11 +48,15 @@ class RentalServiceImplTest {
     @Mock
     private CarRepository carRepository;
     @Mock
+    private CarInventoryService carInventoryService;
+    @Mock
     private UserRepository userRepository;
     @Mock
     private RentalMapper rentalMapper;
     @Mock
     private NotificationService notificationService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private RentalServiceImpl rentalService;
@@ -53,28 +66,42 @@ class RentalServiceImplTest {
     void getAllRentals_shouldReturnAllRentalsForUser() {
         Long userId = 1L;
         Pageable pageable = PageRequest.of(0, 10);
-        List<Rental> rentals = List.of(createRental());
         List<RentalResponseDto> rentalDtos = List.of(createRentalResponseDto());
-        when(rentalRepository.getAllByUserId(userId, pageable)).thenReturn(rentals);
-        when(rentalMapper.toDtoList(rentals)).thenReturn(rentalDtos);
+        when(rentalRepository.findRentalDtosByUserId(userId, pageable)).thenReturn(rentalDtos);
 
         List<RentalResponseDto> result = rentalService.getAllRentals(userId, pageable);
 
         assertEquals(rentalDtos, result);
     }
 
+    @Test
+    @DisplayName("Cursor page of rentals seeks after rental date and id of the cursor")
+    void getAllRentals_withCursor_shouldSeekAfterCursor() {
+        Long userId = 1L;
+        RentalResponseDto rental = createRentalResponseDto();
+        LocalDateTime rentalDateTime = rental.rentalDateTime().plusDays(1);
+        when(rentalRepository
+                .findRentalDtosByUserIdAfter(userId, rentalDateTime, 9L, Limit.of(2)))
+                .thenReturn(List.of(rental, createRentalResponseDto()));
+
+        CursorPageDto<RentalResponseDto> result = rentalService.getAllRentals(userId,
+                PageCursor.of(rentalDateTime, 9L).encode(), 1);
+
+        assertEquals(List.of(rental), result.content());
+        assertEquals(PageCursor.of(rental.rentalDateTime(), rental.id()),
+                PageCursor.decode(result.nextCursor()));
+    }
+
     @Test
     @DisplayName("Get all active rentals")
     void getAllActiveRentals_shouldReturnOnlyActiveRentalsForUser() {
         Long userId = 1L;
         Pageable pageable = PageRequest.of(0, 10);
-        List<Rental> activeRentals = List.of(createRental());
         List<RentalResponseDto> activeRentalDtos = List.of(createRentalResponseDto());
 
         when(rentalRepository
-                .getAllByUserIdAndActualReturnDateIsNull(userId, pageable))
-                .thenReturn(activeRentals);
-        when(rentalMapper.toDtoList(activeRentals)).thenReturn(activeRentalDtos);
+                .findActiveRentalDtosByUserId(userId, pageable))
+                .thenReturn(activeRentalDtos);
 
         List<RentalResponseDto> result = rentalService
                 .getAllActiveRentals(userId, pageable);
@@ -87,15 +114,13 @@ class RentalServiceImplTest {
     void getAllNotActiveRentals_shouldReturnOnlyNotActiveRentalsForUser() {
         Long userId = 1L;
         Pageable pageable = PageRequest.of(0, 10);
-        Rental rental = createRental();
-        rental.setActualReturnDate(LocalDateTime.now());
-        List<Rental> notActiveRentals = List.of(rental);
-        List<RentalResponseDto> notActiveRentalDtos = List.of(createRentalResponseDto());
+        List<RentalResponseDto> notActiveRentalDtos = List.of(new RentalResponseDto(1L, 1L,
+                "Toyota", "Corolla", LocalDateTime.now().minusDays(3),
+                LocalDateTime.now().minusDays(1), LocalDateTime.now()));
 
         when(rentalRepository
-                .getAllByUserIdAndActualReturnDateIsNotNull(userId, pageable))
-                .thenReturn(notActiveRentals);
-        when(rentalMapper.toDtoList(notActiveRentals)).thenReturn(notActiveRentalDtos);
+                .findNotActiveRentalDtosByUserId(userId, pageable))
+                .thenReturn(notActiveRentalDtos);
 
         List<RentalResponseDto> result = rentalService
                 .getAllNotActiveRentals(userId, pageable);
@@ -113,6 +138,7 @@ class RentalServiceImplTest {
         RentalRequestDto requestDto = createRentalRequestDto();
         RentalResponseDto responseDto = createRentalResponseDto();
 
+        when(carInventoryService.reserve(car.getId())).thenReturn(true);
         when(carRepository.findById(car.getId())).thenReturn(Optional.of(car));
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
         when(rentalMapper.toModelWithCarAndUser(requestDto, car, user)).thenReturn(rental);
@@ -132,11 +158,41 @@ class RentalServiceImplTest {
         Car car = createCar();
         car.setInventory(0);
 
+        when(carInventoryService.reserve(requestDto.carId())).thenReturn(false);
         when(carRepository.findById(requestDto.carId())).thenReturn(Optional.of(car));
 
         assertThrows(NoAvailableCarsException.class, () -> rentalService
                 .createRental(requestDto,
                         1L));
+        verify(rentalRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Return rental puts the car back into inventory")
+    void setActualReturnDate_whenRentalIsActive_shouldIncreaseInventory() {
+        Rental rental = createRental();
+
+        when(rentalRepository.findById(rental.getId())).thenReturn(Optional.of(rental));
+        when(rentalRepository.markReturned(eq(rental.getId()), any())).thenReturn(1);
+
+        rentalService.setActualReturnDate(rental.getId());
+
+        verify(carInventoryService).release(rental.getCar().getId());
+        assertThat(rental.getActualReturnDate()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Return that lost the race to a concurrent return releases nothing")
+    void setActualReturnDate_whenReturnedConcurrently_shouldNotReleaseCar() {
+        Rental rental = createRental();
+
+        when(rentalRepository.findById(rental.getId())).thenReturn(Optional.of(rental));
+        when(rentalRepository.markReturned(eq(rental.getId()), any())).thenReturn(0);
+
+        assertThrows(RentalIsNotActiveException.class,
+                () -> rentalService.setActualReturnDate(rental.getId()));
+        verify(carInventoryService, never()).release(any());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
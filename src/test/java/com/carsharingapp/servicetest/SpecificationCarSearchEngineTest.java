@@ -0,0 +1,117 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.carsharingapp.dto.car.CarFilterDto;
+import com.carsharingapp.dto.car.CarResponseDto;
+import com.carsharingapp.exception.InvalidCarFilterException;
+import com.carsharingapp.mapper.car.CarMapper;
+import com.carsharingapp.model.Car;
+import com.carsharingapp.repository.SpecificationProviderManagerImpl;
+import com.carsharingapp.repository.car.CarRepository;
+import com.carsharingapp.repository.spec.CarSpecificationBuilder;
+import com.carsharingapp.repository.spec.DailyFeeSpecificationProvider;
+import com.carsharingapp.repository.spec.InventorySpecificationProvider;
+import com.carsharingapp.service.inventory.CarInventoryService;
+import com.carsharingapp.service.search.SpecificationCarSearchEngine;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+
+@ExtendWith(MockitoExtension.class)
+class SpecificationCarSearchEngineTest {
+    @InjectMocks
+    private SpecificationCarSearchEngine carSearchEngine;
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private CarMapper carMapper;
+
+    @Mock
+    private CarSpecificationBuilder carSpecificationBuilder;
+
+    @Mock
+    private CarInventoryService carInventoryService;
+
+    @Test
+    @DisplayName("Search cars by parameters through JPA specifications")
+    void search_ByParameters_ShouldReturnCars_WithValidParameters_Ok() {
+        CarFilterDto searchParams = new CarFilterDto(
+                new String[]{"Brand X", "Brand Y"},
+                new String[]{"Model X", "Model Y"},
+                new String[]{"Sedan", "SUV"},
+                new String[]{"2.0"},
+                new String[]{"3"}
+        );
+        Specification<Car> specification = Mockito.mock(Specification.class);
+
+        List<Car> cars = new ArrayList<>();
+        cars.add(createCar(1L, "Model X", "Brand X", Car.CarBodyType.SEDAN));
+        cars.add(createCar(2L, "Model Y", "Brand Y", Car.CarBodyType.SUV));
+
+        List<CarResponseDto> carResponseDtos = List.of(
+                new CarResponseDto().setId(1L).setModel("Model X"),
+                new CarResponseDto().setId(2L).setModel("Model Y")
+        );
+
+        Mockito.when(carSpecificationBuilder.build(searchParams)).thenReturn(specification);
+        Mockito.when(carRepository.findAll(specification)).thenReturn(cars);
+        Mockito.when(carMapper.toDtoList(cars)).thenReturn(carResponseDtos);
+
+        List<CarResponseDto> result = carSearchEngine.search(searchParams);
+
+        assertNotNull(result);
+        assertThat(result.get(0).getModel()).isEqualTo("Model X");
+        assertEquals(carResponseDtos.size(), result.size());
+
+        verify(carSpecificationBuilder).build(searchParams);
+        verify(carRepository).findAll(specification);
+        verify(carInventoryService).loadInventory(cars);
+        verify(carMapper).toDtoList(cars);
+    }
+
+    @Test
+    @DisplayName("Non-numeric daily fee or inventory bounds are rejected as invalid filters")
+    void search_NonNumericBounds_ShouldThrowInvalidCarFilterException() {
+        SpecificationCarSearchEngine engine = new SpecificationCarSearchEngine(
+                carRepository, carMapper, new CarSpecificationBuilder(
+                        new SpecificationProviderManagerImpl(List.of(
+                                new DailyFeeSpecificationProvider(),
+                                new InventorySpecificationProvider()))),
+                carInventoryService);
+
+        assertThatThrownBy(() -> engine.search(
+                new CarFilterDto(null, null, null, new String[]{"abc"}, null)))
+                .isInstanceOf(InvalidCarFilterException.class);
+        assertThatThrownBy(() -> engine.search(
+                new CarFilterDto(null, null, null, null, new String[]{"abc"})))
+                .isInstanceOf(InvalidCarFilterException.class);
+        verifyNoInteractions(carRepository);
+    }
+
+    private Car createCar(Long id, String model, String brand, Car.CarBodyType carBodyType) {
+        Car car = new Car();
+        car.setId(id);
+        car.setModel(model);
+        car.setBrand(brand);
+        car.setCarBodyType(carBodyType);
+        car.setInventory(1);
+        car.setDailyFee(BigDecimal.ONE);
+        return car;
+    }
+}
@@ -0,0 +1,182 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.exception.InvalidWebhookException;
+import com.carsharingapp.exception.WebhookQueueFullException;
+import com.carsharingapp.model.Car;
+import com.carsharingapp.model.Payment;
+import com.carsharingapp.model.Rental;
+import com.carsharingapp.repository.payment.PaymentRepository;
+import com.carsharingapp.service.NotificationService;
+import com.carsharingapp.service.payment.PaymentStatusUpdater;
+import com.carsharingapp.service.payment.StripeWebhookProcessor;
+import com.stripe.net.Webhook;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Replays webhook payloads recorded from Stripe's test mode, signed the way Stripe signs
+ * them, through the processor.
+ */
+@ExtendWith(MockitoExtension.class)
+class StripeWebhookProcessorTest {
+    private static final String SECRET = "whsec_test_secret";
+    private static final String COMPLETED = "checkout.session.completed.json";
+    private static final String COMPLETED_UNPAID = "checkout.session.completed-unpaid.json";
+    private static final String EXPIRED = "checkout.session.expired.json";
+    private static final String PAID_SESSION_ID = "cs_test_a1completed";
+    private static final String EXPIRED_SESSION_ID = "cs_test_b1expired";
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StripeWebhookProcessor processor;
+
+    @AfterEach
+    void tearDown() {
+        if (processor != null) {
+            processor.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Queued events are applied as one update per status and notified")
+    void accept_CompletedAndExpired_ShouldUpdateInOneBatch() throws Exception {
+        processor = createProcessor(10);
+        Payment paid = createPayment(1L, PAID_SESSION_ID);
+        Payment expired = createPayment(2L, EXPIRED_SESSION_ID);
+        when(paymentRepository.findPendingBySessionIdsForUpdate(
+                Set.of(PAID_SESSION_ID, EXPIRED_SESSION_ID))).thenReturn(List.of(paid, expired));
+
+        replay(COMPLETED);
+        replay(EXPIRED);
+        processor.start();
+
+        verify(paymentRepository, timeout(1000)).updatePendingStatusBySessionIds(
+                Payment.PaymentStatus.PAID, List.of(PAID_SESSION_ID));
+        verify(paymentRepository, timeout(1000)).updatePendingStatusBySessionIds(
+                Payment.PaymentStatus.CANCELED, List.of(EXPIRED_SESSION_ID));
+        verify(paymentRepository).findWithRentalByIdIn(List.of(1L, 2L));
+        verify(notificationService, timeout(1000))
+                .notifyUserAboutSuccessfulPayment(paid, paid.getRental().getCar());
+        verify(notificationService, timeout(1000))
+                .notifyUserAboutCanceledPayment(expired, expired.getRental().getCar());
+    }
+
+    @Test
+    @DisplayName("Payments that are no longer pending are neither updated nor notified")
+    void accept_PaymentAlreadyCompleted_ShouldSkip() throws Exception {
+        processor = createProcessor(10);
+        processor.start();
+
+        replay(COMPLETED);
+
+        verify(paymentRepository, timeout(1000))
+                .findPendingBySessionIdsForUpdate(Set.of(PAID_SESSION_ID));
+        verify(paymentRepository, after(100).never())
+                .updatePendingStatusBySessionIds(any(), anyCollection());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    @DisplayName("A completed session that is still waiting for its payment is ignored")
+    void accept_CompletedButUnpaid_ShouldIgnore() throws Exception {
+        processor = createProcessor(10);
+        processor.start();
+
+        replay(COMPLETED_UNPAID);
+
+        verify(paymentRepository, after(200).never()).findPendingBySessionIdsForUpdate(any());
+    }
+
+    @Test
+    @DisplayName("A payload with a wrong signature is rejected")
+    void accept_InvalidSignature_ShouldThrow() throws Exception {
+        processor = createProcessor(10);
+        String payload = load(COMPLETED);
+        String signature = sign(payload, "whsec_other_secret");
+
+        assertThatThrownBy(() -> processor.accept(payload, signature))
+                .isInstanceOf(InvalidWebhookException.class);
+        assertThatThrownBy(() -> processor.accept(payload, null))
+                .isInstanceOf(InvalidWebhookException.class);
+    }
+
+    @Test
+    @DisplayName("Events beyond the queue capacity are rejected so Stripe retries them")
+    void accept_QueueFull_ShouldThrow() throws Exception {
+        processor = createProcessor(1);
+        replay(COMPLETED);
+        String payload = load(EXPIRED);
+        String signature = sign(payload, SECRET);
+
+        assertThatThrownBy(() -> processor.accept(payload, signature))
+                .isInstanceOf(WebhookQueueFullException.class);
+        verify(paymentRepository, never()).findPendingBySessionIdsForUpdate(any());
+    }
+
+    private StripeWebhookProcessor createProcessor(int queueCapacity) {
+        PaymentStatusUpdater statusUpdater = new PaymentStatusUpdater(paymentRepository,
+                notificationService, transactionManager);
+        return new StripeWebhookProcessor(statusUpdater, new SimpleMeterRegistry(), SECRET,
+                queueCapacity, 10);
+    }
+
+    private void replay(String recording) throws IOException, GeneralSecurityException {
+        String payload = load(recording);
+        processor.accept(payload, sign(payload, SECRET));
+    }
+
+    private String load(String recording) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/stripe/webhooks/" + recording)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private String sign(String payload, String secret) throws GeneralSecurityException {
+        long timestamp = Webhook.Util.getTimeNow();
+        return "t=" + timestamp + ",v1="
+                + Webhook.Util.computeHmacSha256(secret, timestamp + "." + payload);
+    }
+
+    private Payment createPayment(Long id, String sessionId) {
+        Car car = new Car();
+        car.setModel("Model S");
+        car.setBrand("Tesla");
+        Rental rental = new Rental();
+        rental.setCar(car);
+        Payment payment = new Payment();
+        payment.setId(id);
+        payment.setSessionId(sessionId);
+        payment.setRental(rental);
+        payment.setStatus(Payment.PaymentStatus.PENDING);
+        return payment;
+    }
+}
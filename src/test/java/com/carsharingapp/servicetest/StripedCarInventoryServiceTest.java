@@ -0,0 +1,114 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.dto.car.CarInventoryDto;
+import com.carsharingapp.model.Car;
+import com.carsharingapp.model.CarInventorySlot;
+import com.carsharingapp.repository.car.CarInventorySlotRepository;
+import com.carsharingapp.repository.car.CarRepository;
+import com.carsharingapp.service.inventory.StripedCarInventoryService;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class StripedCarInventoryServiceTest {
+    private static final Long CAR_ID = 1L;
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private CarInventorySlotRepository slotRepository;
+
+    @InjectMocks
+    private StripedCarInventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(inventoryService, "slotCount", 4);
+    }
+
+    @Test
+    @DisplayName("Inventory is spread evenly across the slots")
+    @SuppressWarnings("unchecked")
+    void assign_ShouldSplitInventoryAcrossSlots() {
+        Car car = new Car();
+        car.setId(CAR_ID);
+        car.setInventory(10);
+
+        inventoryService.assign(car);
+
+        ArgumentCaptor<List<CarInventorySlot>> slots = ArgumentCaptor.forClass(List.class);
+        verify(slotRepository).deleteAllByCarId(CAR_ID);
+        verify(slotRepository).saveAll(slots.capture());
+        assertThat(slots.getValue()).extracting(CarInventorySlot::getInventory)
+                .containsExactly(3, 3, 2, 2);
+        assertThat(car.getAvailableInventory()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Loaded cars report the sum of their slots, cars without slots their row")
+    void loadInventory_ShouldFillSlotSums() {
+        Car striped = new Car();
+        striped.setId(CAR_ID);
+        striped.setInventory(10);
+        Car unstriped = new Car();
+        unstriped.setId(2L);
+        unstriped.setInventory(5);
+        when(slotRepository.sumInventoryByCarIds(Set.of(CAR_ID, 2L)))
+                .thenReturn(List.of(new CarInventoryDto(CAR_ID, 7L)));
+
+        inventoryService.loadInventory(List.of(striped, unstriped));
+
+        assertThat(striped.getAvailableInventory()).isEqualTo(7);
+        assertThat(unstriped.getAvailableInventory()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Reservation moves on when another rental drained the chosen slot")
+    void reserve_DrainedSlot_ShouldTryNextSlot() {
+        when(slotRepository.findNonEmptySlots(CAR_ID)).thenReturn(List.of(0, 2));
+        when(slotRepository.decreaseInventory(CAR_ID, 0)).thenReturn(0);
+        when(slotRepository.decreaseInventory(CAR_ID, 2)).thenReturn(0);
+
+        assertThat(inventoryService.reserve(CAR_ID)).isFalse();
+        verify(slotRepository).decreaseInventory(CAR_ID, 0);
+        verify(slotRepository).decreaseInventory(CAR_ID, 2);
+    }
+
+    @Test
+    @DisplayName("Car without slots is reserved through the car row")
+    void reserve_CarWithoutSlots_ShouldUseCarRow() {
+        when(slotRepository.findNonEmptySlots(CAR_ID)).thenReturn(List.of());
+        when(slotRepository.countSlots(CAR_ID)).thenReturn(0);
+        when(carRepository.decreaseInventory(CAR_ID)).thenReturn(1);
+
+        assertThat(inventoryService.reserve(CAR_ID)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Car with all slots empty can't be reserved")
+    void reserve_AllSlotsEmpty_ShouldFail() {
+        when(slotRepository.findNonEmptySlots(CAR_ID)).thenReturn(List.of());
+        when(slotRepository.countSlots(CAR_ID)).thenReturn(4);
+
+        assertThat(inventoryService.reserve(CAR_ID)).isFalse();
+        verify(carRepository, never()).decreaseInventory(CAR_ID);
+        verify(slotRepository, never()).decreaseInventory(eq(CAR_ID), anyInt());
+    }
+}
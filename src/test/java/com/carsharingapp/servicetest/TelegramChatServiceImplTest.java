@@ -0,0 +1,99 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.carsharingapp.config.CacheConfig;
+import com.carsharingapp.dto.user.TelegramLinkDto;
+import com.carsharingapp.model.UserTelegramChat;
+import com.carsharingapp.repository.user.UserTelegramChatRepository;
+import com.carsharingapp.service.impl.TelegramChatServiceImpl;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class TelegramChatServiceImplTest {
+    private static final Long USER_ID = 1L;
+
+    @Mock
+    private UserTelegramChatRepository userTelegramChatRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @InjectMocks
+    private TelegramChatServiceImpl telegramChatService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(telegramChatService, "botUsername", "car_sharing_bot");
+        ReflectionTestUtils.setField(telegramChatService, "linkExpiration", 600000L);
+    }
+
+    @Test
+    @DisplayName("Creating a link stores a fresh token and returns a deep link with it")
+    void createLink_ShouldReturnDeepLinkWithStoredToken() {
+        when(userTelegramChatRepository.findById(USER_ID)).thenReturn(Optional.empty());
+
+        TelegramLinkDto link = telegramChatService.createLink(USER_ID);
+
+        ArgumentCaptor<UserTelegramChat> captor = ArgumentCaptor.forClass(UserTelegramChat.class);
+        verify(userTelegramChatRepository).save(captor.capture());
+        UserTelegramChat saved = captor.getValue();
+        assertThat(saved.getUserId()).isEqualTo(USER_ID);
+        assertThat(link.url())
+                .isEqualTo("https://t.me/car_sharing_bot?start=" + saved.getLinkToken());
+        assertThat(link.expiresAt()).isEqualTo(saved.getLinkTokenExpiresAt());
+    }
+
+    @Test
+    @DisplayName("A valid token links the chat and caches it for the user")
+    void linkChat_ValidToken_ShouldLinkAndCacheChat() {
+        UserTelegramChat chat = createChat(LocalDateTime.now().plusMinutes(5));
+        ConcurrentMapCache cache = new ConcurrentMapCache(CacheConfig.TELEGRAM_CHATS_CACHE);
+        when(userTelegramChatRepository.findByLinkToken("token")).thenReturn(Optional.of(chat));
+        when(cacheManager.getCache(CacheConfig.TELEGRAM_CHATS_CACHE)).thenReturn(cache);
+
+        boolean linked = telegramChatService.linkChat("token", "42");
+
+        assertThat(linked).isTrue();
+        assertThat(chat.getChatId()).isEqualTo("42");
+        assertThat(chat.getLinkToken()).isNull();
+        assertThat(cache.get(USER_ID, String.class)).isEqualTo("42");
+    }
+
+    @Test
+    @DisplayName("An expired token does not link the chat")
+    void linkChat_ExpiredToken_ShouldNotLink() {
+        UserTelegramChat chat = createChat(LocalDateTime.now().minusMinutes(1));
+        when(userTelegramChatRepository.findByLinkToken("token")).thenReturn(Optional.of(chat));
+
+        boolean linked = telegramChatService.linkChat("token", "42");
+
+        assertThat(linked).isFalse();
+        assertThat(chat.getChatId()).isNull();
+        verify(userTelegramChatRepository, never()).save(any());
+    }
+
+    private UserTelegramChat createChat(LocalDateTime expiresAt) {
+        UserTelegramChat chat = new UserTelegramChat();
+        chat.setUserId(USER_ID);
+        chat.setLinkToken("token");
+        chat.setLinkTokenExpiresAt(expiresAt);
+        return chat;
+    }
+}
@@ -0,0 +1,177 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.carsharingapp.exception.TelegramBotSendMessageException;
+import com.carsharingapp.service.telegram.TelegramSendScheduler;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+
+class TelegramSendSchedulerTest {
+    private static final String OK_RESPONSE = "{\"ok\":true,\"result\":{\"message_id\":1,"
+            + "\"date\":0,\"chat\":{\"id\":1,\"type\":\"private\"},\"text\":\"Hello\"}}";
+    private static final String TOO_MANY_REQUESTS_RESPONSE = "{\"ok\":false,"
+            + "\"error_code\":429,\"description\":\"Too Many Requests: retry after 1\","
+            + "\"parameters\":{\"retry_after\":1}}";
+
+    private final List<Long> requestTimes = new CopyOnWriteArrayList<>();
+    private final Queue<String> scriptedResponses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicInteger maxActiveRequests = new AtomicInteger();
+    private volatile long responseDelayMillis;
+    private HttpServer fakeTelegram;
+    private AbsSender sender;
+    private SimpleMeterRegistry meterRegistry;
+    private TelegramSendScheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fakeTelegram = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        fakeTelegram.createContext("/", this::respond);
+        fakeTelegram.setExecutor(Executors.newCachedThreadPool());
+        fakeTelegram.start();
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl("http://localhost:" + fakeTelegram.getAddress().getPort() + "/bot");
+        sender = new DefaultAbsSender(options) {
+            @Override
+            public String getBotToken() {
+                return "token";
+            }
+        };
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+        fakeTelegram.stop(0);
+    }
+
+    @Test
+    @DisplayName("Messages to one chat are spaced out by the per-chat rate")
+    void submit_SameChat_ShouldPaceMessages() throws Exception {
+        startScheduler(10, 100);
+
+        List<CompletableFuture<Message>> futures = List.of(
+                scheduler.submit(new SendMessage("1", "Hello")),
+                scheduler.submit(new SendMessage("1", "Hello")),
+                scheduler.submit(new SendMessage("1", "Hello")));
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(requestTimes).hasSize(3);
+        assertThat(requestTimes.get(2) - requestTimes.get(0))
+                .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(180));
+        assertThat(meterRegistry.get("telegram.send.latency").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("A chat waiting for its bucket does not hold up other chats")
+    void submit_TwoChats_ShouldNotBlockEachOther() throws Exception {
+        startScheduler(1, 100);
+
+        scheduler.submit(new SendMessage("1", "Hello")).get(5, TimeUnit.SECONDS);
+        CompletableFuture<Message> sameChat = scheduler.submit(new SendMessage("1", "Hello"));
+        scheduler.submit(new SendMessage("2", "Hello")).get(500, TimeUnit.MILLISECONDS);
+
+        assertThat(sameChat).isNotDone();
+        sameChat.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Slow sends to different chats overlap instead of queueing behind each other")
+    void submit_SlowEndpoint_ShouldOverlapSendsToDifferentChats() throws Exception {
+        startScheduler(1, 100);
+        responseDelayMillis = 500;
+
+        List<CompletableFuture<Message>> futures = List.of(
+                scheduler.submit(new SendMessage("1", "Hello")),
+                scheduler.submit(new SendMessage("2", "Hello")),
+                scheduler.submit(new SendMessage("3", "Hello")),
+                scheduler.submit(new SendMessage("4", "Hello")));
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(maxActiveRequests.get()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("A 429 answer is retried after the retry_after Telegram asked for")
+    void submit_Throttled_ShouldRetryAfterDelay() throws Exception {
+        startScheduler(10, 100);
+        scriptedResponses.add(TOO_MANY_REQUESTS_RESPONSE);
+
+        scheduler.submit(new SendMessage("1", "Hello")).get(5, TimeUnit.SECONDS);
+
+        assertThat(requestTimes).hasSize(2);
+        assertThat(requestTimes.get(1) - requestTimes.get(0))
+                .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(950));
+        assertThat(meterRegistry.get("telegram.send.throttled").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Messages beyond the queue capacity are rejected")
+    void submit_QueueFull_ShouldReject() throws Exception {
+        startScheduler(0.1, 1);
+        scheduler.submit(new SendMessage("1", "Hello")).get(5, TimeUnit.SECONDS);
+        scheduler.submit(new SendMessage("1", "Hello"));
+
+        assertThatThrownBy(() -> scheduler.submit(new SendMessage("1", "Hello")))
+                .isInstanceOf(TelegramBotSendMessageException.class);
+        assertThat(meterRegistry.get("telegram.send.queue.size").gauge().value())
+                .isEqualTo(1);
+    }
+
+    private void startScheduler(double chatRate, int queueCapacity) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("sender", sender);
+        scheduler = new TelegramSendScheduler(beanFactory.getBeanProvider(AbsSender.class),
+                meterRegistry, 30, chatRate, 20, queueCapacity, 4);
+        scheduler.start();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        requestTimes.add(System.nanoTime());
+        maxActiveRequests.accumulateAndGet(activeRequests.incrementAndGet(), Math::max);
+        exchange.getRequestBody().readAllBytes();
+        try {
+            Thread.sleep(responseDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        activeRequests.decrementAndGet();
+        String response = scriptedResponses.poll();
+        byte[] body = (response == null ? OK_RESPONSE : response)
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response == null ? 200 : 429, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.carsharingapp.servicetest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.carsharingapp.service.scheduler.TimingWheel;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+    private static final long TICK = 1000;
+
+    @Test
+    @DisplayName("Entry expires on the tick of its deadline, not before")
+    void advance_ShouldExpireEntryAtDeadline() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 2, 3, 0);
+        wheel.schedule(1L, 2500);
+
+        assertThat(wheel.advance(2000)).isEmpty();
+        assertThat(wheel.advance(3000)).extracting(TimingWheel.Expired::key).containsExactly(1L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Entries on higher levels cascade down and expire on time")
+    void advance_DeadlinesAcrossLevels_ShouldExpireEachOnItsTick() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 2, 3, 0);
+        long[] deadlines = {3000, 5000, 17000, 40000, 63000, 200000};
+        for (int i = 0; i < deadlines.length; i++) {
+            wheel.schedule((long) i, deadlines[i]);
+        }
+
+        List<Long> firedAt = new ArrayList<>();
+        for (long now = TICK; now <= 200000; now += TICK) {
+            for (TimingWheel.Expired<Long> expired : wheel.advance(now)) {
+                assertThat(now).isEqualTo(deadlines[expired.key().intValue()]);
+                firedAt.add(now);
+            }
+        }
+
+        assertThat(firedAt).hasSize(deadlines.length);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Cancelled entry never expires")
+    void cancel_ShouldRemoveEntry() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 2, 3, 0);
+        wheel.schedule(1L, 30000);
+        wheel.schedule(2L, 30000);
+
+        assertThat(wheel.cancel(1L)).isTrue();
+        assertThat(wheel.cancel(1L)).isFalse();
+        assertThat(wheel.advance(30000)).extracting(TimingWheel.Expired::key)
+                .containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Deadline already passed expires on the next tick")
+    void schedule_PastDeadline_ShouldExpireOnNextTick() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 2, 3, 10000);
+        wheel.schedule(1L, 5000);
+
+        assertThat(wheel.advance(11000)).extracting(TimingWheel.Expired::key)
+                .containsExactly(1L);
+    }
+}